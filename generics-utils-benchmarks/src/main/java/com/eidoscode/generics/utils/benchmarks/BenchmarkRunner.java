@@ -0,0 +1,38 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run all the benchmarks with the GC profiler, that reports the allocation
+ * rate, and write the results to <code>benchmarks.json</code>. <br/>
+ * The first argument, if given, is a regular expression that selects the
+ * benchmarks. To pass other JMH options use <code>java -jar
+ * target/benchmarks.jar</code> directly.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class BenchmarkRunner {
+
+  /**
+   * Hide constructor.
+   */
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    final Options options = new OptionsBuilder() //
+        .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*") //
+        .addProfiler(GCProfiler.class) //
+        .resultFormat(ResultFormatType.JSON) //
+        .result("benchmarks.json") //
+        .build();
+    new Runner(options).run();
+  }
+}
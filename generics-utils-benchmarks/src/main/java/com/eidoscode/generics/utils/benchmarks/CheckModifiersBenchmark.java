@@ -0,0 +1,56 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Benchmark of {@link GenericsUtils#checkModifiers(Field, boolean, int...)}.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckModifiersBenchmark {
+
+  private Field field;
+
+  @Setup
+  public void setUp() throws NoSuchFieldException {
+    field = Models.Small.class.getDeclaredField("name");
+  }
+
+  @Benchmark
+  public boolean single() {
+    return GenericsUtils.checkModifiers(field, false, Modifier.STATIC);
+  }
+
+  @Benchmark
+  public boolean any() {
+    return GenericsUtils.checkModifiers(field, false, Modifier.STATIC, Modifier.FINAL, Modifier.TRANSIENT);
+  }
+
+  @Benchmark
+  public boolean all() {
+    return GenericsUtils.checkModifiers(field, true, Modifier.STATIC, Modifier.FINAL, Modifier.TRANSIENT);
+  }
+}
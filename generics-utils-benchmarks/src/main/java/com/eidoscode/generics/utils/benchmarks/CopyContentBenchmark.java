@@ -0,0 +1,88 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Benchmark of {@link GenericsUtils#copyContent(Object, Object)} on a single
+ * thread. The destinations are owned by each thread. <br/>
+ * It is run once for each field accessor strategy: JMH forks a new JVM for each
+ * value of {@link #accessor}, and the setup sets the system property
+ * <code>com.eidoscode.generics.utils.accessor</code> before the library is
+ * loaded. A strategy that isn't available on the JVM falls back to the next
+ * one.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyContentBenchmark {
+
+  @Param({ "varhandle", "methodhandle", "reflection" })
+  private String accessor;
+
+  private Models.Small smallSource;
+  private Models.Small smallDestination;
+  private Models.Large largeSource;
+  private Models.Large largeDestination;
+  private Models.Primitives primitivesSource;
+  private Models.Primitives primitivesDestination;
+  private Models.Level5 inheritanceSource;
+  private Models.Level5 inheritanceDestination;
+
+  @Setup
+  public void setUp() {
+    System.setProperty("com.eidoscode.generics.utils.accessor", accessor);
+    smallSource = new Models.Small().fill();
+    smallDestination = new Models.Small();
+    largeSource = new Models.Large().fill();
+    largeDestination = new Models.Large();
+    primitivesSource = new Models.Primitives().fill();
+    primitivesDestination = new Models.Primitives();
+    inheritanceSource = new Models.Level5().fill();
+    inheritanceDestination = new Models.Level5();
+  }
+
+  @Benchmark
+  public Object small() throws Exception {
+    GenericsUtils.copyContent(smallSource, smallDestination);
+    return smallDestination;
+  }
+
+  @Benchmark
+  public Object large() throws Exception {
+    GenericsUtils.copyContent(largeSource, largeDestination);
+    return largeDestination;
+  }
+
+  @Benchmark
+  public Object primitives() throws Exception {
+    GenericsUtils.copyContent(primitivesSource, primitivesDestination);
+    return primitivesDestination;
+  }
+
+  @Benchmark
+  public Object inheritance() throws Exception {
+    GenericsUtils.copyContent(inheritanceSource, inheritanceDestination);
+    return inheritanceDestination;
+  }
+}
@@ -0,0 +1,18 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import org.openjdk.jmh.annotations.Threads;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Benchmark of {@link GenericsUtils#copyContent(Object, Object)} with one
+ * thread per available processor, sharing the cached copy plans.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@Threads(Threads.MAX)
+public class CopyContentConcurrentBenchmark extends CopyContentBenchmark {
+
+}
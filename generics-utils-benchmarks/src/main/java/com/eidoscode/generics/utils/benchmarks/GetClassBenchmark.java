@@ -0,0 +1,58 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Benchmark of {@link GenericsUtils#getClass(Class, Class)} and
+ * {@link GenericsUtils#isSubtype(Class, Class)} on a deep hierarchy.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetClassBenchmark {
+
+  private Class<?> deep = Models.DeepRepository.class;
+  private Class<?> level5 = Models.Level5.class;
+  private Class<?> superClass = Models.AbstractRepository.class;
+  private Class<?> genericInterface = Models.Repository.class;
+  private Class<?> level1 = Models.Level1.class;
+
+  @Benchmark
+  public Class<?> superClass() {
+    return GenericsUtils.getClass(deep, superClass);
+  }
+
+  @Benchmark
+  public Class<?> genericInterface() {
+    return GenericsUtils.getClass(deep, genericInterface);
+  }
+
+  @Benchmark
+  public Class<?> topClass() {
+    return GenericsUtils.getClass(level5, level1);
+  }
+
+  @Benchmark
+  public boolean isSubtype() {
+    return GenericsUtils.isSubtype(deep, genericInterface);
+  }
+}
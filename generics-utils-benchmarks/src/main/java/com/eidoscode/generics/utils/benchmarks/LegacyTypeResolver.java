@@ -0,0 +1,79 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recursive resolver used by the version 1.1.5 of getSuperClassGenericType.
+ * It is kept to compare it with the current resolver on the same inputs, see
+ * {@link SuperClassGenericTypeBenchmark}.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class LegacyTypeResolver {
+
+  /**
+   * Hide constructor.
+   */
+  private LegacyTypeResolver() {
+  }
+
+  public static Type[] resolve(final Class<?> targetClazz, Class<?> baseClazz, Type... actualArgs) {
+    if (actualArgs.length == 0) {
+      actualArgs = targetClazz.getTypeParameters();
+    }
+    targetClazz.getGenericSuperclass();
+    Map<String, Type> typeVariables = new HashMap<String, Type>();
+    for (int i = 0; i < actualArgs.length; i++) {
+      TypeVariable<?> typeVariable = (TypeVariable<?>) targetClazz.getTypeParameters()[i];
+      typeVariables.put(typeVariable.getName(), actualArgs[i]);
+    }
+
+    List<Type> ancestors = new LinkedList<Type>();
+    if (targetClazz.getGenericSuperclass() != null) {
+      ancestors.add(targetClazz.getGenericSuperclass());
+    }
+    for (Type t : targetClazz.getGenericInterfaces()) {
+      ancestors.add(t);
+    }
+
+    for (Type type : ancestors) {
+      if (type instanceof Class<?>) {
+        Class<?> ancestorClass = (Class<?>) type;
+        if (baseClazz.isAssignableFrom(ancestorClass)) {
+          return resolve(ancestorClass, baseClazz);
+        }
+      }
+      if (type instanceof ParameterizedType) {
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        Type rawType = parameterizedType.getRawType();
+        if (rawType instanceof Class<?>) {
+          Class<?> rawTypeClass = (Class<?>) rawType;
+          if (baseClazz.isAssignableFrom(rawTypeClass)) {
+            List<Type> resolvedTypes = new LinkedList<Type>();
+            for (Type t : parameterizedType.getActualTypeArguments()) {
+              if (t instanceof TypeVariable<?>) {
+                Type resolvedType = typeVariables.get(((TypeVariable<?>) t).getName());
+                resolvedTypes.add(resolvedType != null ? resolvedType : t);
+              } else {
+                resolvedTypes.add(t);
+              }
+            }
+            return resolve(rawTypeClass, baseClazz, resolvedTypes.toArray(new Type[] {}));
+          }
+        }
+      }
+    }
+    if (targetClazz.equals(baseClazz)) {
+      return actualArgs;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,259 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import java.io.Serializable;
+
+/**
+ * Models used by the benchmarks.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class Models {
+
+  /**
+   * Hide constructor.
+   */
+  private Models() {
+  }
+
+  /**
+   * Object with a few fields.
+   */
+  public static class Small {
+    String name;
+    int id;
+    Long version;
+
+    public Small fill() {
+      name = "small";
+      id = 1;
+      version = Long.valueOf(2);
+      return this;
+    }
+  }
+
+  /**
+   * Object with many reference and primitive fields.
+   */
+  public static class Large {
+    String field00;
+    int field01;
+    long field02;
+    Integer field03;
+    double field04;
+    boolean field05;
+    java.util.Date field06;
+    Long field07;
+    String field08;
+    int field09;
+    long field10;
+    Integer field11;
+    double field12;
+    boolean field13;
+    java.util.Date field14;
+    Long field15;
+    String field16;
+    int field17;
+    long field18;
+    Integer field19;
+    double field20;
+    boolean field21;
+    java.util.Date field22;
+    Long field23;
+    String field24;
+    int field25;
+    long field26;
+    Integer field27;
+    double field28;
+    boolean field29;
+    java.util.Date field30;
+    Long field31;
+
+    public Large fill() {
+      field00 = "value0";
+      field01 = 1;
+      field02 = 2L;
+      field03 = Integer.valueOf(3);
+      field04 = 4.5d;
+      field05 = true;
+      field06 = new java.util.Date(6L);
+      field07 = Long.valueOf(7);
+      field08 = "value8";
+      field09 = 9;
+      field10 = 10L;
+      field11 = Integer.valueOf(11);
+      field12 = 12.5d;
+      field13 = true;
+      field14 = new java.util.Date(14L);
+      field15 = Long.valueOf(15);
+      field16 = "value16";
+      field17 = 17;
+      field18 = 18L;
+      field19 = Integer.valueOf(19);
+      field20 = 20.5d;
+      field21 = true;
+      field22 = new java.util.Date(22L);
+      field23 = Long.valueOf(23);
+      field24 = "value24";
+      field25 = 25;
+      field26 = 26L;
+      field27 = Integer.valueOf(27);
+      field28 = 28.5d;
+      field29 = true;
+      field30 = new java.util.Date(30L);
+      field31 = Long.valueOf(31);
+      return this;
+    }
+  }
+
+  /**
+   * Object with only primitive fields.
+   */
+  public static class Primitives {
+    boolean booleanValue0;
+    byte byteValue0;
+    char charValue0;
+    short shortValue0;
+    int intValue0;
+    long longValue0;
+    float floatValue0;
+    double doubleValue0;
+    boolean booleanValue1;
+    byte byteValue1;
+    char charValue1;
+    short shortValue1;
+    int intValue1;
+    long longValue1;
+    float floatValue1;
+    double doubleValue1;
+
+    public Primitives fill() {
+      booleanValue0 = true;
+      byteValue0 = (byte) 1;
+      charValue0 = 'c';
+      shortValue0 = (short) 2;
+      intValue0 = 3;
+      longValue0 = 4L;
+      floatValue0 = 5.5f;
+      doubleValue0 = 6.6d;
+      booleanValue1 = true;
+      byteValue1 = (byte) 1;
+      charValue1 = 'c';
+      shortValue1 = (short) 2;
+      intValue1 = 3;
+      longValue1 = 4L;
+      floatValue1 = 5.5f;
+      doubleValue1 = 6.6d;
+      return this;
+    }
+  }
+
+  /**
+   * First level of a deep class hierarchy.
+   */
+  public static class Level1 {
+    String name1;
+    int value1;
+  }
+
+  /**
+   * Second level of a deep class hierarchy.
+   */
+  public static class Level2 extends Level1 {
+    String name2;
+    int value2;
+  }
+
+  /**
+   * Third level of a deep class hierarchy.
+   */
+  public static class Level3 extends Level2 {
+    String name3;
+    int value3;
+  }
+
+  /**
+   * Fourth level of a deep class hierarchy.
+   */
+  public static class Level4 extends Level3 {
+    String name4;
+    int value4;
+  }
+
+  /**
+   * Fifth level of a deep class hierarchy.
+   */
+  public static class Level5 extends Level4 {
+    String name5;
+    int value5;
+
+    public Level5 fill() {
+      name1 = "1";
+      name2 = "2";
+      name3 = "3";
+      name4 = "4";
+      name5 = "5";
+      value1 = 1;
+      value2 = 2;
+      value3 = 3;
+      value4 = 4;
+      value5 = 5;
+      return this;
+    }
+  }
+
+  /**
+   * Generic interface.
+   */
+  public interface Repository<E, K extends Serializable> {
+  }
+
+  /**
+   * Generic class implementing the generic interface.
+   */
+  public abstract static class AbstractRepository<E, K extends Serializable> implements Repository<E, K> {
+  }
+
+  /**
+   * Class that passes the arguments directly to the generic super class.
+   */
+  public static class ShallowRepository extends AbstractRepository<String, Long> {
+  }
+
+  /**
+   * Class that passes the arguments directly to the generic interface.
+   */
+  public static class ShallowInterfaceRepository implements Repository<String, Long> {
+  }
+
+  /**
+   * Intermediate level that keeps both arguments open.
+   */
+  public abstract static class Deep1<E, K extends Serializable> extends AbstractRepository<E, K> {
+  }
+
+  /**
+   * Intermediate level that binds the key.
+   */
+  public abstract static class Deep2<E> extends Deep1<E, Long> {
+  }
+
+  /**
+   * Intermediate level without arguments of its own.
+   */
+  public abstract static class Deep3<E> extends Deep2<E> {
+  }
+
+  /**
+   * Intermediate level that keeps the entity open.
+   */
+  public abstract static class Deep4<E> extends Deep3<E> {
+  }
+
+  /**
+   * Class that passes the arguments through five levels of the hierarchy.
+   */
+  public static class DeepRepository extends Deep4<String> {
+  }
+}
@@ -0,0 +1,79 @@
+package com.eidoscode.generics.utils.benchmarks;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Benchmark of {@link GenericsUtils#getSuperClassGenericType(Class, Class, int, java.lang.reflect.Type...)}
+ * on shallow and deep hierarchies, looking for a super class or an interface,
+ * and on the uncached path of the calls with explicit type arguments, that is
+ * compared with the resolver of the version 1.1.5 ({@link LegacyTypeResolver})
+ * on the same arguments.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuperClassGenericTypeBenchmark {
+
+  private Class<?> shallow = Models.ShallowRepository.class;
+  private Class<?> shallowInterface = Models.ShallowInterfaceRepository.class;
+  private Class<?> deep = Models.DeepRepository.class;
+  private Class<?> superClass = Models.AbstractRepository.class;
+  private Class<?> genericInterface = Models.Repository.class;
+  private Type[] arguments = new Type[] { String.class, Long.class };
+
+  @Benchmark
+  public Class<?> shallowSuperClass() {
+    return GenericsUtils.getSuperClassGenericType(shallow, superClass, 1);
+  }
+
+  @Benchmark
+  public Class<?> shallowInterface() {
+    return GenericsUtils.getSuperClassGenericType(shallowInterface, genericInterface, 1);
+  }
+
+  @Benchmark
+  public Class<?> deepSuperClass() {
+    return GenericsUtils.getSuperClassGenericType(deep, superClass, 1);
+  }
+
+  @Benchmark
+  public Class<?> deepInterface() {
+    return GenericsUtils.getSuperClassGenericType(deep, genericInterface, 1);
+  }
+
+  @Benchmark
+  public Class<?> explicitArguments() {
+    // the calls with explicit arguments are never cached
+    return GenericsUtils.getSuperClassGenericType(superClass, genericInterface, 1, arguments);
+  }
+
+  @Benchmark
+  public Type legacyExplicitArguments() {
+    return LegacyTypeResolver.resolve(superClass, genericInterface, arguments)[1];
+  }
+
+  @Benchmark
+  public Class<?>[] deepAllArguments() {
+    return GenericsUtils.getSuperClassGenericTypes(deep, genericInterface);
+  }
+}
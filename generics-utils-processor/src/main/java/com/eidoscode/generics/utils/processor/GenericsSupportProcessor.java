@@ -0,0 +1,311 @@
+package com.eidoscode.generics.utils.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor that generates, for each class annotated with
+ * <code>com.eidoscode.generics.utils.GenericsSupport</code>, a class named
+ * <code>&lt;class&gt;$$GenericsSupport</code> that implements
+ * <code>com.eidoscode.generics.utils.GeneratedGenericsSupport</code>, or
+ * <code>com.eidoscode.generics.utils.GeneratedCopySupport</code> when its copy
+ * is generated. <br/>
+ * The generated class has:
+ * <ul>
+ * <li>The actual type arguments passed to each generic super class and
+ * interface of the annotated class, when all of them are classes or arrays of
+ * classes. The other ones (type variables, parameterized types and wildcards)
+ * are left to the reflection.</li>
+ * <li>The copy of all the instance fields of the annotated class, when all of
+ * them can be written by plain Java code on the same package (not private nor
+ * final, and not hidden by another field with the same name). Otherwise the
+ * copy is left to the reflection.</li>
+ * </ul>
+ * The processor doesn't depend on the generics-utils classes, only on their
+ * names.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@SupportedAnnotationTypes(GenericsSupportProcessor.ANNOTATION)
+public class GenericsSupportProcessor extends AbstractProcessor {
+
+  /**
+   * Name of the processed annotation.
+   */
+  static final String ANNOTATION = "com.eidoscode.generics.utils.GenericsSupport";
+
+  /**
+   * Name of the interface implemented by the generated classes.
+   */
+  private static final String SUPPORT = "com.eidoscode.generics.utils.GeneratedGenericsSupport";
+
+  /**
+   * Name of the interface implemented by the generated classes that have the
+   * copy.
+   */
+  private static final String COPY_SUPPORT = "com.eidoscode.generics.utils.GeneratedCopySupport";
+
+  /**
+   * Suffix of the name of the generated classes.
+   */
+  private static final String SUFFIX = "$$GenericsSupport";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latest();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@GenericsSupport can only be used on classes", element);
+          continue;
+        }
+        final TypeElement type = (TypeElement) element;
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+          processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@GenericsSupport can't be used on local classes", element);
+          continue;
+        }
+        try {
+          generate(type);
+        } catch (IOException e) {
+          processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to generate the generics support: " + e.getMessage(),
+              element);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Generate the support class of the given class.
+   * 
+   * @param type
+   *          Annotated class.
+   * @throws IOException
+   *           Throw if it is not possible to write the generated source.
+   */
+  private void generate(TypeElement type) throws IOException {
+    final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+    final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+    final String simpleName = (packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+
+    final Map<String, List<String>> typeArguments = new LinkedHashMap<String, List<String>>();
+    collectTypeArguments(type.asType(), pkg, typeArguments, new HashSet<String>());
+    final List<VariableElement> fields = isAccessible(type, pkg) ? copiedFields(type, pkg) : null;
+    final String typeName = type.getQualifiedName().toString();
+
+    final JavaFileObject file = processingEnv.getFiler().createSourceFile(
+        packageName.length() == 0 ? simpleName : packageName + "." + simpleName, type);
+    final PrintWriter out = new PrintWriter(file.openWriter());
+    try {
+      if (packageName.length() > 0) {
+        out.println("package " + packageName + ";");
+        out.println();
+      }
+      out.println("/**");
+      out.println(" * Generics support of {@link " + typeName + "}.");
+      out.println(" * Generated by " + getClass().getName() + ", do not edit.");
+      out.println(" */");
+      if (fields != null && !type.getTypeParameters().isEmpty()) {
+        out.println("@SuppressWarnings(\"rawtypes\")");
+      }
+      out.println("public final class " + simpleName + " implements " + (fields != null ? COPY_SUPPORT : SUPPORT) + " {");
+      out.println();
+      out.println("  public java.lang.reflect.Type[] getTypeArguments(java.lang.Class<?> baseClazz) {");
+      for (Map.Entry<String, List<String>> entry : typeArguments.entrySet()) {
+        out.println("    if (baseClazz == " + entry.getKey() + ".class) {");
+        out.print("      return new java.lang.reflect.Type[] { ");
+        for (int i = 0; i < entry.getValue().size(); i++) {
+          out.print((i == 0 ? "" : ", ") + entry.getValue().get(i) + ".class");
+        }
+        out.println(" };");
+        out.println("    }");
+      }
+      out.println("    return null;");
+      out.println("  }");
+      if (fields != null) {
+        out.println();
+        out.println("  public void copyContent(java.lang.Object source, java.lang.Object destination) {");
+        out.println("    final " + typeName + " s = (" + typeName + ") source;");
+        out.println("    final " + typeName + " d = (" + typeName + ") destination;");
+        for (VariableElement field : fields) {
+          out.println("    d." + field.getSimpleName() + " = s." + field.getSimpleName() + ";");
+        }
+        out.println("  }");
+      }
+      out.println("}");
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Collect the actual type arguments of all the generic super classes and
+   * interfaces of the given type. The hierarchy is walked on the same order
+   * used on the runtime (super class first), and only the first occurrence of
+   * each class is kept.
+   * 
+   * @param type
+   *          Current type.
+   * @param pkg
+   *          Package of the generated class.
+   * @param typeArguments
+   *          Class literals of the type arguments, by the name of the generic
+   *          class.
+   * @param visited
+   *          Names of the classes already visited.
+   */
+  private void collectTypeArguments(TypeMirror type, PackageElement pkg, Map<String, List<String>> typeArguments, Set<String> visited) {
+    for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+      if (supertype.getKind() != TypeKind.DECLARED) {
+        continue;
+      }
+      final DeclaredType declared = (DeclaredType) supertype;
+      final TypeElement element = (TypeElement) declared.asElement();
+      final String name = element.getQualifiedName().toString();
+      if (!visited.add(name)) {
+        continue;
+      }
+      if (!declared.getTypeArguments().isEmpty() && isAccessible(element, pkg)) {
+        final List<String> literals = new ArrayList<String>();
+        for (TypeMirror argument : declared.getTypeArguments()) {
+          final String literal = classLiteral(argument, pkg);
+          if (literal == null) {
+            break;
+          }
+          literals.add(literal);
+        }
+        if (literals.size() == declared.getTypeArguments().size()) {
+          typeArguments.put(name, literals);
+        }
+      }
+      collectTypeArguments(declared, pkg, typeArguments, visited);
+    }
+  }
+
+  /**
+   * Return the name of the class represented by the given type, to be used on
+   * a class literal.
+   * 
+   * @param type
+   *          Type argument.
+   * @param pkg
+   *          Package of the generated class.
+   * @return The name of the class, or <code>null</code> if the type is not
+   *         represented by a class on the runtime or if it is not accessible.
+   */
+  private String classLiteral(TypeMirror type, PackageElement pkg) {
+    if (type.getKind().isPrimitive()) {
+      return type.toString();
+    }
+    if (type.getKind() == TypeKind.ARRAY) {
+      final String component = classLiteral(((ArrayType) type).getComponentType(), pkg);
+      return component == null ? null : component + "[]";
+    }
+    if (type.getKind() == TypeKind.DECLARED) {
+      final DeclaredType declared = (DeclaredType) type;
+      if (!declared.getTypeArguments().isEmpty()) {
+        return null;
+      }
+      final TypeMirror enclosing = declared.getEnclosingType();
+      if (enclosing.getKind() == TypeKind.DECLARED && !((DeclaredType) enclosing).getTypeArguments().isEmpty()) {
+        return null;
+      }
+      final TypeElement element = (TypeElement) declared.asElement();
+      return isAccessible(element, pkg) ? element.getQualifiedName().toString() : null;
+    }
+    return null;
+  }
+
+  /**
+   * Return the instance fields of the given class and of its super classes,
+   * if all of them can be copied by the generated code.
+   * 
+   * @param type
+   *          Annotated class.
+   * @param pkg
+   *          Package of the generated class.
+   * @return The fields or <code>null</code> if the copy can't be generated.
+   */
+  private List<VariableElement> copiedFields(TypeElement type, PackageElement pkg) {
+    final List<VariableElement> fields = new ArrayList<VariableElement>();
+    final Set<String> names = new HashSet<String>();
+    TypeElement current = type;
+    while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+      final boolean samePackage = processingEnv.getElementUtils().getPackageOf(current).equals(pkg);
+      for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        final Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC)) {
+          continue;
+        }
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+          return null;
+        }
+        if (!samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+          return null;
+        }
+        if (!names.add(field.getSimpleName().toString())) {
+          return null;
+        }
+        fields.add(field);
+      }
+      final TypeMirror superclass = current.getSuperclass();
+      current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+    return fields;
+  }
+
+  /**
+   * Check if the given class can be referenced by the generated code.
+   * 
+   * @param type
+   *          Class.
+   * @param pkg
+   *          Package of the generated class.
+   * @return <code>true</code> if it is accessible.
+   */
+  private boolean isAccessible(TypeElement type, PackageElement pkg) {
+    final boolean samePackage = processingEnv.getElementUtils().getPackageOf(type).equals(pkg);
+    for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+      final Set<Modifier> modifiers = current.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (!samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
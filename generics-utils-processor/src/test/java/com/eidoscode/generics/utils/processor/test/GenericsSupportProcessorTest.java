@@ -0,0 +1,200 @@
+package com.eidoscode.generics.utils.processor.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GeneratedCopySupport;
+import com.eidoscode.generics.utils.GeneratedGenericsSupport;
+import com.eidoscode.generics.utils.GenericsUtils;
+import com.eidoscode.generics.utils.processor.GenericsSupportProcessor;
+
+/**
+ * Compile some annotated classes with the processor and check the generated
+ * classes against the reflection.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class GenericsSupportProcessorTest {
+
+  private static File directory;
+  private static URLClassLoader classLoader;
+
+  @BeforeClass
+  public static void compile() throws IOException {
+    directory = File.createTempFile("generics-support", "");
+    directory.delete();
+    directory.mkdirs();
+    final List<File> sources = new ArrayList<File>();
+    sources.add(write("sample/Base.java", //
+        "package sample;\n" //
+            + "public class Base<K, V> {\n" //
+            + "  public K key;\n" //
+            + "  protected V value;\n" //
+            + "}\n"));
+    sources.add(write("sample/Entity.java", //
+        "package sample;\n" //
+            + "@com.eidoscode.generics.utils.GenericsSupport\n" //
+            + "public class Entity extends Base<String, Long> implements Comparable<Entity[]>, java.util.Map.Entry<int[], java.util.List<String>> {\n" //
+            + "  int count;\n" //
+            + "  volatile boolean active;\n" //
+            + "  public int compareTo(Entity[] o) { return 0; }\n" //
+            + "  public int[] getKey() { return null; }\n" //
+            + "  public java.util.List<String> getValue() { return null; }\n" //
+            + "  public java.util.List<String> setValue(java.util.List<String> v) { return null; }\n" //
+            + "}\n"));
+    sources.add(write("sample/Secret.java", //
+        "package sample;\n" //
+            + "@com.eidoscode.generics.utils.GenericsSupport\n" //
+            + "public class Secret<T> extends Base<T, Integer> {\n" //
+            + "  private String secret;\n" //
+            + "}\n"));
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+    try {
+      final CompilationTask task = compiler.getTask(null, fileManager, null,
+          Arrays.asList("-d", directory.getPath(), "-s", directory.getPath(), "-classpath", System.getProperty("java.class.path")), null,
+          fileManager.getJavaFileObjectsFromFiles(sources));
+      task.setProcessors(Arrays.asList(new GenericsSupportProcessor()));
+      assertTrue("Compilation failed", task.call());
+    } finally {
+      fileManager.close();
+    }
+    classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, GenericsSupportProcessorTest.class.getClassLoader());
+  }
+
+  @AfterClass
+  public static void clean() {
+    GenericsUtils.clearCache(classLoader);
+    delete(directory);
+  }
+
+  @Test
+  public void testTypeArguments() throws Exception {
+    final Class<?> entity = classLoader.loadClass("sample.Entity");
+    final Class<?> base = classLoader.loadClass("sample.Base");
+    final GeneratedGenericsSupport support = support(entity);
+
+    assertArrayEquals(new Type[] { String.class, Long.class }, support.getTypeArguments(base));
+    assertArrayEquals(new Type[] { Class.forName("[Lsample.Entity;", false, classLoader) }, support.getTypeArguments(Comparable.class));
+    // The List<String> argument is a parameterized type, left to the
+    // reflection.
+    assertNull(support.getTypeArguments(Map.Entry.class));
+    assertNull(support.getTypeArguments(Object.class));
+
+    assertArrayEquals(GenericsUtils.getSuperClassGenericTypeArguments(entity, base), support.getTypeArguments(base));
+    assertEquals(Long.class, GenericsUtils.getSuperClassGenericType(entity, base, 1));
+  }
+
+  @Test
+  public void testTypeVariablesAreNotGenerated() throws Exception {
+    final Class<?> secret = classLoader.loadClass("sample.Secret");
+    final GeneratedGenericsSupport support = support(secret);
+
+    assertNull(support.getTypeArguments(classLoader.loadClass("sample.Base")));
+    assertNull(GenericsUtils.getSuperClassGenericType(secret, classLoader.loadClass("sample.Base"), 0));
+    assertEquals(Integer.class, GenericsUtils.getSuperClassGenericType(secret, classLoader.loadClass("sample.Base"), 1));
+  }
+
+  @Test
+  public void testCopy() throws Exception {
+    final Class<?> entity = classLoader.loadClass("sample.Entity");
+    final GeneratedGenericsSupport support = support(entity);
+    assertTrue(support instanceof GeneratedCopySupport);
+
+    final Object source = entity.getConstructor().newInstance();
+    set(source, "key", "key");
+    set(source, "value", Long.valueOf(10));
+    set(source, "count", Integer.valueOf(3));
+    set(source, "active", Boolean.TRUE);
+    final Object destination = entity.getConstructor().newInstance();
+    ((GeneratedCopySupport) support).copyContent(source, destination);
+    for (String name : new String[] { "key", "value", "count", "active" }) {
+      assertEquals(name, get(source, name), get(destination, name));
+    }
+
+    final Object other = entity.getConstructor().newInstance();
+    GenericsUtils.copyContent(source, other);
+    assertEquals(Integer.valueOf(3), get(other, "count"));
+  }
+
+  @Test
+  public void testPrivateFieldsAreNotGenerated() throws Exception {
+    final GeneratedGenericsSupport support = support(classLoader.loadClass("sample.Secret"));
+    assertFalse(support instanceof GeneratedCopySupport);
+  }
+
+  private static GeneratedGenericsSupport support(Class<?> clazz) throws Exception {
+    return (GeneratedGenericsSupport) classLoader.loadClass(clazz.getName() + GeneratedGenericsSupport.SUFFIX).getConstructor().newInstance();
+  }
+
+  private static void set(Object target, String name, Object value) throws Exception {
+    field(target.getClass(), name).set(target, value);
+  }
+
+  private static Object get(Object target, String name) throws Exception {
+    return field(target.getClass(), name).get(target);
+  }
+
+  private static java.lang.reflect.Field field(Class<?> clazz, String name) throws NoSuchFieldException {
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      try {
+        final java.lang.reflect.Field field = current.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+      } catch (NoSuchFieldException e) {
+        // Look on the super class
+      }
+    }
+    throw new NoSuchFieldException(name);
+  }
+
+  private static File write(String path, String content) throws IOException {
+    final File file = new File(directory, path);
+    file.getParentFile().mkdirs();
+    final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      writer.write(content);
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  private static void delete(File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
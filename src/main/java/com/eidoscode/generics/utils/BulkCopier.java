@@ -0,0 +1,326 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine of the bulk copies. <br/>
+ * The copy plan is resolved once and reused while the classes of the elements
+ * don't change. Batches that are big enough are split into segments that are
+ * copied in parallel by a shared pool of daemon threads.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class BulkCopier {
+
+  /**
+   * System property used to change the default parallel threshold.
+   */
+  static final String THRESHOLD_PROPERTY = "com.eidoscode.generics.utils.parallelThreshold";
+
+  /**
+   * Default minimum number of elements handled by each thread.
+   */
+  static final int DEFAULT_THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 10000).intValue();
+
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Hide constructor.
+   */
+  private BulkCopier() {
+  }
+
+  /**
+   * Segment of a batch.
+   */
+  private abstract static class Segment {
+
+    private Class<?> sourceClass;
+    private Class<?> destinationClass;
+    private CopyPlan plan;
+
+    /**
+     * Copy the elements of the given range.
+     * 
+     * @param from
+     *          First index (inclusive).
+     * @param to
+     *          Last index (exclusive).
+     */
+    abstract void copy(int from, int to) throws IllegalAccessException, NoSuchFieldException, InstantiationException;
+
+    /**
+     * Copy one element reusing the last resolved plan when the classes are
+     * the same.
+     * 
+     * @param index
+     *          Index of the element.
+     * @param source
+     *          Source object.
+     * @param destination
+     *          Destination object.
+     */
+    final void copy(int index, Object source, Object destination) throws IllegalAccessException, NoSuchFieldException {
+      if (source == null) {
+        throw new NullPointerException("The source element at index " + index + " is null");
+      }
+      if (destination == null) {
+        throw new NullPointerException("The destination element at index " + index + " is null");
+      }
+      final Class<?> sClass = source.getClass();
+      final Class<?> dClass = destination.getClass();
+      if (sClass != sourceClass || dClass != destinationClass) {
+        plan = CopyPlan.get(sClass, dClass);
+        sourceClass = sClass;
+        destinationClass = dClass;
+      }
+      plan.copy(source, destination);
+    }
+  }
+
+  /**
+   * Copy each source element to the destination element on the same position.
+   * 
+   * @param sources
+   *          Source elements.
+   * @param destinations
+   *          Destination elements.
+   * @param threshold
+   *          Minimum number of elements handled by each thread.
+   */
+  static void copy(final Object[] sources, final Object[] destinations, int threshold) throws IllegalAccessException, NoSuchFieldException {
+    if (sources.length != destinations.length) {
+      throw new IllegalArgumentException("The number of sources (" + sources.length + ") and destinations (" + destinations.length + ") must be the same");
+    }
+    try {
+      execute(sources.length, threshold, new SegmentFactory() {
+        @Override
+        Segment create() {
+          return new Segment() {
+            @Override
+            void copy(int from, int to) throws IllegalAccessException, NoSuchFieldException {
+              for (int i = from; i < to; i++) {
+                copy(i, sources[i], destinations[i]);
+              }
+            }
+          };
+        }
+      });
+    } catch (InstantiationException e) {
+      // There is no instantiation on this copy
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Copy each source element to a new instance of the destination class.
+   * 
+   * @param sources
+   *          Source elements.
+   * @param destinationClass
+   *          Class of the destination elements. It must have a constructor
+   *          without parameters.
+   * @param threshold
+   *          Minimum number of elements handled by each thread.
+   * @return The destination elements.
+   */
+  static Object[] copy(final Object[] sources, Class<?> destinationClass, int threshold) throws IllegalAccessException, NoSuchFieldException,
+      InstantiationException {
+    final Constructor<?> constructor;
+    try {
+      constructor = destinationClass.getDeclaredConstructor();
+      constructor.setAccessible(true);
+    } catch (NoSuchMethodException e) {
+      throw (InstantiationException) new InstantiationException(destinationClass.getName()).initCause(e);
+    }
+    final Object[] destinations = new Object[sources.length];
+    execute(sources.length, threshold, new SegmentFactory() {
+      @Override
+      Segment create() {
+        return new Segment() {
+          @Override
+          void copy(int from, int to) throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+            for (int i = from; i < to; i++) {
+              destinations[i] = newInstance(constructor);
+              copy(i, sources[i], destinations[i]);
+            }
+          }
+        };
+      }
+    });
+    return destinations;
+  }
+
+  /**
+   * Create a new instance using the given constructor.
+   * 
+   * @param constructor
+   *          Constructor without parameters.
+   * @return The new instance.
+   */
+  static Object newInstance(Constructor<?> constructor) throws IllegalAccessException, InstantiationException {
+    try {
+      return constructor.newInstance();
+    } catch (InvocationTargetException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (InstantiationException) new InstantiationException(constructor.getDeclaringClass().getName()).initCause(cause);
+    }
+  }
+
+  /**
+   * Factory of the segments of a batch.
+   */
+  private abstract static class SegmentFactory {
+
+    /**
+     * Create a new segment. Each thread uses its own segment.
+     * 
+     * @return The segment.
+     */
+    abstract Segment create();
+  }
+
+  /**
+   * Execute the copy of a batch. If the batch is big enough it is split into
+   * segments that are executed in parallel. The calling thread executes the
+   * first segment.
+   * 
+   * @param size
+   *          Size of the batch.
+   * @param threshold
+   *          Minimum number of elements handled by each thread.
+   * @param factory
+   *          Factory of the segments.
+   */
+  private static void execute(int size, int threshold, final SegmentFactory factory) throws IllegalAccessException, NoSuchFieldException,
+      InstantiationException {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("The parallel threshold value can not be less than 1.");
+    }
+    final int segments = Math.min(PARALLELISM, size / threshold);
+    if (segments <= 1) {
+      factory.create().copy(0, size);
+      return;
+    }
+    final int segmentSize = (size + segments - 1) / segments;
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(segments - 1);
+    for (int from = segmentSize; from < size; from += segmentSize) {
+      final int start = from;
+      final int end = Math.min(size, from + segmentSize);
+      futures.add(Pool.EXECUTOR.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          factory.create().copy(start, end);
+          return null;
+        }
+      }));
+    }
+    try {
+      factory.create().copy(0, segmentSize);
+    } finally {
+      for (Future<Void> future : futures) {
+        await(future);
+      }
+    }
+  }
+
+  /**
+   * Wait for the end of the execution of a segment and throw its exception, if
+   * any.
+   * 
+   * @param future
+   *          Future of the segment.
+   */
+  private static void await(Future<Void> future) throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          future.get();
+          return;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          final Throwable cause = e.getCause();
+          if (cause instanceof IllegalAccessException) {
+            throw (IllegalAccessException) cause;
+          }
+          if (cause instanceof NoSuchFieldException) {
+            throw (NoSuchFieldException) cause;
+          }
+          if (cause instanceof InstantiationException) {
+            throw (InstantiationException) cause;
+          }
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Holder of the shared pool, created only on the first parallel copy. <br/>
+   * The threads end after being idle for {@link #KEEP_ALIVE} seconds and don't
+   * keep the context class loader of the thread that created them, so the pool
+   * doesn't hold an undeployed application in memory.
+   */
+  private static final class Pool {
+
+    /**
+     * Seconds that an idle thread waits for a new segment before ending.
+     */
+    private static final long KEEP_ALIVE = 60L;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, KEEP_ALIVE, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+          private final AtomicInteger count = new AtomicInteger();
+
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "generics-utils-copy-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(null);
+            return thread;
+          }
+        });
+
+    static {
+      EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Hide constructor.
+     */
+    private Pool() {
+    }
+  }
+}
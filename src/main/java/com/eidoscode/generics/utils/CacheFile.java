@@ -0,0 +1,670 @@
+package com.eidoscode.generics.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Persistent copy of the resolved type arguments, used to warm the cache when
+ * the JVM starts. <br/>
+ * The copy plans are not written: a plan is made of the fields of its classes,
+ * that would have to be looked up by reflection again when it is loaded, so
+ * loading it would only move the same work to the start. <br/>
+ * Each record holds the names of the classes and a fingerprint of the classes
+ * it depends on (the whole hierarchy of the target class, the base class and
+ * the classes referenced by the arguments): their names and the size and last
+ * modification time of the jar or class file they were loaded from. It is not
+ * a checksum of the content, so a file replaced by another one with the same
+ * size and modification time is not detected. When a
+ * record is loaded the classes are loaded by name and the fingerprint is
+ * computed again; the records of classes that are missing, that changed or
+ * that can't be fingerprinted (like the generated proxies and the classes not
+ * loaded from the file system) are skipped and resolved again on the first
+ * use. <br/>
+ * The file is written by {@link GenericsUtils#saveCache(File)} and read by
+ * {@link GenericsUtils#loadCache(File, ClassLoader)}. After
+ * {@link GenericsUtils#enableCacheFile(File, ClassLoader)} it is also saved
+ * when the JVM shuts down, until the hook is removed by
+ * {@link GenericsUtils#disableCacheFile()} or by the cleaning of the caches of
+ * its class loader.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class CacheFile {
+
+  private static final Logger LOGGER = Logger.getLogger(GenericsUtils.class);
+
+  private static final int MAGIC = 0x47554346;
+  private static final int VERSION = 2;
+
+  /**
+   * Fingerprint of the classes that can't be checked.
+   */
+  private static final long UNKNOWN = 0L;
+
+  private static final byte CLASS = 'C';
+  private static final byte PARAMETERIZED = 'P';
+  private static final byte ARRAY = 'A';
+  private static final byte WILDCARD = 'W';
+  private static final byte VARIABLE = 'V';
+  private static final byte NONE = 'N';
+
+  /**
+   * Hook that saves the file when the JVM shuts down, or <code>null</code> if
+   * it is not enabled.
+   */
+  private static Hook hook;
+
+  /**
+   * Fingerprints of the jars, by location.
+   */
+  private final Map<String, Long> jars = new HashMap<String, Long>();
+
+  /**
+   * Hide constructor.
+   */
+  private CacheFile() {
+  }
+
+  /**
+   * Load the file and register the hook that saves it when the JVM shuts
+   * down, replacing the hook of the previous call.
+   * 
+   * @param file
+   *          Cache file.
+   * @param classLoader
+   *          Class loader of the classes of the records.
+   * @return The number of loaded records.
+   * @throws IOException
+   *           Throw if it is not possible to read the file.
+   */
+  static synchronized int enable(File file, ClassLoader classLoader) throws IOException {
+    disable();
+    final int loaded = load(file, classLoader);
+    final Hook current = new Hook(file, classLoader);
+    Runtime.getRuntime().addShutdownHook(current);
+    hook = current;
+    return loaded;
+  }
+
+  /**
+   * Remove the hook that saves the file, if any.
+   * 
+   * @return <code>true</code> if there was a hook.
+   */
+  static synchronized boolean disable() {
+    if (hook == null) {
+      return false;
+    }
+    try {
+      Runtime.getRuntime().removeShutdownHook(hook);
+    } catch (IllegalStateException e) {
+      // the JVM is already shutting down
+      LOGGER.debug("Unable to remove the GenericsUtils cache file hook", e);
+    }
+    hook = null;
+    return true;
+  }
+
+  /**
+   * Remove the hook that saves the file if it was enabled for the given class
+   * loader or for one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static synchronized void disable(ClassLoader classLoader) {
+    if (hook == null) {
+      return;
+    }
+    for (ClassLoader current = hook.classLoader; current != null; current = current.getParent()) {
+      if (current == classLoader) {
+        disable();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Thread that saves the file when the JVM shuts down.
+   */
+  private static final class Hook extends Thread {
+
+    private final File file;
+    private final ClassLoader classLoader;
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *          Cache file.
+     * @param classLoader
+     *          Class loader given when the file was enabled.
+     */
+    Hook(File file, ClassLoader classLoader) {
+      super("generics-utils-cache-file");
+      this.file = file;
+      this.classLoader = classLoader;
+      setContextClassLoader(null);
+    }
+
+    @Override
+    public void run() {
+      try {
+        save(file);
+      } catch (IOException e) {
+        LOGGER.warn("Unable to save the GenericsUtils cache file " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Write the current content of the caches on the file. The file is written
+   * on a temporary file that replaces it at the end.
+   * 
+   * @param file
+   *          Cache file.
+   * @return The number of written records.
+   */
+  static int save(File file) throws IOException {
+    final CacheFile cacheFile = new CacheFile();
+    final ByteArrayOutputStream arguments = new ByteArrayOutputStream();
+    final int[] argumentCount = new int[1];
+    TypeResolver.CACHE.visit(new ClassPairCache.Visitor<Type[]>() {
+      @Override
+      public void visit(Class<?> first, Class<?> second, Type[] value) {
+        if (cacheFile.write(arguments, first, second, value == TypeResolver.NOT_FOUND ? null : value)) {
+          argumentCount[0]++;
+        }
+      }
+    });
+
+    final File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Unable to create the directory " + parent);
+    }
+    final File temporary = new File(file.getPath() + ".tmp");
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(System.getProperty("java.version", ""));
+      out.writeInt(argumentCount[0]);
+      arguments.writeTo(out);
+    } finally {
+      out.close();
+    }
+    if (!temporary.renameTo(file) && (!file.delete() || !temporary.renameTo(file))) {
+      temporary.delete();
+      throw new IOException("Unable to replace the file " + file);
+    }
+    return argumentCount[0];
+  }
+
+  /**
+   * Load the valid records of the file on the caches. A missing file, a file
+   * written by another version or by another JVM and a truncated file are
+   * ignored.
+   * 
+   * @param file
+   *          Cache file.
+   * @param classLoader
+   *          Class loader of the classes.
+   * @return The number of loaded records.
+   */
+  static int load(File file, ClassLoader classLoader) throws IOException {
+    if (!file.isFile()) {
+      return 0;
+    }
+    final CacheFile cacheFile = new CacheFile();
+    int loaded = 0;
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(System.getProperty("java.version", ""))) {
+        return 0;
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        if (cacheFile.readArguments(read(in), classLoader)) {
+          loaded++;
+        }
+      }
+    } catch (IOException e) {
+      // truncated or corrupted file: keep what was loaded
+      LOGGER.debug("Invalid GenericsUtils cache file " + file, e);
+    } finally {
+      in.close();
+    }
+    return loaded;
+  }
+
+  /**
+   * Read the bytes of a record.
+   * 
+   * @param in
+   *          Input.
+   * @return The bytes of the record.
+   */
+  private static DataInputStream read(DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid record length " + length);
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new DataInputStream(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Write a record of resolved type arguments.
+   * 
+   * @param out
+   *          Output.
+   * @param target
+   *          Target class.
+   * @param base
+   *          Base class.
+   * @param args
+   *          The resolved arguments or <code>null</code> if the base class is
+   *          not on the hierarchy.
+   * @return <code>false</code> if the record can't be checked when it is
+   *         loaded and so it was not written.
+   */
+  private boolean write(ByteArrayOutputStream out, Class<?> target, Class<?> base, Type[] args) {
+    try {
+      final long fingerprint = fingerprint(target, base, args);
+      if (fingerprint == UNKNOWN) {
+        return false;
+      }
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final DataOutputStream record = new DataOutputStream(bytes);
+      record.writeUTF(target.getName());
+      record.writeUTF(base.getName());
+      record.writeLong(fingerprint);
+      if (args == null) {
+        record.writeInt(-1);
+      } else {
+        record.writeInt(args.length);
+        for (Type arg : args) {
+          if (!writeType(record, arg)) {
+            return false;
+          }
+        }
+      }
+      writeRecord(out, bytes);
+      return true;
+    } catch (IOException e) {
+      // it doesn't happen on memory
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Append a record, prefixed by its length.
+   * 
+   * @param out
+   *          Output.
+   * @param bytes
+   *          Record.
+   */
+  private static void writeRecord(ByteArrayOutputStream out, ByteArrayOutputStream bytes) throws IOException {
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(bytes.size());
+    bytes.writeTo(data);
+    data.flush();
+  }
+
+  /**
+   * Write a type.
+   * 
+   * @param out
+   *          Output.
+   * @param type
+   *          Canonical type.
+   * @return <code>false</code> if the type can't be written, like the type
+   *         variables declared by methods.
+   */
+  private static boolean writeType(DataOutputStream out, Type type) throws IOException {
+    if (type == null) {
+      out.writeByte(NONE);
+      return true;
+    }
+    if (type instanceof Class<?>) {
+      out.writeByte(CLASS);
+      out.writeUTF(((Class<?>) type).getName());
+      return true;
+    }
+    if (type instanceof ParameterizedType) {
+      final ParameterizedType parameterizedType = (ParameterizedType) type;
+      out.writeByte(PARAMETERIZED);
+      out.writeUTF(((Class<?>) parameterizedType.getRawType()).getName());
+      return writeType(out, parameterizedType.getOwnerType()) && writeTypes(out, parameterizedType.getActualTypeArguments());
+    }
+    if (type instanceof GenericArrayType) {
+      out.writeByte(ARRAY);
+      return writeType(out, ((GenericArrayType) type).getGenericComponentType());
+    }
+    if (type instanceof WildcardType) {
+      final WildcardType wildcardType = (WildcardType) type;
+      out.writeByte(WILDCARD);
+      return writeTypes(out, wildcardType.getUpperBounds()) && writeTypes(out, wildcardType.getLowerBounds());
+    }
+    if (type instanceof TypeVariable<?>) {
+      final GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+      if (!(declaration instanceof Class<?>)) {
+        return false;
+      }
+      out.writeByte(VARIABLE);
+      out.writeUTF(((Class<?>) declaration).getName());
+      out.writeUTF(((TypeVariable<?>) type).getName());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Write an array of types.
+   * 
+   * @param out
+   *          Output.
+   * @param types
+   *          Canonical types.
+   * @return <code>false</code> if one of the types can't be written.
+   */
+  private static boolean writeTypes(DataOutputStream out, Type[] types) throws IOException {
+    out.writeInt(types.length);
+    for (Type type : types) {
+      if (!writeType(out, type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Read a record of resolved type arguments and store it on the cache, if it
+   * is still valid.
+   * 
+   * @param in
+   *          Record.
+   * @param classLoader
+   *          Class loader of the classes.
+   * @return <code>true</code> if the record was loaded.
+   */
+  private boolean readArguments(DataInputStream in, ClassLoader classLoader) {
+    try {
+      final Class<?> target = Class.forName(in.readUTF(), false, classLoader);
+      final Class<?> base = Class.forName(in.readUTF(), false, classLoader);
+      final long fingerprint = in.readLong();
+      final int length = in.readInt();
+      Type[] args = null;
+      if (length >= 0) {
+        if (length != base.getTypeParameters().length) {
+          return false;
+        }
+        args = new Type[length];
+        for (int i = 0; i < length; i++) {
+          args[i] = readType(in, classLoader);
+        }
+      }
+      if (fingerprint == UNKNOWN || fingerprint != fingerprint(target, base, args)) {
+        return false;
+      }
+      TypeResolver.CACHE.putIfAbsent(target, base, args == null ? TypeResolver.NOT_FOUND : args);
+      return true;
+    } catch (IOException e) {
+      return false;
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (LinkageError e) {
+      return false;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Read a type.
+   * 
+   * @param in
+   *          Input.
+   * @param classLoader
+   *          Class loader of the classes.
+   * @return The canonical type.
+   */
+  private static Type readType(DataInputStream in, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+    final byte tag = in.readByte();
+    switch (tag) {
+    case NONE:
+      return null;
+    case CLASS:
+      return Class.forName(in.readUTF(), false, classLoader);
+    case PARAMETERIZED:
+      final Class<?> rawType = Class.forName(in.readUTF(), false, classLoader);
+      final Type ownerType = readType(in, classLoader);
+      return Types.parameterized(rawType, ownerType, readTypes(in, classLoader));
+    case ARRAY:
+      return Types.genericArray(readType(in, classLoader));
+    case WILDCARD:
+      final Type[] upperBounds = readTypes(in, classLoader);
+      return Types.wildcard(upperBounds, readTypes(in, classLoader));
+    case VARIABLE:
+      final Class<?> declaration = Class.forName(in.readUTF(), false, classLoader);
+      final String name = in.readUTF();
+      for (TypeVariable<?> variable : declaration.getTypeParameters()) {
+        if (variable.getName().equals(name)) {
+          return Types.canonical(variable);
+        }
+      }
+      throw new IOException("Type variable " + name + " not found on " + declaration.getName());
+    default:
+      throw new IOException("Invalid type tag " + tag);
+    }
+  }
+
+  /**
+   * Read an array of types.
+   * 
+   * @param in
+   *          Input.
+   * @param classLoader
+   *          Class loader of the classes.
+   * @return The canonical types.
+   */
+  private static Type[] readTypes(DataInputStream in, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+    final int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid number of types " + length);
+    }
+    final Type[] types = new Type[length];
+    for (int i = 0; i < length; i++) {
+      types[i] = readType(in, classLoader);
+      if (types[i] == null) {
+        throw new IOException("Invalid null type");
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Compute the fingerprint of a record: the names and the fingerprints of the
+   * locations of all the supertypes of both classes and of the classes
+   * referenced by the arguments.
+   * 
+   * @param first
+   *          Target class.
+   * @param second
+   *          Base class.
+   * @param args
+   *          Arguments or <code>null</code>.
+   * @return The fingerprint or {@link #UNKNOWN} if one of the classes can't be
+   *         checked.
+   */
+  private long fingerprint(Class<?> first, Class<?> second, Type[] args) {
+    final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+    addSupertypes(classes, first);
+    addSupertypes(classes, second);
+    if (args != null) {
+      for (Type arg : args) {
+        addClasses(classes, arg);
+      }
+    }
+    long fingerprint = 17L;
+    for (Class<?> clazz : classes) {
+      final long location = fingerprint(clazz);
+      if (location == UNKNOWN) {
+        return UNKNOWN;
+      }
+      fingerprint = 31L * (31L * fingerprint + clazz.getName().hashCode()) + location;
+    }
+    return fingerprint == UNKNOWN ? 1L : fingerprint;
+  }
+
+  /**
+   * Add the class, its super classes and its interfaces.
+   * 
+   * @param classes
+   *          Classes.
+   * @param clazz
+   *          Class.
+   */
+  private static void addSupertypes(Set<Class<?>> classes, Class<?> clazz) {
+    while (clazz.isArray()) {
+      clazz = clazz.getComponentType();
+    }
+    if (!classes.add(clazz)) {
+      return;
+    }
+    if (clazz.getSuperclass() != null) {
+      addSupertypes(classes, clazz.getSuperclass());
+    }
+    for (Class<?> intf : clazz.getInterfaces()) {
+      addSupertypes(classes, intf);
+    }
+  }
+
+  /**
+   * Add the classes referenced by a type.
+   * 
+   * @param classes
+   *          Classes.
+   * @param type
+   *          Type or <code>null</code>.
+   */
+  private static void addClasses(Set<Class<?>> classes, Type type) {
+    if (type instanceof Class<?>) {
+      Class<?> clazz = (Class<?>) type;
+      while (clazz.isArray()) {
+        clazz = clazz.getComponentType();
+      }
+      classes.add(clazz);
+    } else if (type instanceof ParameterizedType) {
+      final ParameterizedType parameterizedType = (ParameterizedType) type;
+      addClasses(classes, parameterizedType.getRawType());
+      addClasses(classes, parameterizedType.getOwnerType());
+      for (Type arg : parameterizedType.getActualTypeArguments()) {
+        addClasses(classes, arg);
+      }
+    } else if (type instanceof GenericArrayType) {
+      addClasses(classes, ((GenericArrayType) type).getGenericComponentType());
+    } else if (type instanceof WildcardType) {
+      for (Type bound : ((WildcardType) type).getUpperBounds()) {
+        addClasses(classes, bound);
+      }
+      for (Type bound : ((WildcardType) type).getLowerBounds()) {
+        addClasses(classes, bound);
+      }
+    } else if (type instanceof TypeVariable<?>) {
+      final GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+      if (declaration instanceof Class<?>) {
+        classes.add((Class<?>) declaration);
+      }
+    }
+  }
+
+  /**
+   * Compute the fingerprint of the location of a class: the size and the last
+   * modification time of its jar or of its class file. The classes of the JVM
+   * use the version of the JVM, that is checked on the header of the file.
+   * 
+   * @param clazz
+   *          Class that is not an array.
+   * @return The fingerprint or {@link #UNKNOWN} if the class was not loaded
+   *         from the file system.
+   */
+  private long fingerprint(Class<?> clazz) {
+    if (clazz.isPrimitive() || clazz.getClassLoader() == null) {
+      return 1L;
+    }
+    final CodeSource codeSource;
+    try {
+      codeSource = clazz.getProtectionDomain().getCodeSource();
+    } catch (SecurityException e) {
+      return UNKNOWN;
+    }
+    final URL location = codeSource == null ? null : codeSource.getLocation();
+    if (location != null && "jrt".equals(location.getProtocol())) {
+      // module of the JVM
+      return 1L;
+    }
+    if (location == null || !"file".equals(location.getProtocol())) {
+      return UNKNOWN;
+    }
+    final String key = location.toExternalForm();
+    final Long jar = jars.get(key);
+    if (jar != null) {
+      return jar.longValue();
+    }
+    final File file;
+    try {
+      file = new File(location.toURI());
+    } catch (URISyntaxException e) {
+      return UNKNOWN;
+    } catch (IllegalArgumentException e) {
+      return UNKNOWN;
+    }
+    if (file.isFile()) {
+      final long fingerprint = fingerprint(file);
+      jars.put(key, Long.valueOf(fingerprint));
+      return fingerprint;
+    }
+    final File classFile = new File(file, clazz.getName().replace('.', File.separatorChar) + ".class");
+    return classFile.isFile() ? fingerprint(classFile) : UNKNOWN;
+  }
+
+  /**
+   * Compute the fingerprint of a file from its size and its last modification
+   * time. The content is not read.
+   * 
+   * @param file
+   *          Existing file.
+   * @return The fingerprint.
+   */
+  private static long fingerprint(File file) {
+    final long fingerprint = 31L * file.length() + file.lastModified();
+    return fingerprint == UNKNOWN ? 1L : fingerprint;
+  }
+}
@@ -0,0 +1,140 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fields of the destination written by a delta copy (see
+ * {@link GenericsUtils#copyChangedContent(Object, Object, ReferenceComparison)}
+ * ). <br/>
+ * It is kept as a bit set over the fields of the cached copy plan, so it is
+ * compact, and the delta copy that doesn't change anything returns the shared
+ * {@link #NONE} instance without allocating.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class ChangedFields {
+
+  /**
+   * Result of the copies that didn't change any field.
+   */
+  public static final ChangedFields NONE = new ChangedFields(new Field[0], new long[0]);
+
+  private final Field[] fields;
+  private final long[] bits;
+
+  /**
+   * Constructor.
+   * 
+   * @param fields
+   *          All the fields of the copy plan. It is shared, so neither the
+   *          array nor the fields are given to the callers.
+   * @param bits
+   *          Bit set with the indexes of the changed fields.
+   */
+  ChangedFields(Field[] fields, long[] bits) {
+    this.fields = fields;
+    this.bits = bits;
+  }
+
+  /**
+   * Check if the bit of the given index is set.
+   * 
+   * @param index
+   *          Index of the field on the plan.
+   * @return <code>true</code> if the field was changed.
+   */
+  private boolean isSet(int index) {
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * @return <code>true</code> if no field was changed.
+   */
+  public boolean isEmpty() {
+    for (long word : bits) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of changed fields.
+   */
+  public int size() {
+    int size = 0;
+    for (long word : bits) {
+      size += Long.bitCount(word);
+    }
+    return size;
+  }
+
+  /**
+   * Check if the field with the given name was changed.
+   * 
+   * @param fieldName
+   *          Name of the field.
+   * @return <code>true</code> if a field with that name was changed.
+   */
+  public boolean contains(String fieldName) {
+    for (int i = 0; i < fields.length; i++) {
+      if (isSet(i) && fields[i].getName().equals(fieldName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the changed fields of the destination. The fields of the cached copy
+   * plan are not exposed: each call looks them up again, so the returned fields
+   * are not accessible until the caller asks for it.
+   * 
+   * @return The changed fields of the destination, on the order that they were
+   *         copied.
+   * @throws SecurityException
+   *           Throw if the fields can't be looked up.
+   */
+  public List<Field> getFields() {
+    if (isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<Field> changed = new ArrayList<Field>(size());
+    for (int i = 0; i < fields.length; i++) {
+      if (isSet(i)) {
+        try {
+          changed.add(fields[i].getDeclaringClass().getDeclaredField(fields[i].getName()));
+        } catch (NoSuchFieldException e) {
+          // The field was declared by its class
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * @return The names of the changed fields, on the order that they were
+   *         copied.
+   */
+  public List<String> getNames() {
+    final List<String> names = new ArrayList<String>(size());
+    for (int i = 0; i < fields.length; i++) {
+      if (isSet(i)) {
+        names.add(fields[i].getName());
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public String toString() {
+    return getNames().toString();
+  }
+}
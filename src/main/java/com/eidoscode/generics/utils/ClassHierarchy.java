@@ -0,0 +1,155 @@
+package com.eidoscode.generics.utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precomputed hierarchy of a class. <br/>
+ * It holds the ordered chain of super classes and, for each super class and
+ * implemented interface, the position of the highest class of the chain that
+ * is still a subtype of it. The hierarchy of each class is computed on the
+ * first use and never changes after that, so the queries don't lock.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class ClassHierarchy {
+
+  private static final ConcurrentMap<Class<?>, ClassHierarchy> CACHE = new ConcurrentHashMap<Class<?>, ClassHierarchy>();
+
+  private final Class<?>[] chain;
+  private final Map<Class<?>, Integer> supertypes;
+
+  /**
+   * Constructor.
+   * 
+   * @param clazz
+   *          Class.
+   */
+  private ClassHierarchy(Class<?> clazz) {
+    final List<Class<?>> classes = new ArrayList<Class<?>>();
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      classes.add(current);
+    }
+    chain = classes.toArray(new Class<?>[classes.size()]);
+    supertypes = new IdentityHashMap<Class<?>, Integer>();
+    // from the top to the bottom, so the highest position of each type is
+    // stored first.
+    for (int i = chain.length - 1; i >= 0; i--) {
+      addSupertype(chain[i], Integer.valueOf(i));
+    }
+    if (clazz.isInterface()) {
+      // the interfaces are subtypes of Object, but it is not their superclass
+      supertypes.put(Object.class, Integer.valueOf(0));
+    }
+  }
+
+  /**
+   * Store the position of the given type and of its interfaces, if they were
+   * not stored yet.
+   * 
+   * @param type
+   *          Class or interface.
+   * @param position
+   *          Position on the chain.
+   */
+  private void addSupertype(Class<?> type, Integer position) {
+    if (supertypes.containsKey(type)) {
+      return;
+    }
+    supertypes.put(type, position);
+    for (Class<?> intf : type.getInterfaces()) {
+      addSupertype(intf, position);
+    }
+  }
+
+  /**
+   * Return the hierarchy of the given class.
+   * 
+   * @param clazz
+   *          Class that is not an array.
+   * @return The hierarchy.
+   */
+  static ClassHierarchy of(Class<?> clazz) {
+    final ClassHierarchy hierarchy = CACHE.get(clazz);
+    if (hierarchy != null) {
+      return hierarchy;
+    }
+    final ClassHierarchy created = new ClassHierarchy(clazz);
+    final ClassHierarchy existing = CACHE.putIfAbsent(clazz, created);
+    return existing != null ? existing : created;
+  }
+
+  /**
+   * Check if the class is a subtype of the given type. It is the same as
+   * <code>type.isAssignableFrom(clazz)</code>.
+   * 
+   * @param type
+   *          Class or interface.
+   * @return <code>true</code> if the class is a subtype.
+   */
+  boolean isSubtypeOf(Class<?> type) {
+    return supertypes.containsKey(type);
+  }
+
+  /**
+   * Return the implementation class of the given type, with the same result of
+   * the original recursive {@link GenericsUtils#getClass(Class, Class)}: the
+   * highest class of the chain that is a subtype of the type. If it is the type
+   * itself, and it is not the root of the chain, its direct subclass is
+   * returned.
+   * 
+   * @param type
+   *          Class or interface.
+   * @return The implementation class or <code>null</code> if the class is not
+   *         a subtype of the given type.
+   */
+  Class<?> getImplementationClass(Class<?> type) {
+    final Integer position = supertypes.get(type);
+    if (position == null) {
+      return null;
+    }
+    int index = position.intValue();
+    if (chain[index] == type && index < chain.length - 1) {
+      index--;
+    }
+    return index < 0 ? null : chain[index];
+  }
+
+  /**
+   * Return the number of cached hierarchies.
+   * 
+   * @return The number of cached hierarchies.
+   */
+  static int size() {
+    return CACHE.size();
+  }
+
+  /**
+   * Remove all the hierarchies.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Remove the hierarchies of the classes loaded by the given class loader or
+   * by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    for (Iterator<Class<?>> i = CACHE.keySet().iterator(); i.hasNext();) {
+      if (ClassPairCache.isLoadedBy(i.next(), classLoader)) {
+        i.remove();
+      }
+    }
+  }
+}
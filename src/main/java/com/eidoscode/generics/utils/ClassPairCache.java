@@ -0,0 +1,172 @@
+package com.eidoscode.generics.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread safe cache of values computed for a pair of classes. <br/>
+ * The reads don't lock and don't allocate. As the cache holds strong references
+ * to the classes, the entries of an undeployed application must be removed
+ * using {@link #clear(ClassLoader)}. Weak keys wouldn't release them: the
+ * second classes and the cached values (fields, resolved types) reference the
+ * classes of the same class loader, keeping the keys reachable.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ * 
+ * @param <V>
+ *          Type of the cached values.
+ */
+final class ClassPairCache<V> {
+
+  private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, V>> cache = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, V>>();
+
+  /**
+   * Visitor of the cached pairs.
+   * 
+   * @param <V>
+   *          Type of the values.
+   */
+  interface Visitor<V> {
+
+    /**
+     * Visit a cached pair.
+     * 
+     * @param first
+     *          First class.
+     * @param second
+     *          Second class.
+     * @param value
+     *          Cached value.
+     */
+    void visit(Class<?> first, Class<?> second, V value);
+  }
+
+  /**
+   * Return the value of the given pair of classes.
+   * 
+   * @param first
+   *          First class.
+   * @param second
+   *          Second class.
+   * @return The cached value or <code>null</code> if there is no value.
+   */
+  V get(Class<?> first, Class<?> second) {
+    final ConcurrentMap<Class<?>, V> values = cache.get(first);
+    return values == null ? null : values.get(second);
+  }
+
+  /**
+   * Store the value of the given pair of classes if there is no value yet.
+   * 
+   * @param first
+   *          First class.
+   * @param second
+   *          Second class.
+   * @param value
+   *          Value to be stored.
+   * @return The value that is on the cache, that can be the given value or one
+   *         that was stored by another thread.
+   */
+  V putIfAbsent(Class<?> first, Class<?> second, V value) {
+    ConcurrentMap<Class<?>, V> values = cache.get(first);
+    if (values == null) {
+      values = new ConcurrentHashMap<Class<?>, V>();
+      final ConcurrentMap<Class<?>, V> existing = cache.putIfAbsent(first, values);
+      if (existing != null) {
+        values = existing;
+      }
+    }
+    final V existing = values.putIfAbsent(second, value);
+    return existing == null ? value : existing;
+  }
+
+  /**
+   * Remove the values of all the pairs with the given first class.
+   * 
+   * @param first
+   *          First class.
+   */
+  void remove(Class<?> first) {
+    cache.remove(first);
+  }
+
+  /**
+   * Visit all the cached pairs. The pairs that are added or removed while
+   * visiting may or may not be visited.
+   * 
+   * @param visitor
+   *          Visitor.
+   */
+  void visit(Visitor<? super V> visitor) {
+    for (Map.Entry<Class<?>, ConcurrentMap<Class<?>, V>> entry : cache.entrySet()) {
+      for (Map.Entry<Class<?>, V> value : entry.getValue().entrySet()) {
+        visitor.visit(entry.getKey(), value.getKey(), value.getValue());
+      }
+    }
+  }
+
+  /**
+   * Return the number of cached pairs.
+   * 
+   * @return The number of pairs.
+   */
+  int size() {
+    int size = 0;
+    for (ConcurrentMap<Class<?>, V> values : cache.values()) {
+      size += values.size();
+    }
+    return size;
+  }
+
+  /**
+   * Remove all the values.
+   */
+  void clear() {
+    cache.clear();
+  }
+
+  /**
+   * Remove the values of the pairs where one of the classes was loaded by the
+   * given class loader or by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  void clear(ClassLoader classLoader) {
+    for (Iterator<Map.Entry<Class<?>, ConcurrentMap<Class<?>, V>>> i = cache.entrySet().iterator(); i.hasNext();) {
+      final Map.Entry<Class<?>, ConcurrentMap<Class<?>, V>> entry = i.next();
+      if (isLoadedBy(entry.getKey(), classLoader)) {
+        i.remove();
+        continue;
+      }
+      for (Iterator<Class<?>> j = entry.getValue().keySet().iterator(); j.hasNext();) {
+        if (isLoadedBy(j.next(), classLoader)) {
+          j.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Check if the class was loaded by the given class loader or by one of its
+   * children.
+   * 
+   * @param clazz
+   *          Class to be checked.
+   * @param classLoader
+   *          Class loader.
+   * @return <code>true</code> if the class belongs to the class loader.
+   */
+  static boolean isLoadedBy(Class<?> clazz, ClassLoader classLoader) {
+    for (ClassLoader current = clazz.getClassLoader(); current != null; current = current.getParent()) {
+      if (current == classLoader) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,205 @@
+package com.eidoscode.generics.utils;
+
+import java.util.Date;
+
+/**
+ * Built in conversions of the mapping between unrelated classes. <br/>
+ * The types are always handled as their wrappers. The supported conversions
+ * are:
+ * <ul>
+ * <li>Any type to the same type or to one of its super types, including
+ * boxing and unboxing.</li>
+ * <li>Any number to any other numeric wrapper, using the
+ * <code>xxxValue()</code> methods of {@link Number}.</li>
+ * <li>Enum to {@link String} and back, using the constant name.</li>
+ * <li>{@link Date} to {@link Long} and any number to {@link Date}, using the
+ * milliseconds since the epoch.</li>
+ * </ul>
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class Converters {
+
+  private static final TypeConverter<Object, Object> IDENTITY = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return value;
+    }
+  };
+
+  private static final TypeConverter<Object, Object> TO_BYTE = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Byte.valueOf(((Number) value).byteValue());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> TO_SHORT = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Short.valueOf(((Number) value).shortValue());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> TO_INTEGER = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Integer.valueOf(((Number) value).intValue());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> TO_LONG = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Long.valueOf(((Number) value).longValue());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> TO_FLOAT = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Float.valueOf(((Number) value).floatValue());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> TO_DOUBLE = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Double.valueOf(((Number) value).doubleValue());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> ENUM_TO_STRING = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return ((Enum<?>) value).name();
+    }
+  };
+
+  private static final TypeConverter<Object, Object> DATE_TO_LONG = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return Long.valueOf(((Date) value).getTime());
+    }
+  };
+
+  private static final TypeConverter<Object, Object> NUMBER_TO_DATE = new TypeConverter<Object, Object>() {
+    @Override
+    public Object convert(Object value) {
+      return new Date(((Number) value).longValue());
+    }
+  };
+
+  /**
+   * Hide constructor.
+   */
+  private Converters() {
+  }
+
+  /**
+   * Return the wrapper of a primitive type.
+   * 
+   * @param type
+   *          Type.
+   * @return The wrapper of the primitive types or the same type.
+   */
+  static Class<?> wrap(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    }
+    if (type == int.class) {
+      return Integer.class;
+    }
+    if (type == long.class) {
+      return Long.class;
+    }
+    if (type == boolean.class) {
+      return Boolean.class;
+    }
+    if (type == double.class) {
+      return Double.class;
+    }
+    if (type == float.class) {
+      return Float.class;
+    }
+    if (type == char.class) {
+      return Character.class;
+    }
+    if (type == byte.class) {
+      return Byte.class;
+    }
+    if (type == short.class) {
+      return Short.class;
+    }
+    return Void.class;
+  }
+
+  /**
+   * Look for a built in conversion.
+   * 
+   * @param sourceType
+   *          Type of the source field, already wrapped.
+   * @param destinationType
+   *          Type of the destination field, already wrapped.
+   * @return The converter or <code>null</code> if there is none.
+   */
+  static TypeConverter<Object, Object> find(Class<?> sourceType, final Class<?> destinationType) {
+    if (destinationType.isAssignableFrom(sourceType)) {
+      return IDENTITY;
+    }
+    if (Number.class.isAssignableFrom(sourceType)) {
+      if (destinationType == Integer.class) {
+        return TO_INTEGER;
+      }
+      if (destinationType == Long.class) {
+        return TO_LONG;
+      }
+      if (destinationType == Double.class) {
+        return TO_DOUBLE;
+      }
+      if (destinationType == Float.class) {
+        return TO_FLOAT;
+      }
+      if (destinationType == Short.class) {
+        return TO_SHORT;
+      }
+      if (destinationType == Byte.class) {
+        return TO_BYTE;
+      }
+      if (destinationType == Date.class) {
+        return NUMBER_TO_DATE;
+      }
+    }
+    if (Enum.class.isAssignableFrom(sourceType) && destinationType == String.class) {
+      return ENUM_TO_STRING;
+    }
+    if (sourceType == String.class && destinationType.isEnum()) {
+      return new TypeConverter<Object, Object>() {
+        @Override
+        public Object convert(Object value) {
+          return valueOf(destinationType, (String) value);
+        }
+      };
+    }
+    if (Date.class.isAssignableFrom(sourceType) && destinationType == Long.class) {
+      return DATE_TO_LONG;
+    }
+    return null;
+  }
+
+  /**
+   * Return the constant of the enum with the given name.
+   * 
+   * @param enumType
+   *          Enum type.
+   * @param name
+   *          Name of the constant.
+   * @return The constant.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Object valueOf(Class<?> enumType, String name) {
+    return Enum.valueOf((Class) enumType, name);
+  }
+}
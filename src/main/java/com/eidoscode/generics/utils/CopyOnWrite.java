@@ -0,0 +1,694 @@
+package com.eidoscode.generics.utils;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copy on write of the collections held by the fields. <br/>
+ * The collections that can be copied preserving their behavior
+ * ({@link ArrayList}, {@link HashSet}, {@link TreeSet}, {@link HashMap},
+ * {@link TreeMap} and their subclasses, copied by <code>clone()</code>) and
+ * the arrays are copied eagerly, and the other values are shared, like
+ * {@link GenericsUtils#copyContent(Object, Object)} does. The source is never
+ * changed, unless the caller asks to share its collections: then a large
+ * collection is not copied, both the source and the destination fields
+ * receive a wrapper over the same snapshot, that is the original collection,
+ * and each wrapper copies it on its first change. The last wrapper that still
+ * shares the snapshot takes it without copying. The collections are only
+ * wrapped when the two fields are declared as {@link List}, {@link Set},
+ * {@link Map} or {@link Collection}, so the wrapper can be stored on them. A
+ * wrapper found on the source is always forked, since nothing else can write
+ * to its snapshot. <br/>
+ * The wrappers are serialized as a plain copy of their content. The elements
+ * are never copied.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class CopyOnWrite {
+
+  /**
+   * System property used to change the minimum size of the collections that
+   * are copied on write.
+   */
+  static final String THRESHOLD_PROPERTY = "com.eidoscode.generics.utils.copyOnWriteThreshold";
+
+  /**
+   * Minimum size of the collections that are copied on write. The smaller ones
+   * are copied eagerly.
+   */
+  static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 64).intValue();
+
+  /**
+   * Hide constructor.
+   */
+  private CopyOnWrite() {
+  }
+
+  /**
+   * Copy the value of a reference field from the source to the destination.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param s
+   *          Accessor of the source field.
+   * @param d
+   *          Accessor of the destination field.
+   * @param shareSource
+   *          <code>true</code> to replace the large collections of the source
+   *          by wrappers shared with the destination.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  static void copy(Object source, Object destination, FieldAccessor s, FieldAccessor d, boolean shareSource) throws IllegalAccessException {
+    final Object value = s.getObject(source);
+    if (value == null) {
+      d.setObject(destination, null);
+      return;
+    }
+    if (value instanceof CopyOnWriteList<?>) {
+      d.setObject(destination, ((CopyOnWriteList<?>) value).fork());
+    } else if (value instanceof CopyOnWriteSet<?>) {
+      d.setObject(destination, ((CopyOnWriteSet<?>) value).fork());
+    } else if (value instanceof CopyOnWriteMap<?, ?>) {
+      d.setObject(destination, ((CopyOnWriteMap<?, ?>) value).fork());
+    } else if (value.getClass().isArray()) {
+      d.setObject(destination, copyArray(value));
+    } else if (!isCopyable(value)) {
+      d.setObject(destination, value);
+    } else if (!shareSource || size(value) < THRESHOLD || !canWrap(s, d, value)) {
+      d.setObject(destination, copyOf(value));
+    } else {
+      final Snapshot<Object> snapshot = new Snapshot<Object>(value, 2);
+      s.setObject(source, wrap(snapshot));
+      d.setObject(destination, wrap(snapshot));
+    }
+  }
+
+  /**
+   * Check if the value is of one of the collection classes that can be copied.
+   * 
+   * @param value
+   *          Value.
+   * @return <code>true</code> if it can be copied by {@link #copyOf(Object)}.
+   */
+  private static boolean isCopyable(Object value) {
+    return value instanceof ArrayList<?> || value instanceof HashSet<?> || value instanceof TreeSet<?> || value instanceof HashMap<?, ?>
+        || value instanceof TreeMap<?, ?>;
+  }
+
+  /**
+   * Check if the wrapper of the value can be stored on both fields.
+   * 
+   * @param s
+   *          Accessor of the source field.
+   * @param d
+   *          Accessor of the destination field.
+   * @param value
+   *          Copyable collection.
+   * @return <code>true</code> if the value can be wrapped.
+   */
+  private static boolean canWrap(FieldAccessor s, FieldAccessor d, Object value) {
+    if (GenericsUtils.checkModifierMask(s.getField(), false, Modifier.FINAL)) {
+      return false;
+    }
+    final Class<?> sType = s.getField().getType();
+    final Class<?> dType = d.getField().getType();
+    if (value instanceof List<?>) {
+      return isListType(sType) && isListType(dType);
+    }
+    if (value instanceof Set<?>) {
+      return isSetType(sType) && isSetType(dType);
+    }
+    return sType == Map.class && dType == Map.class;
+  }
+
+  private static boolean isListType(Class<?> type) {
+    return type == List.class || type == Collection.class;
+  }
+
+  private static boolean isSetType(Class<?> type) {
+    return type == Set.class || type == Collection.class;
+  }
+
+  /**
+   * Return the size of a copyable collection.
+   * 
+   * @param value
+   *          Collection or map.
+   * @return The size.
+   */
+  private static int size(Object value) {
+    return value instanceof Map<?, ?> ? ((Map<?, ?>) value).size() : ((Collection<?>) value).size();
+  }
+
+  /**
+   * Create the wrapper of a snapshot.
+   * 
+   * @param snapshot
+   *          Snapshot of a copyable collection.
+   * @return The wrapper.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Object wrap(Snapshot<Object> snapshot) {
+    if (snapshot.value instanceof List<?>) {
+      return new CopyOnWriteList((Snapshot) snapshot);
+    }
+    if (snapshot.value instanceof Set<?>) {
+      return new CopyOnWriteSet((Snapshot) snapshot);
+    }
+    return new CopyOnWriteMap((Snapshot) snapshot);
+  }
+
+  /**
+   * Copy a copyable collection, keeping its class and comparator.
+   * 
+   * @param value
+   *          Collection or map.
+   * @return The copy.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T copyOf(T value) {
+    if (value instanceof ArrayList<?>) {
+      return (T) ((ArrayList<?>) value).clone();
+    }
+    if (value instanceof HashSet<?>) {
+      return (T) ((HashSet<?>) value).clone();
+    }
+    if (value instanceof TreeSet<?>) {
+      return (T) ((TreeSet<?>) value).clone();
+    }
+    if (value instanceof HashMap<?, ?>) {
+      return (T) ((HashMap<?, ?>) value).clone();
+    }
+    if (value instanceof TreeMap<?, ?>) {
+      return (T) ((TreeMap<?, ?>) value).clone();
+    }
+    throw new IllegalArgumentException("Can not copy " + value.getClass().getName());
+  }
+
+  /**
+   * Copy an array. The elements are not copied.
+   * 
+   * @param array
+   *          Array.
+   * @return The copy.
+   */
+  private static Object copyArray(Object array) {
+    final int length = Array.getLength(array);
+    final Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+    System.arraycopy(array, 0, copy, 0, length);
+    return copy;
+  }
+
+  /**
+   * Collection shared by the wrappers that were not changed yet.
+   * 
+   * @param <T>
+   *          Type of the collection.
+   */
+  static final class Snapshot<T> {
+
+    private final T value;
+    private final AtomicInteger owners;
+
+    /**
+     * Constructor.
+     * 
+     * @param value
+     *          Collection, that is not changed while it is shared.
+     * @param owners
+     *          Number of wrappers that share it.
+     */
+    Snapshot(T value, int owners) {
+      this.value = value;
+      this.owners = new AtomicInteger(owners);
+    }
+
+    /**
+     * Add one owner.
+     * 
+     * @return This snapshot.
+     */
+    Snapshot<T> share() {
+      owners.incrementAndGet();
+      return this;
+    }
+
+    /**
+     * Return the collection that the owner can change: the snapshot itself if
+     * it is the last owner, or a copy of it. The copy is done before the owner
+     * is removed, so the last owner doesn't change the snapshot while it is
+     * being copied.
+     * 
+     * @return The collection.
+     */
+    T release() {
+      if (owners.compareAndSet(1, 0)) {
+        return value;
+      }
+      final T copy = copyOf(value);
+      owners.decrementAndGet();
+      return copy;
+    }
+  }
+
+  /**
+   * Copy on write {@link List}.
+   * 
+   * @param <E>
+   *          Type of the elements.
+   */
+  static final class CopyOnWriteList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Snapshot<List<E>> snapshot;
+    private transient List<E> list;
+
+    /**
+     * Constructor.
+     * 
+     * @param snapshot
+     *          Shared snapshot.
+     */
+    CopyOnWriteList(Snapshot<List<E>> snapshot) {
+      this.snapshot = snapshot;
+      this.list = snapshot.value;
+    }
+
+    /**
+     * Serialize a plain copy of the content instead of the wrapper.
+     * 
+     * @return The copy.
+     */
+    private Object writeReplace() {
+      return copyOf(list);
+    }
+
+    /**
+     * Create another wrapper of the same content.
+     * 
+     * @return The new wrapper.
+     */
+    CopyOnWriteList<E> fork() {
+      if (snapshot == null) {
+        snapshot = new Snapshot<List<E>>(list, 1);
+      }
+      return new CopyOnWriteList<E>(snapshot.share());
+    }
+
+    /**
+     * Return the list that can be changed, copying the snapshot if needed.
+     * 
+     * @return The own list.
+     */
+    private List<E> writable() {
+      if (snapshot != null) {
+        list = snapshot.release();
+        snapshot = null;
+      }
+      return list;
+    }
+
+    @Override
+    public E get(int index) {
+      return list.get(index);
+    }
+
+    @Override
+    public int size() {
+      return list.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+      return writable().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+      writable().add(index, element);
+      modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+      final E removed = writable().remove(index);
+      modCount++;
+      return removed;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return list.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+      return list.indexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+      return list.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+      return list.toArray(a);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+      modCount++;
+      return writable().addAll(c);
+    }
+
+    @Override
+    public void clear() {
+      if (!list.isEmpty()) {
+        modCount++;
+        writable().clear();
+      }
+    }
+  }
+
+  /**
+   * Copy on write {@link Set}.
+   * 
+   * @param <E>
+   *          Type of the elements.
+   */
+  static final class CopyOnWriteSet<E> extends AbstractSet<E> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Snapshot<Set<E>> snapshot;
+    private transient Set<E> set;
+
+    /**
+     * Constructor.
+     * 
+     * @param snapshot
+     *          Shared snapshot.
+     */
+    CopyOnWriteSet(Snapshot<Set<E>> snapshot) {
+      this.snapshot = snapshot;
+      this.set = snapshot.value;
+    }
+
+    /**
+     * Serialize a plain copy of the content instead of the wrapper.
+     * 
+     * @return The copy.
+     */
+    private Object writeReplace() {
+      return copyOf(set);
+    }
+
+    /**
+     * Create another wrapper of the same content.
+     * 
+     * @return The new wrapper.
+     */
+    CopyOnWriteSet<E> fork() {
+      if (snapshot == null) {
+        snapshot = new Snapshot<Set<E>>(set, 1);
+      }
+      return new CopyOnWriteSet<E>(snapshot.share());
+    }
+
+    /**
+     * Return the set that can be changed, copying the snapshot if needed.
+     * 
+     * @return The own set.
+     */
+    private Set<E> writable() {
+      if (snapshot != null) {
+        set = snapshot.release();
+        snapshot = null;
+      }
+      return set;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      final Set<E> iterated = set;
+      final Iterator<E> iterator = iterated.iterator();
+      return new Iterator<E>() {
+
+        private E last;
+        private boolean canRemove;
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+          last = iterator.next();
+          canRemove = true;
+          return last;
+        }
+
+        @Override
+        public void remove() {
+          if (!canRemove) {
+            throw new IllegalStateException();
+          }
+          canRemove = false;
+          if (writable() == iterated) {
+            iterator.remove();
+          } else {
+            // the iteration goes on over the snapshot
+            set.remove(last);
+          }
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return set.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return set.contains(o);
+    }
+
+    @Override
+    public boolean add(E e) {
+      return !set.contains(e) && writable().add(e);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      return set.contains(o) && writable().remove(o);
+    }
+
+    @Override
+    public void clear() {
+      if (!set.isEmpty()) {
+        writable().clear();
+      }
+    }
+  }
+
+  /**
+   * Copy on write {@link Map}.
+   * 
+   * @param <K>
+   *          Type of the keys.
+   * @param <V>
+   *          Type of the values.
+   */
+  static final class CopyOnWriteMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Snapshot<Map<K, V>> snapshot;
+    private transient Map<K, V> map;
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Constructor.
+     * 
+     * @param snapshot
+     *          Shared snapshot.
+     */
+    CopyOnWriteMap(Snapshot<Map<K, V>> snapshot) {
+      this.snapshot = snapshot;
+      this.map = snapshot.value;
+    }
+
+    /**
+     * Serialize a plain copy of the content instead of the wrapper.
+     * 
+     * @return The copy.
+     */
+    private Object writeReplace() {
+      return copyOf(map);
+    }
+
+    /**
+     * Create another wrapper of the same content.
+     * 
+     * @return The new wrapper.
+     */
+    CopyOnWriteMap<K, V> fork() {
+      if (snapshot == null) {
+        snapshot = new Snapshot<Map<K, V>>(map, 1);
+      }
+      return new CopyOnWriteMap<K, V>(snapshot.share());
+    }
+
+    /**
+     * Return the map that can be changed, copying the snapshot if needed.
+     * 
+     * @return The own map.
+     */
+    private Map<K, V> writable() {
+      if (snapshot != null) {
+        map = snapshot.release();
+        snapshot = null;
+      }
+      return map;
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+      return map.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key) {
+      return map.get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+      return writable().put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+      return map.containsKey(key) ? writable().remove(key) : null;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+      if (!m.isEmpty()) {
+        writable().putAll(m);
+      }
+    }
+
+    @Override
+    public void clear() {
+      if (!map.isEmpty()) {
+        writable().clear();
+      }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+      if (entrySet == null) {
+        entrySet = new AbstractSet<Map.Entry<K, V>>() {
+          @Override
+          public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+          }
+
+          @Override
+          public int size() {
+            return map.size();
+          }
+        };
+      }
+      return entrySet;
+    }
+
+    /**
+     * Iterator of the entries. The entries write through {@link #put} and the
+     * removals go through {@link #remove}, so the snapshot is never changed.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+      private final Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+      private final Map<K, V> iterated = map;
+      private K lastKey;
+      private boolean canRemove;
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Map.Entry<K, V> next() {
+        if (!iterator.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final Map.Entry<K, V> entry = iterator.next();
+        lastKey = entry.getKey();
+        canRemove = true;
+        return new AbstractMap.SimpleEntry<K, V>(entry) {
+
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          public V setValue(V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+          }
+        };
+      }
+
+      @Override
+      public void remove() {
+        if (!canRemove) {
+          throw new IllegalStateException();
+        }
+        canRemove = false;
+        if (writable() == iterated) {
+          iterator.remove();
+        } else {
+          // the iteration goes on over the snapshot
+          map.remove(lastKey);
+        }
+      }
+    }
+  }
+}
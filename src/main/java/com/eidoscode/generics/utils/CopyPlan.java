@@ -0,0 +1,638 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precompiled list of the fields that must be copied from a source class to a
+ * destination class. <br/>
+ * The plan is computed only once for each pair of classes and is kept on a
+ * class keyed cache, so the reflective lookup of the fields is not repeated on
+ * every copy. When both classes are the same class and its copy was generated
+ * at compile time (see {@link GenericsSupport}), the generated code is used.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class CopyPlan {
+
+  /**
+   * Cache of the plans of all the fields ({@link FieldFilter#ALL}), by source
+   * and destination class.
+   */
+  static final ClassPairCache<CopyPlan> CACHE = new ClassPairCache<CopyPlan>();
+
+  /**
+   * Cache of the plans of the other filters, by filter and then by source and
+   * destination class.
+   */
+  private static final ConcurrentMap<FieldFilter, ClassPairCache<CopyPlan>> FILTERED = new ConcurrentHashMap<FieldFilter, ClassPairCache<CopyPlan>>();
+
+  /**
+   * Kind of the copies between fields with different types. The value is
+   * boxed and written using reflection, that checks and widens it.
+   */
+  private static final int CONVERT = -1;
+
+  private final FieldAccessor[] sources;
+  private final FieldAccessor[] destinations;
+  private final int[] kinds;
+  private final int[] references;
+  private final int[] resets;
+  private final Field[] fields;
+  private final GeneratedCopySupport generated;
+
+  /**
+   * Constructor.
+   * 
+   * @param sources
+   *          Accessors of the fields that are going to be read from the
+   *          source.
+   * @param destinations
+   *          Accessors of the fields that are going to be written on the
+   *          destination. It has the same length and order of the sources.
+   * @param kinds
+   *          Kind of the copy of each field.
+   * @param references
+   *          Index of the fields that hold references to other objects.
+   * @param resets
+   *          Index of the destination fields that aren't final.
+   * @param fields
+   *          Destination fields, on the same order of the accessors.
+   * @param generated
+   *          Generated copy of the class, or <code>null</code> if the fields
+   *          are copied by the accessors.
+   */
+  private CopyPlan(FieldAccessor[] sources, FieldAccessor[] destinations, int[] kinds, int[] references, int[] resets,
+      Field[] fields, GeneratedCopySupport generated) {
+    this.sources = sources;
+    this.destinations = destinations;
+    this.kinds = kinds;
+    this.references = references;
+    this.resets = resets;
+    this.fields = fields;
+    this.generated = generated;
+  }
+
+  /**
+   * Return the copy plan of the given pair of classes. If it wasn't computed
+   * yet it is computed and cached.
+   * 
+   * @param sourceClass
+   *          Source class.
+   * @param destinationClass
+   *          Destination class.
+   * @return The copy plan.
+   * @throws NoSuchFieldException
+   *           Throw if one of the source fields doesn't exist on the
+   *           destination class.
+   */
+  static CopyPlan get(Class<?> sourceClass, Class<?> destinationClass) throws NoSuchFieldException {
+    return get(CACHE, sourceClass, destinationClass, FieldFilter.ALL);
+  }
+
+  /**
+   * Return the copy plan of the fields selected by the filter on the given pair
+   * of classes. If it wasn't computed yet it is computed and cached.
+   * 
+   * @param sourceClass
+   *          Source class.
+   * @param destinationClass
+   *          Destination class.
+   * @param filter
+   *          Selection of the fields of the source class.
+   * @return The copy plan.
+   * @throws NoSuchFieldException
+   *           Throw if one of the selected source fields doesn't exist on the
+   *           destination class.
+   */
+  static CopyPlan get(Class<?> sourceClass, Class<?> destinationClass, FieldFilter filter) throws NoSuchFieldException {
+    if (filter == FieldFilter.ALL) {
+      return get(CACHE, sourceClass, destinationClass, filter);
+    }
+    ClassPairCache<CopyPlan> cache = FILTERED.get(filter);
+    if (cache == null) {
+      cache = new ClassPairCache<CopyPlan>();
+      final ClassPairCache<CopyPlan> existing = FILTERED.putIfAbsent(filter, cache);
+      if (existing != null) {
+        cache = existing;
+      }
+    }
+    return get(cache, sourceClass, destinationClass, filter);
+  }
+
+  /**
+   * Return the copy plan from the given cache, computing it if needed.
+   * 
+   * @param cache
+   *          Cache of the filter.
+   * @param sourceClass
+   *          Source class.
+   * @param destinationClass
+   *          Destination class.
+   * @param filter
+   *          Selection of the fields of the source class.
+   * @return The copy plan.
+   * @throws NoSuchFieldException
+   *           Throw if one of the selected source fields doesn't exist on the
+   *           destination class.
+   */
+  private static CopyPlan get(ClassPairCache<CopyPlan> cache, Class<?> sourceClass, Class<?> destinationClass, FieldFilter filter)
+      throws NoSuchFieldException {
+    final CopyPlan plan = cache.get(sourceClass, destinationClass);
+    if (plan != null) {
+      if (Metrics.ENABLED) {
+        Metrics.COPY_PLAN_HITS.increment();
+      }
+      return plan;
+    }
+    if (Metrics.ENABLED) {
+      Metrics.COPY_PLAN_MISSES.increment();
+    }
+    return cache.putIfAbsent(sourceClass, destinationClass, build(sourceClass, destinationClass, filter));
+  }
+
+  /**
+   * Return the number of cached plans, of all the filters.
+   * 
+   * @return The number of plans.
+   */
+  static int size() {
+    int size = CACHE.size();
+    for (ClassPairCache<CopyPlan> cache : FILTERED.values()) {
+      size += cache.size();
+    }
+    return size;
+  }
+
+  /**
+   * Remove all the cached plans.
+   */
+  static void clear() {
+    CACHE.clear();
+    FILTERED.clear();
+  }
+
+  /**
+   * Remove the cached plans of the classes loaded by the given class loader or
+   * by one of its children, and the filters that reference them.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    CACHE.clear(classLoader);
+    for (Iterator<Map.Entry<FieldFilter, ClassPairCache<CopyPlan>>> i = FILTERED.entrySet().iterator(); i.hasNext();) {
+      final Map.Entry<FieldFilter, ClassPairCache<CopyPlan>> entry = i.next();
+      if (entry.getKey().references(classLoader)) {
+        i.remove();
+      } else {
+        entry.getValue().clear(classLoader);
+      }
+    }
+  }
+
+  /**
+   * Compute the plan of the given pair of classes. It walks all the class
+   * hierarchy of the source class and for each instance field selected by the
+   * filter looks for the field that is going to receive the value on the
+   * destination class.
+   * 
+   * @param sourceClass
+   *          Source class.
+   * @param destinationClass
+   *          Destination class.
+   * @param filter
+   *          Selection of the fields of the source class.
+   * @return The copy plan.
+   * @throws NoSuchFieldException
+   *           Throw if one of the source fields doesn't exist on the
+   *           destination class.
+   */
+  private static CopyPlan build(Class<?> sourceClass, Class<?> destinationClass, FieldFilter filter) throws NoSuchFieldException {
+    final List<Field> sFields = new ArrayList<Field>();
+    final List<Field> dFields = new ArrayList<Field>();
+    for (Class<?> current = sourceClass; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field sField : current.getDeclaredFields()) {
+        if (GenericsUtils.checkModifierMask(sField, false, Modifier.STATIC) || !filter.accept(sField)) {
+          continue;
+        }
+        sFields.add(sField);
+        dFields.add(findDestinationField(sField, destinationClass));
+      }
+    }
+    final int size = sFields.size();
+    final FieldAccessor[] sources = new FieldAccessor[size];
+    final FieldAccessor[] destinations = new FieldAccessor[size];
+    final int[] kinds = new int[size];
+    final int[] references = new int[size];
+    final int[] resets = new int[size];
+    int count = 0;
+    int resetCount = 0;
+    for (int i = 0; i < size; i++) {
+      final Field sField = sFields.get(i);
+      final Field dField = dFields.get(i);
+      final Class<?> sType = sField.getType();
+      final Class<?> dType = dField.getType();
+      sources[i] = FieldAccessor.of(sField);
+      if (sField == dField) {
+        destinations[i] = sources[i];
+        kinds[i] = sources[i].getKind();
+      } else if (sType.isPrimitive() ? sType == dType : dType.isAssignableFrom(sType)) {
+        destinations[i] = FieldAccessor.of(dField);
+        kinds[i] = sources[i].getKind();
+      } else {
+        destinations[i] = new ReflectionFieldAccessor(dField);
+        kinds[i] = CONVERT;
+      }
+      if (!dType.isPrimitive()) {
+        references[count++] = i;
+      }
+      if (!GenericsUtils.checkModifierMask(dField, false, Modifier.FINAL)) {
+        resets[resetCount++] = i;
+      }
+    }
+    GeneratedCopySupport generated = null;
+    if (sourceClass == destinationClass && filter == FieldFilter.ALL) {
+      final GeneratedGenericsSupport support = GeneratedSupports.of(sourceClass);
+      if (support instanceof GeneratedCopySupport) {
+        generated = (GeneratedCopySupport) support;
+      }
+    }
+    return new CopyPlan(sources, destinations, kinds, Arrays.copyOf(references, count), Arrays.copyOf(resets, resetCount),
+        dFields.toArray(new Field[size]), generated);
+  }
+
+  /**
+   * Look for the destination field that is going to receive the content of the
+   * source field. If the field was declared on a class that is also a super
+   * class of the destination, the same field is used. Otherwise it is looked up
+   * by the name on the hierarchy of the destination class.
+   * 
+   * @param sField
+   *          Source field.
+   * @param destinationClass
+   *          Destination class.
+   * @return The destination field.
+   * @throws NoSuchFieldException
+   *           Throw if the field doesn't exist on the destination class.
+   */
+  private static Field findDestinationField(Field sField, Class<?> destinationClass) throws NoSuchFieldException {
+    if (sField.getDeclaringClass().isAssignableFrom(destinationClass)) {
+      return sField;
+    }
+    final String fieldName = sField.getName();
+    for (Class<?> current = destinationClass; current != null; current = current.getSuperclass()) {
+      for (Field dField : current.getDeclaredFields()) {
+        if (dField.getName().equals(fieldName) && !GenericsUtils.checkModifierMask(dField, false, Modifier.STATIC)) {
+          return dField;
+        }
+      }
+    }
+    throw new NoSuchFieldException(fieldName);
+  }
+
+  /**
+   * Copy the content of the source object to the destination object.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   */
+  void copy(Object source, Object destination) throws IllegalAccessException {
+    if (generated != null) {
+      generated.copyContent(source, destination);
+      return;
+    }
+    for (int i = 0; i < kinds.length; i++) {
+      final FieldAccessor s = sources[i];
+      final FieldAccessor d = destinations[i];
+      switch (kinds[i]) {
+      case FieldAccessor.OBJECT:
+        d.setObject(destination, s.getObject(source));
+        break;
+      case FieldAccessor.BOOLEAN:
+        d.setBoolean(destination, s.getBoolean(source));
+        break;
+      case FieldAccessor.BYTE:
+        d.setByte(destination, s.getByte(source));
+        break;
+      case FieldAccessor.CHAR:
+        d.setChar(destination, s.getChar(source));
+        break;
+      case FieldAccessor.SHORT:
+        d.setShort(destination, s.getShort(source));
+        break;
+      case FieldAccessor.INT:
+        d.setInt(destination, s.getInt(source));
+        break;
+      case FieldAccessor.LONG:
+        d.setLong(destination, s.getLong(source));
+        break;
+      case FieldAccessor.FLOAT:
+        d.setFloat(destination, s.getFloat(source));
+        break;
+      case FieldAccessor.DOUBLE:
+        d.setDouble(destination, s.getDouble(source));
+        break;
+      default:
+        d.set(destination, s.get(source));
+        break;
+      }
+    }
+  }
+
+  /**
+   * Write the default value on the destination fields: the primitives are
+   * zeroed and the references are nulled. The final fields keep their values.
+   * It is used on the plans of a class to itself, whose fields never need
+   * conversion.
+   * 
+   * @param destination
+   *          Destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  void reset(Object destination) throws IllegalAccessException {
+    for (int r = 0; r < resets.length; r++) {
+      final int i = resets[r];
+      final FieldAccessor d = destinations[i];
+      switch (kinds[i]) {
+      case FieldAccessor.OBJECT:
+        d.setObject(destination, null);
+        break;
+      case FieldAccessor.BOOLEAN:
+        d.setBoolean(destination, false);
+        break;
+      case FieldAccessor.BYTE:
+        d.setByte(destination, (byte) 0);
+        break;
+      case FieldAccessor.CHAR:
+        d.setChar(destination, (char) 0);
+        break;
+      case FieldAccessor.SHORT:
+        d.setShort(destination, (short) 0);
+        break;
+      case FieldAccessor.INT:
+        d.setInt(destination, 0);
+        break;
+      case FieldAccessor.LONG:
+        d.setLong(destination, 0L);
+        break;
+      case FieldAccessor.FLOAT:
+        d.setFloat(destination, 0f);
+        break;
+      case FieldAccessor.DOUBLE:
+        d.setDouble(destination, 0d);
+        break;
+      default:
+        d.set(destination, null);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Copy the content of the source object to the destination object, copying
+   * the collections and arrays of the reference fields as defined by
+   * {@link CopyOnWrite}. The fields that need conversion are copied as usual.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param shareSource
+   *          <code>true</code> to replace the large collections of the source
+   *          by wrappers shared with the destination.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   */
+  void copyOnWrite(Object source, Object destination, boolean shareSource) throws IllegalAccessException {
+    copy(source, destination);
+    for (int i = 0; i < references.length; i++) {
+      final int index = references[i];
+      if (kinds[index] == FieldAccessor.OBJECT) {
+        CopyOnWrite.copy(source, destination, sources[index], destinations[index], shareSource);
+      }
+    }
+  }
+
+  /**
+   * Copy only the fields whose value on the source is different from the value
+   * on the destination. The primitive values are compared by value (the
+   * floating point ones by their bits, so NaN is equal to NaN) and the
+   * references by identity or by equals. The fields that need conversion are
+   * compared after widening the source value to the type of the destination
+   * field.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param useEquals
+   *          <code>true</code> to compare the references with equals.
+   * @return The changed fields.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   */
+  ChangedFields copyChanged(Object source, Object destination, boolean useEquals) throws IllegalAccessException {
+    long[] changed = null;
+    for (int i = 0; i < kinds.length; i++) {
+      final FieldAccessor s = sources[i];
+      final FieldAccessor d = destinations[i];
+      final boolean differs;
+      switch (kinds[i]) {
+      case FieldAccessor.OBJECT: {
+        final Object value = s.getObject(source);
+        final Object current = d.getObject(destination);
+        differs = value != current && (!useEquals || value == null || !value.equals(current));
+        if (differs) {
+          d.setObject(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.BOOLEAN: {
+        final boolean value = s.getBoolean(source);
+        differs = value != d.getBoolean(destination);
+        if (differs) {
+          d.setBoolean(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.BYTE: {
+        final byte value = s.getByte(source);
+        differs = value != d.getByte(destination);
+        if (differs) {
+          d.setByte(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.CHAR: {
+        final char value = s.getChar(source);
+        differs = value != d.getChar(destination);
+        if (differs) {
+          d.setChar(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.SHORT: {
+        final short value = s.getShort(source);
+        differs = value != d.getShort(destination);
+        if (differs) {
+          d.setShort(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.INT: {
+        final int value = s.getInt(source);
+        differs = value != d.getInt(destination);
+        if (differs) {
+          d.setInt(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.LONG: {
+        final long value = s.getLong(source);
+        differs = value != d.getLong(destination);
+        if (differs) {
+          d.setLong(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.FLOAT: {
+        final float value = s.getFloat(source);
+        differs = Float.floatToIntBits(value) != Float.floatToIntBits(d.getFloat(destination));
+        if (differs) {
+          d.setFloat(destination, value);
+        }
+        break;
+      }
+      case FieldAccessor.DOUBLE: {
+        final double value = s.getDouble(source);
+        differs = Double.doubleToLongBits(value) != Double.doubleToLongBits(d.getDouble(destination));
+        if (differs) {
+          d.setDouble(destination, value);
+        }
+        break;
+      }
+      default: {
+        final Object value = s.get(source);
+        final Object widened = widen(value, fields[i].getType());
+        final Object current = d.get(destination);
+        differs = widened == null ? current != null : !widened.equals(current);
+        if (differs) {
+          d.set(destination, value);
+        }
+        break;
+      }
+      }
+      if (differs) {
+        if (changed == null) {
+          changed = new long[(kinds.length + 63) >>> 6];
+        }
+        changed[i >>> 6] |= 1L << i;
+      }
+    }
+    return changed == null ? ChangedFields.NONE : new ChangedFields(fields, changed);
+  }
+
+  /**
+   * Widen a boxed primitive to the wrapper of the given primitive type, as
+   * {@link Field#set(Object, Object)} does. The values that can't be widened
+   * are returned as they are, so they are written and the field reports the
+   * error.
+   * 
+   * @param value
+   *          Value read from the source.
+   * @param type
+   *          Type of the destination field.
+   * @return The widened value.
+   */
+  private static Object widen(Object value, Class<?> type) {
+    if (!type.isPrimitive() || value == null || value instanceof Boolean) {
+      return value;
+    }
+    final boolean character = value instanceof Character;
+    if (!character && !(value instanceof Number)) {
+      return value;
+    }
+    final long integral = character ? ((Character) value).charValue() : ((Number) value).longValue();
+    final boolean floating = value instanceof Float || value instanceof Double;
+    if (type == double.class) {
+      return Double.valueOf(character ? integral : ((Number) value).doubleValue());
+    }
+    if (type == float.class && !(value instanceof Double)) {
+      return Float.valueOf(character ? integral : ((Number) value).floatValue());
+    }
+    if (floating) {
+      return value;
+    }
+    if (type == long.class) {
+      return Long.valueOf(integral);
+    }
+    if (type == int.class && !(value instanceof Long)) {
+      return Integer.valueOf((int) integral);
+    }
+    if (type == short.class && value instanceof Byte) {
+      return Short.valueOf((short) integral);
+    }
+    return value;
+  }
+
+  /**
+   * Return the number of fields of the destination that hold references to
+   * other objects.
+   * 
+   * @return The number of reference fields.
+   */
+  int getReferenceCount() {
+    return references.length;
+  }
+
+  /**
+   * Read the value of a reference field of the destination.
+   * 
+   * @param index
+   *          Index of the reference field, from 0 to
+   *          {@link #getReferenceCount()} - 1.
+   * @param destination
+   *          Destination object.
+   * @return The value of the field.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the field.
+   */
+  Object getReference(int index, Object destination) throws IllegalAccessException {
+    return destinations[references[index]].getObject(destination);
+  }
+
+  /**
+   * Write the value of a reference field of the destination.
+   * 
+   * @param index
+   *          Index of the reference field, from 0 to
+   *          {@link #getReferenceCount()} - 1.
+   * @param destination
+   *          Destination object.
+   * @param value
+   *          New value of the field.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the field.
+   */
+  void setReference(int index, Object destination, Object value) throws IllegalAccessException {
+    destinations[references[index]].setObject(destination, value);
+  }
+}
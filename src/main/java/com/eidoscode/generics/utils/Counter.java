@@ -0,0 +1,63 @@
+package com.eidoscode.generics.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter striped by thread, so the threads that update it concurrently don't
+ * contend on the same memory position. Reading it sums all the stripes.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class Counter {
+
+  private static final int STRIPES = 16;
+
+  /**
+   * Distance between the stripes, in longs, to keep each one on its own cache
+   * line.
+   */
+  private static final int PADDING = 8;
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  /**
+   * Add the given value to the counter.
+   * 
+   * @param value
+   *          Value to be added.
+   */
+  void add(long value) {
+    cells.addAndGet((int) (Thread.currentThread().getId() & (STRIPES - 1)) * PADDING, value);
+  }
+
+  /**
+   * Add one to the counter.
+   */
+  void increment() {
+    add(1L);
+  }
+
+  /**
+   * Return the current value of the counter.
+   * 
+   * @return The sum of all the stripes.
+   */
+  long get() {
+    long sum = 0L;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += cells.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  /**
+   * Set the counter to zero.
+   */
+  void reset() {
+    for (int i = 0; i < STRIPES; i++) {
+      cells.set(i * PADDING, 0L);
+    }
+  }
+}
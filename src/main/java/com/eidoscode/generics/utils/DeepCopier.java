@@ -0,0 +1,365 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.UUID;
+
+
+/**
+ * Deep copy of an object graph. <br/>
+ * Each instance is used for only one copy operation. It keeps an identity map
+ * of the objects already copied, so shared and cyclic references are copied
+ * only once and the copied graph keeps the same shape of the original one.
+ * The fields of each object are copied using the cached {@link CopyPlan} of
+ * its class. <br/>
+ * The graph is walked with an explicit list of pending objects instead of
+ * recursion, so its depth is not limited by the stack. The collections and
+ * maps are filled once all the objects are complete.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class DeepCopier {
+
+  /**
+   * Immutable classes that are shared between the original and the copy.
+   */
+  private static final Set<Class<?>> IMMUTABLES = new HashSet<Class<?>>();
+
+  static {
+    IMMUTABLES.add(String.class);
+    IMMUTABLES.add(Boolean.class);
+    IMMUTABLES.add(Byte.class);
+    IMMUTABLES.add(Character.class);
+    IMMUTABLES.add(Short.class);
+    IMMUTABLES.add(Integer.class);
+    IMMUTABLES.add(Long.class);
+    IMMUTABLES.add(Float.class);
+    IMMUTABLES.add(Double.class);
+    IMMUTABLES.add(Class.class);
+    IMMUTABLES.add(BigInteger.class);
+    IMMUTABLES.add(BigDecimal.class);
+    IMMUTABLES.add(UUID.class);
+    IMMUTABLES.add(Locale.class);
+  }
+
+  private final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+  /**
+   * Objects and arrays whose content is not copied yet, each source followed by
+   * its copy. It replaces the recursion, so long chains of references don't
+   * overflow the stack.
+   */
+  private final List<Object> pending = new ArrayList<Object>();
+
+  /**
+   * Collections and maps that are filled at the end, each copy followed by the
+   * copies of its elements (or of its keys and values).
+   */
+  private final List<Object> containers = new ArrayList<Object>();
+
+  /**
+   * Copy the content of the source object to the destination object, making a
+   * deep copy of each referenced object.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   */
+  void copyContent(Object source, Object destination) throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    copies.put(source, destination);
+    copyFields(source, destination);
+    complete();
+  }
+
+  /**
+   * Return the deep copy of the given object.
+   * 
+   * @param source
+   *          Object to be copied. It can be <code>null</code>.
+   * @return The copy.
+   */
+  Object copy(Object source) throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    final Object copy = reference(source);
+    complete();
+    return copy;
+  }
+
+  /**
+   * Copy the content of the pending objects and then fill the collections and
+   * maps. They are filled only when all the objects are complete, as adding an
+   * element can call its hashCode or compareTo. As the hash of an element can
+   * also depend on a container that was still empty when it was added, the
+   * containers that aren't lists are filled again once all of them are filled,
+   * unless their elements (or keys) are all immutable.
+   */
+  private void complete() throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    while (!pending.isEmpty()) {
+      final Object copy = pending.remove(pending.size() - 1);
+      final Object source = pending.remove(pending.size() - 1);
+      if (source instanceof Object[]) {
+        final Object[] sArray = (Object[]) source;
+        final Object[] dArray = (Object[]) copy;
+        for (int i = 0; i < sArray.length; i++) {
+          dArray[i] = reference(sArray[i]);
+        }
+      } else {
+        copyFields(source, copy);
+      }
+    }
+    for (int i = 0; i < containers.size(); i += 2) {
+      fill(containers.get(i), (Object[]) containers.get(i + 1));
+    }
+    for (int i = 0; i < containers.size(); i += 2) {
+      final Object container = containers.get(i);
+      final Object[] elements = (Object[]) containers.get(i + 1);
+      if (!(container instanceof List<?>) && !isImmutable(elements, container instanceof Map<?, ?> ? 2 : 1)) {
+        if (container instanceof Map<?, ?>) {
+          ((Map<?, ?>) container).clear();
+        } else {
+          ((Collection<?>) container).clear();
+        }
+        fill(container, elements);
+      }
+    }
+    containers.clear();
+  }
+
+  /**
+   * Add the copied elements to a collection, or the copied keys and values to a
+   * map.
+   * 
+   * @param container
+   *          Collection or map.
+   * @param elements
+   *          Elements, or each key followed by its value.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static void fill(Object container, Object[] elements) {
+    if (container instanceof Collection<?>) {
+      final Collection collection = (Collection) container;
+      for (Object element : elements) {
+        collection.add(element);
+      }
+    } else {
+      final Map map = (Map) container;
+      for (int j = 0; j < elements.length; j += 2) {
+        map.put(elements[j], elements[j + 1]);
+      }
+    }
+  }
+
+  /**
+   * Check if the elements, or the keys, of a container are all immutable (or
+   * <code>null</code>), so their hash can't change.
+   * 
+   * @param elements
+   *          Elements, or each key followed by its value.
+   * @param step
+   *          1 for the elements, 2 for the keys.
+   * @return <code>true</code> if all of them are immutable.
+   */
+  private static boolean isImmutable(Object[] elements, int step) {
+    for (int i = 0; i < elements.length; i += step) {
+      if (elements[i] != null && !isImmutable(elements[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the copy of a referenced object. The new copies are registered and
+   * returned empty: their content is copied by {@link #complete()}. The
+   * elements of the collections and maps of the JDK are only looked up, so it
+   * doesn't recurse.
+   * 
+   * @param source
+   *          Referenced object. It can be <code>null</code>.
+   * @return The copy.
+   */
+  private Object reference(Object source) throws InstantiationException, IllegalAccessException {
+    if (source == null || isImmutable(source)) {
+      return source;
+    }
+    Object copy = copies.get(source);
+    if (copy != null) {
+      return copy;
+    }
+    final Class<?> clazz = source.getClass();
+    if (clazz.isArray()) {
+      final int length = Array.getLength(source);
+      copy = Array.newInstance(clazz.getComponentType(), length);
+      copies.put(source, copy);
+      if (clazz.getComponentType().isPrimitive()) {
+        System.arraycopy(source, 0, copy, 0, length);
+        return copy;
+      }
+    } else {
+      if (source instanceof Collection<?> || source instanceof Map<?, ?>) {
+        copy = newJdkContainer(source);
+        if (copy != null) {
+          copies.put(source, copy);
+          final Object[] elements = source instanceof Map<?, ?> ? entries((Map<?, ?>) source) : elements((Collection<?>) source);
+          containers.add(copy);
+          containers.add(elements);
+          return copy;
+        }
+      }
+      copy = newInstance(clazz);
+      copies.put(source, copy);
+    }
+    pending.add(source);
+    pending.add(copy);
+    return copy;
+  }
+
+  /**
+   * Return the copies of the elements of a collection.
+   * 
+   * @param collection
+   *          Source collection.
+   * @return The copies, on the iteration order.
+   */
+  private Object[] elements(Collection<?> collection) throws InstantiationException, IllegalAccessException {
+    final Object[] elements = new Object[collection.size()];
+    int i = 0;
+    for (Object element : collection) {
+      elements[i++] = reference(element);
+    }
+    return elements;
+  }
+
+  /**
+   * Return the copies of the keys and values of a map.
+   * 
+   * @param map
+   *          Source map.
+   * @return The copy of each key followed by the copy of its value, on the
+   *         iteration order.
+   */
+  private Object[] entries(Map<?, ?> map) throws InstantiationException, IllegalAccessException {
+    final Object[] entries = new Object[map.size() * 2];
+    int i = 0;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      entries[i++] = reference(entry.getKey());
+      entries[i++] = reference(entry.getValue());
+    }
+    return entries;
+  }
+
+  /**
+   * Copy all the fields of the source to the destination and replace each
+   * reference by its deep copy.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   */
+  private void copyFields(Object source, Object destination) throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    final CopyPlan plan = CopyPlan.get(source.getClass(), destination.getClass());
+    plan.copy(source, destination);
+    for (int i = 0; i < plan.getReferenceCount(); i++) {
+      final Object value = plan.getReference(i, destination);
+      final Object copy = reference(value);
+      if (copy != value) {
+        plan.setReference(i, destination, copy);
+      }
+    }
+  }
+
+  /**
+   * Check if the given object is immutable and so can be shared.
+   * 
+   * @param object
+   *          Object to be checked.
+   * @return <code>true</code> if the object can be shared.
+   */
+  private static boolean isImmutable(Object object) {
+    return IMMUTABLES.contains(object.getClass()) || object instanceof Enum<?>;
+  }
+
+  /**
+   * Create a new empty instance of a collection or map of the JDK. Only the
+   * public classes with a public constructor without parameters are created
+   * this way, keeping the comparator of the sorted ones and the access order of
+   * a {@link LinkedHashMap}. The other ones are copied field by field.
+   * 
+   * @param source
+   *          Collection or map to be copied.
+   * @return The new empty container, or <code>null</code> if it can not be
+   *         created this way.
+   */
+  private static Object newJdkContainer(Object source) throws InstantiationException, IllegalAccessException {
+    final Class<?> clazz = source.getClass();
+    if (!clazz.getName().startsWith("java.") || !Modifier.isPublic(clazz.getModifiers())) {
+      return null;
+    }
+    if (clazz == LinkedHashMap.class) {
+      // the access order is only kept by the clone
+      final LinkedHashMap<?, ?> map = (LinkedHashMap<?, ?>) ((LinkedHashMap<?, ?>) source).clone();
+      map.clear();
+      return map;
+    }
+    try {
+      Comparator<?> comparator = null;
+      if (source instanceof SortedSet<?>) {
+        comparator = ((SortedSet<?>) source).comparator();
+      } else if (source instanceof SortedMap<?, ?>) {
+        comparator = ((SortedMap<?, ?>) source).comparator();
+      }
+      if (comparator != null) {
+        return clazz.getConstructor(Comparator.class).newInstance(comparator);
+      }
+      return clazz.getConstructor().newInstance();
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (InvocationTargetException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Create a new instance of the given class without calling its constructors
+   * when <code>sun.misc.Unsafe</code> is available (see
+   * {@link UnsafeAccess}), or using the constructor without
+   * parameters otherwise.
+   * 
+   * @param clazz
+   *          Class of the new instance.
+   * @return The new instance.
+   */
+  private static Object newInstance(Class<?> clazz) throws InstantiationException, IllegalAccessException {
+    if (UnsafeAccess.isAvailable()) {
+      return UnsafeAccess.allocateInstance(clazz);
+    }
+    try {
+      Constructor<?> constructor = clazz.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      return constructor.newInstance();
+    } catch (NoSuchMethodException e) {
+      throw (InstantiationException) new InstantiationException(clazz.getName()).initCause(e);
+    } catch (InvocationTargetException e) {
+      throw (InstantiationException) new InstantiationException(clazz.getName()).initCause(e.getCause());
+    }
+  }
+}
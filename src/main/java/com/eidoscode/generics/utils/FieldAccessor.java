@@ -0,0 +1,224 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Typed access to the value of one instance field. <br/>
+ * The accessor of a field is created once, when the plan that uses it is
+ * built, and it reads and writes primitive values without boxing them. The
+ * backend is chosen by {@link FieldAccessorFactory}, falling back to the
+ * reflection one.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+abstract class FieldAccessor {
+
+  static final int OBJECT = 0;
+  static final int BOOLEAN = 1;
+  static final int BYTE = 2;
+  static final int CHAR = 3;
+  static final int SHORT = 4;
+  static final int INT = 5;
+  static final int LONG = 6;
+  static final int FLOAT = 7;
+  static final int DOUBLE = 8;
+
+  private final Field field;
+  private final int kind;
+
+  /**
+   * Constructor.
+   * 
+   * @param field
+   *          Field that is going to be accessed.
+   */
+  FieldAccessor(Field field) {
+    this.field = field;
+    this.kind = kindOf(field.getType());
+  }
+
+  /**
+   * Create the accessor of the given field, using the first
+   * {@link FieldAccessorFactory strategy} that can access it.
+   * 
+   * @param field
+   *          Instance field.
+   * @return The accessor.
+   */
+  static FieldAccessor of(Field field) {
+    return FieldAccessorFactory.of(field);
+  }
+
+  /**
+   * Return the kind of the given type.
+   * 
+   * @param type
+   *          Type of a field.
+   * @return One of the kind constants of this class.
+   */
+  static int kindOf(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return OBJECT;
+    } else if (type == boolean.class) {
+      return BOOLEAN;
+    } else if (type == byte.class) {
+      return BYTE;
+    } else if (type == char.class) {
+      return CHAR;
+    } else if (type == short.class) {
+      return SHORT;
+    } else if (type == int.class) {
+      return INT;
+    } else if (type == long.class) {
+      return LONG;
+    } else if (type == float.class) {
+      return FLOAT;
+    }
+    return DOUBLE;
+  }
+
+  /**
+   * Return the accessed field.
+   * 
+   * @return The field.
+   */
+  final Field getField() {
+    return field;
+  }
+
+  /**
+   * Return the kind of the accessed field.
+   * 
+   * @return One of the kind constants of this class.
+   */
+  final int getKind() {
+    return kind;
+  }
+
+  /**
+   * Read the value of the field, boxing it if it is a primitive.
+   * 
+   * @param target
+   *          Object that holds the field.
+   * @return The value.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the field.
+   */
+  Object get(Object target) throws IllegalAccessException {
+    switch (kind) {
+    case BOOLEAN:
+      return Boolean.valueOf(getBoolean(target));
+    case BYTE:
+      return Byte.valueOf(getByte(target));
+    case CHAR:
+      return Character.valueOf(getChar(target));
+    case SHORT:
+      return Short.valueOf(getShort(target));
+    case INT:
+      return Integer.valueOf(getInt(target));
+    case LONG:
+      return Long.valueOf(getLong(target));
+    case FLOAT:
+      return Float.valueOf(getFloat(target));
+    case DOUBLE:
+      return Double.valueOf(getDouble(target));
+    default:
+      return getObject(target);
+    }
+  }
+
+  /**
+   * Write the value of the field, unboxing it if it is a primitive.
+   * 
+   * @param target
+   *          Object that holds the field.
+   * @param value
+   *          New value.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the field.
+   * @throws IllegalArgumentException
+   *           Throw if the value is not compatible with the type of the field.
+   */
+  void set(Object target, Object value) throws IllegalAccessException {
+    if (value == null && kind != OBJECT) {
+      throw new IllegalArgumentException("Can not set the primitive field " + field + " to null");
+    }
+    try {
+      switch (kind) {
+      case BOOLEAN:
+        setBoolean(target, ((Boolean) value).booleanValue());
+        break;
+      case BYTE:
+        setByte(target, ((Byte) value).byteValue());
+        break;
+      case CHAR:
+        setChar(target, ((Character) value).charValue());
+        break;
+      case SHORT:
+        setShort(target, ((Short) value).shortValue());
+        break;
+      case INT:
+        setInt(target, ((Integer) value).intValue());
+        break;
+      case LONG:
+        setLong(target, ((Long) value).longValue());
+        break;
+      case FLOAT:
+        setFloat(target, ((Float) value).floatValue());
+        break;
+      case DOUBLE:
+        setDouble(target, ((Double) value).doubleValue());
+        break;
+      default:
+        if (value != null && !field.getType().isInstance(value)) {
+          throw new ClassCastException(value.getClass().getName());
+        }
+        setObject(target, value);
+        break;
+      }
+    } catch (ClassCastException e) {
+      throw new IllegalArgumentException("Can not set the field " + field + " to " + value.getClass().getName(), e);
+    }
+  }
+
+  // Typed access. There is one pair of methods for each kind and only the
+  // pair of the kind of the field can be used.
+
+  abstract Object getObject(Object target) throws IllegalAccessException;
+
+  abstract void setObject(Object target, Object value) throws IllegalAccessException;
+
+  abstract boolean getBoolean(Object target) throws IllegalAccessException;
+
+  abstract void setBoolean(Object target, boolean value) throws IllegalAccessException;
+
+  abstract byte getByte(Object target) throws IllegalAccessException;
+
+  abstract void setByte(Object target, byte value) throws IllegalAccessException;
+
+  abstract char getChar(Object target) throws IllegalAccessException;
+
+  abstract void setChar(Object target, char value) throws IllegalAccessException;
+
+  abstract short getShort(Object target) throws IllegalAccessException;
+
+  abstract void setShort(Object target, short value) throws IllegalAccessException;
+
+  abstract int getInt(Object target) throws IllegalAccessException;
+
+  abstract void setInt(Object target, int value) throws IllegalAccessException;
+
+  abstract long getLong(Object target) throws IllegalAccessException;
+
+  abstract void setLong(Object target, long value) throws IllegalAccessException;
+
+  abstract float getFloat(Object target) throws IllegalAccessException;
+
+  abstract void setFloat(Object target, float value) throws IllegalAccessException;
+
+  abstract double getDouble(Object target) throws IllegalAccessException;
+
+  abstract void setDouble(Object target, double value) throws IllegalAccessException;
+}
@@ -0,0 +1,167 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strategy that creates the {@link FieldAccessor} backend of the fields. <br/>
+ * The available strategies are:
+ * <ul>
+ * <li><code>varhandle</code>: <code>java.lang.invoke.VarHandle</code>, Java 9
+ * or newer;</li>
+ * <li><code>methodhandle</code>: <code>java.lang.invoke.MethodHandle</code>,
+ * Java 9 or newer;</li>
+ * <li><code>reflection</code>: {@link Field}, always available.</li>
+ * </ul>
+ * There is no <code>sun.misc.Unsafe</code> strategy: the proprietary API can't
+ * be referenced without compiler warnings, and the reflection of the older
+ * JVMs is already implemented on top of it.
+ * The Java 9 strategies are compiled on the <code>META-INF/versions/9</code>
+ * directory of the multi-release jar, so they are only found on the JVMs that
+ * can load them. The strategies are tried on the order above, unless the one
+ * named by the system property {@value #PROPERTY} is available, that is then
+ * tried first. A strategy that can't access a field (like a
+ * <code>VarHandle</code> on a final field) throws a {@link RuntimeException}
+ * and the next one is used.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+abstract class FieldAccessorFactory {
+
+  /**
+   * System property used to choose the preferred strategy.
+   */
+  static final String PROPERTY = "com.eidoscode.generics.utils.accessor";
+
+  /**
+   * Reflection strategy, always available.
+   */
+  static final FieldAccessorFactory REFLECTION = new FieldAccessorFactory("reflection") {
+    @Override
+    FieldAccessor create(Field field) {
+      return new ReflectionFieldAccessor(field);
+    }
+  };
+
+  /**
+   * The available strategies, on the order that they are tried.
+   */
+  private static final FieldAccessorFactory[] STRATEGIES = select(System.getProperty(PROPERTY));
+
+  private final String name;
+
+  /**
+   * Constructor.
+   * 
+   * @param name
+   *          Name of the strategy.
+   */
+  FieldAccessorFactory(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Return the name of the strategy.
+   * 
+   * @return The name.
+   */
+  final String getName() {
+    return name;
+  }
+
+  /**
+   * Create the accessor of the given field.
+   * 
+   * @param field
+   *          Instance field.
+   * @return The accessor.
+   * @throws RuntimeException
+   *           Throw if the field can not be accessed by this strategy.
+   */
+  abstract FieldAccessor create(Field field);
+
+  /**
+   * Create the accessor of the given field with the first strategy that can
+   * access it.
+   * 
+   * @param field
+   *          Instance field.
+   * @return The accessor.
+   */
+  static FieldAccessor of(Field field) {
+    for (int i = 0; i < STRATEGIES.length - 1; i++) {
+      try {
+        return STRATEGIES[i].create(field);
+      } catch (RuntimeException e) {
+        // Fallback to the next strategy
+      }
+    }
+    return STRATEGIES[STRATEGIES.length - 1].create(field);
+  }
+
+  /**
+   * Select the available strategies.
+   * 
+   * @param preferred
+   *          Name of the preferred strategy or <code>null</code>.
+   * @return The strategies, on the order that they are tried. The reflection
+   *         one is always the last.
+   */
+  static FieldAccessorFactory[] select(String preferred) {
+    final List<FieldAccessorFactory> strategies = new ArrayList<FieldAccessorFactory>();
+    add(strategies, load("VarHandleFieldAccessor$Factory"));
+    add(strategies, load("MethodHandleFieldAccessor$Factory"));
+    if (preferred != null) {
+      for (int i = 0; i < strategies.size(); i++) {
+        if (strategies.get(i).getName().equalsIgnoreCase(preferred.trim())) {
+          strategies.add(0, strategies.remove(i));
+          break;
+        }
+      }
+    }
+    strategies.add(REFLECTION);
+    if (REFLECTION.getName().equalsIgnoreCase(preferred == null ? null : preferred.trim())) {
+      // nothing else is tried
+      return new FieldAccessorFactory[] { REFLECTION };
+    }
+    return strategies.toArray(new FieldAccessorFactory[strategies.size()]);
+  }
+
+  /**
+   * Add the strategy, if it is available.
+   * 
+   * @param strategies
+   *          Strategies.
+   * @param strategy
+   *          Strategy or <code>null</code>.
+   */
+  private static void add(List<FieldAccessorFactory> strategies, FieldAccessorFactory strategy) {
+    if (strategy != null) {
+      strategies.add(strategy);
+    }
+  }
+
+  /**
+   * Load a strategy that may not be available on the running JVM.
+   * 
+   * @param simpleName
+   *          Binary name of the strategy class, without the package.
+   * @return The strategy or <code>null</code> if it is not available.
+   */
+  private static FieldAccessorFactory load(String simpleName) {
+    try {
+      final Class<?> clazz = Class.forName(FieldAccessorFactory.class.getPackage().getName() + '.' + simpleName, true,
+          FieldAccessorFactory.class.getClassLoader());
+      final Constructor<?> constructor = clazz.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      return (FieldAccessorFactory) constructor.newInstance();
+    } catch (Throwable e) {
+      // Not found or not supported by the running JVM
+      return null;
+    }
+  }
+}
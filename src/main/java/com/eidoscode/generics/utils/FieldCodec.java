@@ -0,0 +1,482 @@
+package com.eidoscode.generics.utils;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact binary codec of the primitive and {@link String} fields of a class,
+ * that writes and reads them directly on a {@link ByteBuffer} (heap, direct or
+ * memory mapped). <br/>
+ * The layout is computed once for each class and filter and cached: the
+ * fields are written from the top super class down, on the order that they
+ * are declared (see {@link RowMapper#of(Class, FieldFilter)}), without names
+ * nor padding, using the byte order of the buffer. The strings are written as
+ * an <code>int</code> with the number of bytes (-1 for <code>null</code>)
+ * followed by the characters encoded as on {@link java.io.DataOutput#writeUTF(String)}.
+ * The classes with fields of other types are rejected when the layout is
+ * computed; exclude these fields with a {@link FieldFilter}. <br/>
+ * The layout has no version: write a header (see
+ * {@link #writeHeader(ByteBuffer)}) on the beginning of each snapshot to
+ * detect a changed class when it is read back.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ * @param <T>
+ *          Type of the objects.
+ */
+public final class FieldCodec<T> {
+
+  /**
+   * Magic number of the headers.
+   */
+  private static final int MAGIC = 0x45434643;
+
+  /**
+   * Kind of the string fields.
+   */
+  private static final int STRING = -2;
+
+  private static final ConcurrentMap<FieldFilter, ConcurrentMap<Class<?>, FieldCodec<?>>> CACHE = new ConcurrentHashMap<FieldFilter, ConcurrentMap<Class<?>, FieldCodec<?>>>();
+
+  private final RowMapper<T> mapper;
+  private final FieldAccessor[] accessors;
+  private final int[] kinds;
+  private final int fixedSize;
+  private final int signature;
+
+  /**
+   * Constructor.
+   * 
+   * @param mapper
+   *          Mapper of the selected fields.
+   * @throws IllegalArgumentException
+   *           Throw if one of the fields is not primitive nor a string.
+   */
+  private FieldCodec(RowMapper<T> mapper) {
+    this.mapper = mapper;
+    this.accessors = mapper.getAccessors();
+    this.kinds = new int[accessors.length];
+    int size = 0;
+    int hash = mapper.getType().getName().hashCode();
+    for (int i = 0; i < accessors.length; i++) {
+      final Class<?> type = accessors[i].getField().getType();
+      kinds[i] = accessors[i].getKind();
+      if (kinds[i] == FieldAccessor.OBJECT) {
+        if (type != String.class) {
+          throw new IllegalArgumentException("The field " + accessors[i].getField().getDeclaringClass().getName() + "."
+              + accessors[i].getField().getName() + " of type " + type.getName() + " is not supported, exclude it with a FieldFilter");
+        }
+        kinds[i] = STRING;
+      }
+      size += sizeOf(kinds[i]);
+      hash = 31 * hash + (accessors[i].getField().getName() + ':' + type.getName()).hashCode();
+    }
+    this.fixedSize = size;
+    this.signature = hash;
+  }
+
+  /**
+   * Return the codec of all the instance fields of the class.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @return The cached codec.
+   * @throws IllegalArgumentException
+   *           Throw if one of the fields is not primitive nor a string.
+   */
+  public static <T> FieldCodec<T> of(Class<T> type) {
+    return of(type, FieldFilter.ALL);
+  }
+
+  /**
+   * Return the codec of the fields of the class selected by the filter.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @param filter
+   *          Selection of the fields.
+   * @return The cached codec.
+   * @throws IllegalArgumentException
+   *           Throw if one of the selected fields is not primitive nor a
+   *           string.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> FieldCodec<T> of(Class<T> type, FieldFilter filter) {
+    if (type == null) {
+      throw new NullPointerException("The type parameter is mandatory");
+    }
+    if (filter == null) {
+      throw new NullPointerException("The filter parameter is mandatory");
+    }
+    ConcurrentMap<Class<?>, FieldCodec<?>> codecs = CACHE.get(filter);
+    if (codecs == null) {
+      codecs = new ConcurrentHashMap<Class<?>, FieldCodec<?>>();
+      final ConcurrentMap<Class<?>, FieldCodec<?>> existing = CACHE.putIfAbsent(filter, codecs);
+      if (existing != null) {
+        codecs = existing;
+      }
+    }
+    FieldCodec<?> codec = codecs.get(type);
+    if (codec == null) {
+      codec = new FieldCodec<T>(RowMapper.of(type, filter));
+      final FieldCodec<?> existing = codecs.putIfAbsent(type, codec);
+      if (existing != null) {
+        codec = existing;
+      }
+    }
+    return (FieldCodec<T>) codec;
+  }
+
+  /**
+   * Return the number of bytes written for a field kind, without the content
+   * of the strings.
+   * 
+   * @param kind
+   *          Field kind.
+   * @return The number of bytes.
+   */
+  private static int sizeOf(int kind) {
+    switch (kind) {
+    case FieldAccessor.BOOLEAN:
+    case FieldAccessor.BYTE:
+      return 1;
+    case FieldAccessor.CHAR:
+    case FieldAccessor.SHORT:
+      return 2;
+    case FieldAccessor.LONG:
+    case FieldAccessor.DOUBLE:
+      return 8;
+    default:
+      return 4;
+    }
+  }
+
+  /**
+   * Return the signature of the layout, computed from the name of the class
+   * and the names and types of the fields.
+   * 
+   * @return The signature.
+   */
+  public int getSignature() {
+    return signature;
+  }
+
+  /**
+   * Return the number of bytes that are going to be written for the object.
+   * 
+   * @param source
+   *          Object.
+   * @return The number of bytes.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public int sizeOf(T source) throws IllegalAccessException {
+    int size = fixedSize;
+    for (int i = 0; i < kinds.length; i++) {
+      if (kinds[i] == STRING) {
+        final String value = (String) accessors[i].getObject(source);
+        if (value != null) {
+          size += utfLength(value);
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Write the header of a snapshot: a magic number and the signature of the
+   * layout.
+   * 
+   * @param buffer
+   *          Buffer.
+   */
+  public void writeHeader(ByteBuffer buffer) {
+    buffer.putInt(MAGIC);
+    buffer.putInt(signature);
+  }
+
+  /**
+   * Read and check the header of a snapshot.
+   * 
+   * @param buffer
+   *          Buffer.
+   * @throws IllegalStateException
+   *           Throw if the header is not valid or if it was written with
+   *           another layout.
+   */
+  public void readHeader(ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC) {
+      throw new IllegalStateException("Invalid header");
+    }
+    final int value = buffer.getInt();
+    if (value != signature) {
+      throw new IllegalStateException("The data was written with another layout of " + mapper.getType().getName());
+    }
+  }
+
+  /**
+   * Write the fields of the object on the buffer, from its current position.
+   * If there is no space for the whole object, the position is restored and
+   * nothing is written.
+   * 
+   * @param source
+   *          Object.
+   * @param buffer
+   *          Buffer.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws BufferOverflowException
+   *           Throw if there is no space on the buffer.
+   */
+  public void write(T source, ByteBuffer buffer) throws IllegalAccessException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    final int start = buffer.position();
+    try {
+      for (int i = 0; i < kinds.length; i++) {
+        final FieldAccessor accessor = accessors[i];
+        switch (kinds[i]) {
+        case FieldAccessor.BOOLEAN:
+          buffer.put(accessor.getBoolean(source) ? (byte) 1 : (byte) 0);
+          break;
+        case FieldAccessor.BYTE:
+          buffer.put(accessor.getByte(source));
+          break;
+        case FieldAccessor.CHAR:
+          buffer.putChar(accessor.getChar(source));
+          break;
+        case FieldAccessor.SHORT:
+          buffer.putShort(accessor.getShort(source));
+          break;
+        case FieldAccessor.INT:
+          buffer.putInt(accessor.getInt(source));
+          break;
+        case FieldAccessor.LONG:
+          buffer.putLong(accessor.getLong(source));
+          break;
+        case FieldAccessor.FLOAT:
+          buffer.putFloat(accessor.getFloat(source));
+          break;
+        case FieldAccessor.DOUBLE:
+          buffer.putDouble(accessor.getDouble(source));
+          break;
+        default:
+          writeString((String) accessor.getObject(source), buffer);
+          break;
+        }
+      }
+    } catch (BufferOverflowException e) {
+      buffer.position(start);
+      throw e;
+    }
+  }
+
+  /**
+   * Create a new object, using its constructor without parameters, and read
+   * its fields from the buffer.
+   * 
+   * @param buffer
+   *          Buffer.
+   * @return The new object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create the object.
+   * @throws BufferUnderflowException
+   *           Throw if the buffer ends before the object.
+   */
+  public T read(ByteBuffer buffer) throws IllegalAccessException, InstantiationException {
+    final T target = mapper.newInstance();
+    read(buffer, target);
+    return target;
+  }
+
+  /**
+   * Read the fields of the object from the buffer, from its current position.
+   * 
+   * @param buffer
+   *          Buffer.
+   * @param target
+   *          Object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws BufferUnderflowException
+   *           Throw if the buffer ends before the object.
+   */
+  public void read(ByteBuffer buffer, T target) throws IllegalAccessException {
+    if (target == null) {
+      throw new NullPointerException("The target parameter is mandatory");
+    }
+    for (int i = 0; i < kinds.length; i++) {
+      final FieldAccessor accessor = accessors[i];
+      switch (kinds[i]) {
+      case FieldAccessor.BOOLEAN:
+        accessor.setBoolean(target, buffer.get() != 0);
+        break;
+      case FieldAccessor.BYTE:
+        accessor.setByte(target, buffer.get());
+        break;
+      case FieldAccessor.CHAR:
+        accessor.setChar(target, buffer.getChar());
+        break;
+      case FieldAccessor.SHORT:
+        accessor.setShort(target, buffer.getShort());
+        break;
+      case FieldAccessor.INT:
+        accessor.setInt(target, buffer.getInt());
+        break;
+      case FieldAccessor.LONG:
+        accessor.setLong(target, buffer.getLong());
+        break;
+      case FieldAccessor.FLOAT:
+        accessor.setFloat(target, buffer.getFloat());
+        break;
+      case FieldAccessor.DOUBLE:
+        accessor.setDouble(target, buffer.getDouble());
+        break;
+      default:
+        accessor.setObject(target, readString(buffer));
+        break;
+      }
+    }
+  }
+
+  /**
+   * Return the number of bytes of the encoded string.
+   * 
+   * @param value
+   *          String.
+   * @return The number of bytes.
+   */
+  private static int utfLength(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c != 0 && c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Write a string.
+   * 
+   * @param value
+   *          String or <code>null</code>.
+   * @param buffer
+   *          Buffer.
+   */
+  private static void writeString(String value, ByteBuffer buffer) {
+    if (value == null) {
+      buffer.putInt(-1);
+      return;
+    }
+    final int length = utfLength(value);
+    if (buffer.remaining() < 4 + length) {
+      throw new BufferOverflowException();
+    }
+    buffer.putInt(length);
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c != 0 && c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else {
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  /**
+   * Read a string.
+   * 
+   * @param buffer
+   *          Buffer.
+   * @return The string or <code>null</code>.
+   */
+  private static String readString(ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    if (buffer.remaining() < length) {
+      throw new BufferUnderflowException();
+    }
+    final char[] chars = new char[length];
+    int count = 0;
+    for (int read = 0; read < length; count++) {
+      final int b = buffer.get() & 0xFF;
+      read++;
+      if (b < 0x80) {
+        chars[count] = (char) b;
+      } else if ((b & 0xE0) == 0xC0 && read < length) {
+        chars[count] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+        read++;
+      } else if ((b & 0xF0) == 0xE0 && read + 1 < length) {
+        chars[count] = (char) (((b & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F));
+        read += 2;
+      } else {
+        throw new IllegalArgumentException("Malformed string at the position " + (buffer.position() - 1));
+      }
+    }
+    return new String(chars, 0, count);
+  }
+
+  /**
+   * Return the number of cached codecs.
+   * 
+   * @return The number of codecs.
+   */
+  static int size() {
+    int size = 0;
+    for (ConcurrentMap<Class<?>, FieldCodec<?>> codecs : CACHE.values()) {
+      size += codecs.size();
+    }
+    return size;
+  }
+
+  /**
+   * Remove all the cached codecs.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Remove the cached codecs of the classes loaded by the given class loader or
+   * by one of its children, and the filters that reference them.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    for (Iterator<Map.Entry<FieldFilter, ConcurrentMap<Class<?>, FieldCodec<?>>>> i = CACHE.entrySet().iterator(); i.hasNext();) {
+      final Map.Entry<FieldFilter, ConcurrentMap<Class<?>, FieldCodec<?>>> entry = i.next();
+      if (entry.getKey().references(classLoader)) {
+        i.remove();
+        continue;
+      }
+      for (Iterator<Class<?>> j = entry.getValue().keySet().iterator(); j.hasNext();) {
+        if (ClassPairCache.isLoadedBy(j.next(), classLoader)) {
+          j.remove();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Selection of the fields used by the copy operations. <br/>
+ * A filter is immutable: each method returns a new filter with the extra
+ * condition, starting from {@link #ALL}, for example:<br/>
+ * <code>
+ * <pre>
+ * private static final FieldFilter FILTER = FieldFilter.ALL.excludeModifiers(Modifier.TRANSIENT).excludeAnnotations(Audit.class);
+ * </pre>
+ * </code> A field is accepted when it doesn't match any of the exclusions and,
+ * for each kind of inclusion (names, annotations and types) that was given, it
+ * matches at least one of them. <br/>
+ * The filter is evaluated only once for each pair of classes, when the copy
+ * plan is built; the plan keeps only the selected fields, so a filtered copy
+ * costs no more than a full copy. Filters are compared by value, but keeping
+ * them on constants avoids recomputing their hash on each call.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class FieldFilter {
+
+  /**
+   * Filter that accepts all the instance fields. The static fields are never
+   * accepted.
+   */
+  public static final FieldFilter ALL = new FieldFilter(Modifier.STATIC, 0, Collections.<String> emptySet(), Collections.<String> emptySet(),
+      Collections.<Class<?>> emptySet(), Collections.<Class<?>> emptySet(), Collections.<Class<?>> emptySet(),
+      Collections.<Class<?>> emptySet());
+
+  private final int excludedModifiers;
+  private final int requiredModifiers;
+  private final Set<String> includedNames;
+  private final Set<String> excludedNames;
+  private final Set<Class<?>> includedAnnotations;
+  private final Set<Class<?>> excludedAnnotations;
+  private final Set<Class<?>> includedTypes;
+  private final Set<Class<?>> excludedTypes;
+  private final int hash;
+
+  /**
+   * Constructor.
+   */
+  private FieldFilter(int excludedModifiers, int requiredModifiers, Set<String> includedNames, Set<String> excludedNames,
+      Set<Class<?>> includedAnnotations, Set<Class<?>> excludedAnnotations, Set<Class<?>> includedTypes, Set<Class<?>> excludedTypes) {
+    this.excludedModifiers = excludedModifiers;
+    this.requiredModifiers = requiredModifiers;
+    this.includedNames = includedNames;
+    this.excludedNames = excludedNames;
+    this.includedAnnotations = includedAnnotations;
+    this.excludedAnnotations = excludedAnnotations;
+    this.includedTypes = includedTypes;
+    this.excludedTypes = excludedTypes;
+    int value = 31 * excludedModifiers + requiredModifiers;
+    value = 31 * value + includedNames.hashCode();
+    value = 31 * value + excludedNames.hashCode();
+    value = 31 * value + includedAnnotations.hashCode();
+    value = 31 * value + excludedAnnotations.hashCode();
+    value = 31 * value + includedTypes.hashCode();
+    value = 31 * value + excludedTypes.hashCode();
+    this.hash = value;
+  }
+
+  /**
+   * Exclude the fields that have any of the given modifiers.
+   * 
+   * @param modifierMask
+   *          Modifiers combined with the bitwise or operator (for example
+   *          <code>Modifier.TRANSIENT | Modifier.FINAL</code>).
+   * @return The new filter.
+   */
+  public FieldFilter excludeModifiers(int modifierMask) {
+    return new FieldFilter(excludedModifiers | modifierMask, requiredModifiers, includedNames, excludedNames, includedAnnotations,
+        excludedAnnotations, includedTypes, excludedTypes);
+  }
+
+  /**
+   * Accept only the fields that have all the given modifiers.
+   * 
+   * @param modifierMask
+   *          Modifiers combined with the bitwise or operator.
+   * @return The new filter.
+   */
+  public FieldFilter requireModifiers(int modifierMask) {
+    return new FieldFilter(excludedModifiers, requiredModifiers | modifierMask, includedNames, excludedNames, includedAnnotations,
+        excludedAnnotations, includedTypes, excludedTypes);
+  }
+
+  /**
+   * Accept only the fields with one of the given names (and the ones given on
+   * previous calls).
+   * 
+   * @param names
+   *          Field names.
+   * @return The new filter.
+   */
+  public FieldFilter includeNames(String... names) {
+    return new FieldFilter(excludedModifiers, requiredModifiers, union(includedNames, names, "names"), excludedNames, includedAnnotations,
+        excludedAnnotations, includedTypes, excludedTypes);
+  }
+
+  /**
+   * Exclude the fields with the given names.
+   * 
+   * @param names
+   *          Field names.
+   * @return The new filter.
+   */
+  public FieldFilter excludeNames(String... names) {
+    return new FieldFilter(excludedModifiers, requiredModifiers, includedNames, union(excludedNames, names, "names"), includedAnnotations,
+        excludedAnnotations, includedTypes, excludedTypes);
+  }
+
+  /**
+   * Accept only the fields annotated with one of the given annotations (and
+   * the ones given on previous calls). The annotations must have the runtime
+   * retention.
+   * 
+   * @param annotations
+   *          Annotation types.
+   * @return The new filter.
+   * @throws IllegalArgumentException
+   *           Throw it if one of the classes is not an annotation.
+   */
+  public FieldFilter includeAnnotations(Class<?>... annotations) {
+    return new FieldFilter(excludedModifiers, requiredModifiers, includedNames, excludedNames, union(includedAnnotations,
+        checkAnnotations(annotations), "annotations"), excludedAnnotations, includedTypes, excludedTypes);
+  }
+
+  /**
+   * Exclude the fields annotated with any of the given annotations. The
+   * annotations must have the runtime retention.
+   * 
+   * @param annotations
+   *          Annotation types.
+   * @return The new filter.
+   * @throws IllegalArgumentException
+   *           Throw it if one of the classes is not an annotation.
+   */
+  public FieldFilter excludeAnnotations(Class<?>... annotations) {
+    return new FieldFilter(excludedModifiers, requiredModifiers, includedNames, excludedNames, includedAnnotations, union(
+        excludedAnnotations, checkAnnotations(annotations), "annotations"), includedTypes, excludedTypes);
+  }
+
+  /**
+   * Accept only the fields whose declared type is one of the given types or
+   * one of their subtypes (and the ones given on previous calls).
+   * 
+   * @param types
+   *          Types.
+   * @return The new filter.
+   */
+  public FieldFilter includeTypes(Class<?>... types) {
+    return new FieldFilter(excludedModifiers, requiredModifiers, includedNames, excludedNames, includedAnnotations, excludedAnnotations,
+        union(includedTypes, types, "types"), excludedTypes);
+  }
+
+  /**
+   * Exclude the fields whose declared type is one of the given types or one of
+   * their subtypes.
+   * 
+   * @param types
+   *          Types.
+   * @return The new filter.
+   */
+  public FieldFilter excludeTypes(Class<?>... types) {
+    return new FieldFilter(excludedModifiers, requiredModifiers, includedNames, excludedNames, includedAnnotations, excludedAnnotations,
+        includedTypes, union(excludedTypes, types, "types"));
+  }
+
+  /**
+   * Check if the field is selected by this filter.
+   * 
+   * @param field
+   *          Field.
+   * @return <code>true</code> if the field is accepted.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean accept(Field field) {
+    final int modifiers = field.getModifiers();
+    if ((modifiers & excludedModifiers) != 0 || (modifiers & requiredModifiers) != requiredModifiers) {
+      return false;
+    }
+    final String name = field.getName();
+    if (excludedNames.contains(name) || (!includedNames.isEmpty() && !includedNames.contains(name))) {
+      return false;
+    }
+    for (Class<?> annotation : excludedAnnotations) {
+      if (field.isAnnotationPresent((Class<? extends Annotation>) annotation)) {
+        return false;
+      }
+    }
+    if (!includedAnnotations.isEmpty()) {
+      boolean found = false;
+      for (Class<?> annotation : includedAnnotations) {
+        if (field.isAnnotationPresent((Class<? extends Annotation>) annotation)) {
+          found = true;
+          break;
+        }
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    final Class<?> type = field.getType();
+    for (Class<?> excluded : excludedTypes) {
+      if (excluded.isAssignableFrom(type)) {
+        return false;
+      }
+    }
+    if (!includedTypes.isEmpty()) {
+      for (Class<?> included : includedTypes) {
+        if (included.isAssignableFrom(type)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Check if the filter references a class loaded by the given class loader or
+   * by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   * @return <code>true</code> if one of the annotations or types belongs to
+   *         the class loader.
+   */
+  boolean references(ClassLoader classLoader) {
+    for (Set<Class<?>> classes : Arrays.asList(includedAnnotations, excludedAnnotations, includedTypes, excludedTypes)) {
+      for (Class<?> clazz : classes) {
+        if (ClassPairCache.isLoadedBy(clazz, classLoader)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof FieldFilter)) {
+      return false;
+    }
+    final FieldFilter other = (FieldFilter) obj;
+    return hash == other.hash && excludedModifiers == other.excludedModifiers && requiredModifiers == other.requiredModifiers
+        && includedNames.equals(other.includedNames) && excludedNames.equals(other.excludedNames)
+        && includedAnnotations.equals(other.includedAnnotations) && excludedAnnotations.equals(other.excludedAnnotations)
+        && includedTypes.equals(other.includedTypes) && excludedTypes.equals(other.excludedTypes);
+  }
+
+  @Override
+  public String toString() {
+    return "FieldFilter[excludedModifiers=" + Modifier.toString(excludedModifiers) + ", requiredModifiers=" + Modifier.toString(requiredModifiers)
+        + ", includedNames=" + includedNames + ", excludedNames=" + excludedNames + ", includedAnnotations=" + includedAnnotations
+        + ", excludedAnnotations=" + excludedAnnotations + ", includedTypes=" + includedTypes + ", excludedTypes=" + excludedTypes + "]";
+  }
+
+  /**
+   * Check that all the classes are annotations.
+   * 
+   * @param annotations
+   *          Classes.
+   * @return The same classes.
+   */
+  private static Class<?>[] checkAnnotations(Class<?>[] annotations) {
+    for (Class<?> annotation : annotations) {
+      if (annotation != null && !annotation.isAnnotation()) {
+        throw new IllegalArgumentException(annotation.getName() + " is not an annotation");
+      }
+    }
+    return annotations;
+  }
+
+  /**
+   * Return a new unmodifiable set with the values of the set and of the array.
+   * 
+   * @param set
+   *          Current values.
+   * @param values
+   *          New values.
+   * @param name
+   *          Name of the parameter, used on the error message.
+   * @return The new set.
+   */
+  private static <E> Set<E> union(Set<E> set, E[] values, String name) {
+    if (values == null) {
+      throw new NullPointerException("The " + name + " parameter is mandatory");
+    }
+    final Set<E> union = new HashSet<E>(set);
+    for (E value : values) {
+      if (value == null) {
+        throw new NullPointerException("The " + name + " parameter can not contain null values");
+      }
+      union.add(value);
+    }
+    return Collections.unmodifiableSet(union);
+  }
+}
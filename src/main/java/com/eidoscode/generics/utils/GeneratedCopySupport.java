@@ -0,0 +1,25 @@
+package com.eidoscode.generics.utils;
+
+/**
+ * Interface implemented by the generated classes that also have the copy of
+ * the annotated class. The generated classes of the classes whose fields can't
+ * be copied by plain Java code only implement {@link GeneratedGenericsSupport}.
+ * It is not meant to be implemented by hand.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public interface GeneratedCopySupport extends GeneratedGenericsSupport {
+
+  /**
+   * Copy all the instance fields of the source object to the destination
+   * object. Both must be instances of the annotated class itself.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   */
+  void copyContent(Object source, Object destination);
+}
@@ -0,0 +1,34 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Type;
+
+/**
+ * Interface implemented by the classes generated for the classes annotated
+ * with {@link GenericsSupport}. <br/>
+ * The generated class of a class named <code>Foo</code> is named
+ * <code>Foo$$GenericsSupport</code>, on the same package, and it must have a
+ * public constructor without parameters. It is not meant to be implemented by
+ * hand.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public interface GeneratedGenericsSupport {
+
+  /**
+   * Suffix of the name of the generated classes.
+   */
+  String SUFFIX = "$$GenericsSupport";
+
+  /**
+   * Return the actual type arguments passed to the base class through the
+   * hierarchy of the annotated class.
+   * 
+   * @param baseClazz
+   *          Generic super class or interface of the annotated class.
+   * @return The actual type arguments or <code>null</code> if they were not
+   *         generated for the given base class.
+   */
+  Type[] getTypeArguments(Class<?> baseClazz);
+}
@@ -0,0 +1,110 @@
+package com.eidoscode.generics.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Discovery of the classes generated by the annotation processor. <br/>
+ * The generated class of each class is looked up only once. The discovery can
+ * be disabled by the system property
+ * <code>com.eidoscode.generics.utils.generated=false</code>.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class GeneratedSupports {
+
+  /**
+   * System property used to disable the use of the generated classes.
+   */
+  static final String PROPERTY = "com.eidoscode.generics.utils.generated";
+
+  private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(PROPERTY));
+
+  /**
+   * Cached value of the classes without a generated class.
+   */
+  private static final Object NONE = new Object();
+
+  private static final ConcurrentMap<Class<?>, Object> CACHE = new ConcurrentHashMap<Class<?>, Object>();
+
+  /**
+   * Hide constructor.
+   */
+  private GeneratedSupports() {
+  }
+
+  /**
+   * Return the generated class of the given class.
+   * 
+   * @param clazz
+   *          Class.
+   * @return An instance of the generated class or <code>null</code> if there
+   *         is none.
+   */
+  static GeneratedGenericsSupport of(Class<?> clazz) {
+    if (!ENABLED || clazz.isArray() || clazz.isPrimitive()) {
+      return null;
+    }
+    Object support = CACHE.get(clazz);
+    if (support == null) {
+      support = lookup(clazz);
+      final Object existing = CACHE.putIfAbsent(clazz, support);
+      if (existing != null) {
+        support = existing;
+      }
+    }
+    return support == NONE ? null : (GeneratedGenericsSupport) support;
+  }
+
+  /**
+   * Look for the generated class of the given class.
+   * 
+   * @param clazz
+   *          Class.
+   * @return An instance of the generated class or {@link #NONE}.
+   */
+  private static Object lookup(Class<?> clazz) {
+    try {
+      final Class<?> generated = Class.forName(clazz.getName() + GeneratedGenericsSupport.SUFFIX, true, clazz.getClassLoader());
+      if (GeneratedGenericsSupport.class.isAssignableFrom(generated)) {
+        return BulkCopier.newInstance(generated.getDeclaredConstructor());
+      }
+    } catch (ClassNotFoundException e) {
+      // There is no generated class
+    } catch (NoSuchMethodException e) {
+      // Invalid generated class, use reflection
+    } catch (InstantiationException e) {
+      // Invalid generated class, use reflection
+    } catch (IllegalAccessException e) {
+      // Invalid generated class, use reflection
+    } catch (LinkageError e) {
+      // Invalid generated class, use reflection
+    }
+    return NONE;
+  }
+
+  /**
+   * Remove all the discovered classes.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Remove the discovered classes of the classes loaded by the given class
+   * loader or by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    for (Iterator<Class<?>> i = CACHE.keySet().iterator(); i.hasNext();) {
+      if (ClassPairCache.isLoadedBy(i.next(), classLoader)) {
+        i.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a class to have its generic type arguments and its copy code generated
+ * at compile time by the annotation processor of the module
+ * <code>generics-utils-processor</code>. <br/>
+ * When the generated class is present, {@link GenericsUtils} uses it instead
+ * of walking the hierarchy or copying the fields using reflection. If it is
+ * not present, or if it doesn't support a given call, the reflection is used.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenericsSupport {
+
+}
@@ -1,20 +1,26 @@
 package com.eidoscode.generics.utils;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The purpose of this utility class is to make it easier to capture the
  * generalization of an class. <br/>
  * This will help you if your class is going to be executed throw a proxy
  * execution such as EJB.<br/>
+ * <b>Class loaders:</b> the copy plans, resolved type arguments and the other
+ * caches of this class hold strong references to the classes they were
+ * computed for. When this library is shared by several applications, for
+ * example on the class path of an application server, each application must
+ * call {@link #clearCache(ClassLoader)} with its class loader when it is
+ * undeployed; otherwise its class loader, and all its classes, are never
+ * collected.
  * 
  * @author antonini
  * @since 1.0
@@ -22,7 +28,10 @@ import java.util.Map;
  */
 public final class GenericsUtils {
 
-  // private static final Logger LOGGER = Logger.getLogger(GenericsUtils.class);
+  /**
+   * Actual type arguments of the calls that don't have them.
+   */
+  private static final Type[] NO_TYPES = new Type[0];
 
   /**
    * Hide constructor.
@@ -31,7 +40,10 @@ public final class GenericsUtils {
   }
 
   /**
-   * Copy the content inside the source object to the destination object.
+   * Copy the content inside the source object to the destination object. <br/>
+   * All the instance fields of the source class, including the ones declared
+   * on its super classes, are copied. The fields that are going to be copied
+   * are computed only once for each pair of source and destination classes.
    * 
    * @param source
    *          Source object.
@@ -54,50 +66,820 @@ public final class GenericsUtils {
    */
   public static <T, K extends T> void copyContent(T source, K destination) throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException,
       SecurityException {
+    copyContent(source, destination, FieldFilter.ALL);
+  }
+
+  /**
+   * Copy the content of the fields selected by the filter from the source
+   * object to the destination object. <br/>
+   * The filter is evaluated only once for each pair of source and destination
+   * classes, so the selective copy costs no more than the full copy. See
+   * {@link FieldFilter}.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param filter
+   *          Selection of the fields of the source class that are copied.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if one of the selected source fields doesn't exist on the
+   *           destination class.
+   * @throws NullPointerException
+   *           Throw it if the source, destination or filter is null.
+   */
+  public static <T, K extends T> void copyContent(T source, K destination, FieldFilter filter) throws IllegalAccessException,
+      NoSuchFieldException {
     if (source == null) {
       throw new NullPointerException("The source parameter is mandatory");
     }
     if (destination == null) {
       throw new NullPointerException("The destination parameter is mandatory");
     }
-    Class<?> cSource = source.getClass();
-    Field[] sFields = cSource.getDeclaredFields();
-    Class<?> cDestination = destination.getClass();
+    if (filter == null) {
+      throw new NullPointerException("The filter parameter is mandatory");
+    }
+    if (!Metrics.ENABLED) {
+      CopyPlan.get(source.getClass(), destination.getClass(), filter).copy(source, destination);
+      return;
+    }
+    final long start = System.nanoTime();
+    boolean completed = false;
+    try {
+      CopyPlan.get(source.getClass(), destination.getClass(), filter).copy(source, destination);
+      completed = true;
+    } finally {
+      Metrics.COPY_CONTENT.record(start, completed, source.getClass().getName(), destination.getClass().getName());
+    }
+  }
 
-    for (Field sField : sFields) {
+  /**
+   * Copy the content of the source object to the destination object, giving
+   * the destination its own copy of the collections and arrays of the
+   * reference fields. <br/>
+   * The arrays and the {@link java.util.ArrayList}, {@link java.util.HashSet},
+   * {@link java.util.TreeSet}, {@link java.util.HashMap} and
+   * {@link java.util.TreeMap} (and their subclasses) are copied, without
+   * copying their elements. The other values are shared, like
+   * {@link #copyContent(Object, Object)} does. The source is not changed.
+   * The collections that the source received from
+   * {@link #copyContentOnWrite(Object, Object, FieldFilter, boolean)} are
+   * copied only when they are changed.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if one of the source fields doesn't exist on the
+   *           destination class.
+   * @throws NullPointerException
+   *           Throw it if the source of destination is null.
+   */
+  public static <T, K extends T> void copyContentOnWrite(T source, K destination) throws IllegalAccessException, NoSuchFieldException {
+    copyContentOnWrite(source, destination, FieldFilter.ALL, false);
+  }
 
-      if (checkModifiers(sField, false, Modifier.STATIC)) {
-        continue;
-      }
-      // Avoiding concurrency problem
-      synchronized (cSource) {
-        final String fieldName = sField.getName();
+  /**
+   * Copy the content of the fields selected by the filter from the source
+   * object to the destination object, giving the destination its own copy of
+   * the collections and arrays. See {@link #copyContentOnWrite(Object, Object)}
+   * and {@link #copyContent(Object, Object, FieldFilter)}.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param filter
+   *          Selection of the fields of the source class that are copied.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if one of the selected source fields doesn't exist on the
+   *           destination class.
+   * @throws NullPointerException
+   *           Throw it if the source, destination or filter is null.
+   */
+  public static <T, K extends T> void copyContentOnWrite(T source, K destination, FieldFilter filter) throws IllegalAccessException,
+      NoSuchFieldException {
+    copyContentOnWrite(source, destination, filter, false);
+  }
 
-        // Save the current state of the field
-        final boolean sOrigAccessible = sField.isAccessible();
+  /**
+   * Copy the content of the fields selected by the filter as
+   * {@link #copyContentOnWrite(Object, Object, FieldFilter)} does, optionally
+   * deferring the copy of the large collections. <br/>
+   * When <code>shareSource</code> is <code>true</code>, the collections of
+   * the classes listed on {@link #copyContentOnWrite(Object, Object)} with at
+   * least 64 elements (see the system property
+   * <code>com.eidoscode.generics.utils.copyOnWriteThreshold</code>), held on
+   * fields declared as {@link java.util.List}, {@link java.util.Set},
+   * {@link java.util.Map} or {@link java.util.Collection} on both classes, are
+   * not copied: the source and the destination fields receive wrappers of the
+   * same collection, that is copied only by the first of them that is changed.
+   * <b>The source is changed</b>: its fields no longer hold the original
+   * collection classes, and the original collections must not be changed
+   * through references obtained before the copy, since the changes would be
+   * seen by the destination. The wrappers are serialized as plain copies of
+   * their content.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param filter
+   *          Selection of the fields of the source class that are copied.
+   * @param shareSource
+   *          <code>true</code> to replace the large collections of the source
+   *          by copy on write wrappers shared with the destination.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if one of the selected source fields doesn't exist on the
+   *           destination class.
+   * @throws NullPointerException
+   *           Throw it if the source, destination or filter is null.
+   */
+  public static <T, K extends T> void copyContentOnWrite(T source, K destination, FieldFilter filter, boolean shareSource)
+      throws IllegalAccessException, NoSuchFieldException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (destination == null) {
+      throw new NullPointerException("The destination parameter is mandatory");
+    }
+    if (filter == null) {
+      throw new NullPointerException("The filter parameter is mandatory");
+    }
+    CopyPlan.get(source.getClass(), destination.getClass(), filter).copyOnWrite(source, destination, shareSource);
+  }
 
-        // Destination field
-        final Field dField = cDestination.getDeclaredField(fieldName);
-        final boolean dOrigAccessible = dField.isAccessible();
+  /**
+   * Copy only the fields whose value on the source is different from the value
+   * on the destination, and report which ones were written. <br/>
+   * The primitive fields are compared by value (the floating point ones by
+   * their bits, so NaN is equal to NaN) and the reference fields as defined by
+   * the comparison. It avoids the dirty checking and write barriers of the
+   * fields that didn't change.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param comparison
+   *          How the reference fields are compared.
+   * @return The changed fields, or {@link ChangedFields#NONE} if nothing was
+   *         written.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if one of the source fields doesn't exist on the
+   *           destination class.
+   * @throws NullPointerException
+   *           Throw it if one of the parameters is null.
+   */
+  public static <T, K extends T> ChangedFields copyChangedContent(T source, K destination, ReferenceComparison comparison)
+      throws IllegalAccessException, NoSuchFieldException {
+    return copyChangedContent(source, destination, comparison, FieldFilter.ALL);
+  }
 
-        // Make it accessible
-        sField.setAccessible(true);
-        dField.setAccessible(true);
+  /**
+   * Copy only the fields selected by the filter whose value on the source is
+   * different from the value on the destination, and report which ones were
+   * written. See {@link #copyChangedContent(Object, Object, ReferenceComparison)}
+   * and {@link #copyContent(Object, Object, FieldFilter)}.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param comparison
+   *          How the reference fields are compared.
+   * @param filter
+   *          Selection of the fields of the source class that are compared.
+   * @return The changed fields, or {@link ChangedFields#NONE} if nothing was
+   *         written.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if one of the selected source fields doesn't exist on the
+   *           destination class.
+   * @throws NullPointerException
+   *           Throw it if one of the parameters is null.
+   */
+  public static <T, K extends T> ChangedFields copyChangedContent(T source, K destination, ReferenceComparison comparison, FieldFilter filter)
+      throws IllegalAccessException, NoSuchFieldException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (destination == null) {
+      throw new NullPointerException("The destination parameter is mandatory");
+    }
+    if (comparison == null) {
+      throw new NullPointerException("The comparison parameter is mandatory");
+    }
+    if (filter == null) {
+      throw new NullPointerException("The filter parameter is mandatory");
+    }
+    return CopyPlan.get(source.getClass(), destination.getClass(), filter).copyChanged(source, destination,
+        comparison == ReferenceComparison.EQUALS);
+  }
 
-        // Copy content
-        Object value = sField.get(source);
-        dField.set(destination, value);
+  /**
+   * Map the content of the source object to the destination object, that can
+   * be of an unrelated class, using the {@link MappingOptions#DEFAULT default
+   * options}. See {@link #mapContent(Object, Object, MappingOptions)}.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Never thrown by the default options, that are not strict.
+   * @throws IllegalArgumentException
+   *           Throw if there is no conversion between the types of two
+   *           matching fields.
+   * @throws NullPointerException
+   *           Throw it if the source or destination is null.
+   */
+  public static void mapContent(Object source, Object destination) throws IllegalAccessException, NoSuchFieldException {
+    mapContent(source, destination, MappingOptions.DEFAULT);
+  }
 
-        // Restore the state of the Field
-        sField.setAccessible(sOrigAccessible);
-        dField.setAccessible(dOrigAccessible);
-      }
+  /**
+   * Map the content of the source object to the destination object, that can
+   * be of an unrelated class. <br/>
+   * The fields are matched by name (the options can give other names or ignore
+   * fields) and the fields with different types are converted by the
+   * converters registered on the options or by the built in conversions
+   * (boxing, numbers, enum and String, Date and long). A <code>null</code>
+   * value leaves the primitive fields unchanged. The whole mapping is computed
+   * only once for each pair of classes and options. <br/>
+   * The options must be constants: the options and converters created on each
+   * call are cached as new keys, up to a limit, and after it their mapping is
+   * computed on every call (see {@link MappingOptions}).
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @param options
+   *          Mapping options.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if the options are strict and one of the source fields
+   *           doesn't exist on the destination class.
+   * @throws IllegalArgumentException
+   *           Throw if there is no conversion between the types of two
+   *           matching fields.
+   * @throws NullPointerException
+   *           Throw it if one of the parameters is null.
+   */
+  public static void mapContent(Object source, Object destination, MappingOptions options) throws IllegalAccessException,
+      NoSuchFieldException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (destination == null) {
+      throw new NullPointerException("The destination parameter is mandatory");
+    }
+    if (options == null) {
+      throw new NullPointerException("The options parameter is mandatory");
+    }
+    MappingPlan.get(source.getClass(), destination.getClass(), options).map(source, destination);
+  }
+
+  /**
+   * Create a new instance of the destination class, using its constructor
+   * without parameters, and map the content of the source object to it. See
+   * {@link #mapContent(Object, Object, MappingOptions)}.
+   * 
+   * @param source
+   *          Source object.
+   * @param destinationClass
+   *          Destination class.
+   * @param options
+   *          Mapping options.
+   * @return The new destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if the options are strict and one of the source fields
+   *           doesn't exist on the destination class.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create the destination object.
+   * @throws NullPointerException
+   *           Throw it if one of the parameters is null.
+   */
+  public static <D> D map(Object source, Class<D> destinationClass, MappingOptions options) throws IllegalAccessException,
+      NoSuchFieldException, InstantiationException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (destinationClass == null) {
+      throw new NullPointerException("The destinationClass parameter is mandatory");
+    }
+    if (options == null) {
+      throw new NullPointerException("The options parameter is mandatory");
+    }
+    final MappingPlan plan = MappingPlan.get(source.getClass(), destinationClass, options);
+    final D destination = destinationClass.cast(plan.newDestination());
+    plan.map(source, destination);
+    return destination;
+  }
+
+  /**
+   * Copy the content of each source object to the destination object on the
+   * same position. <br/>
+   * The copy plan is resolved once for the whole batch and big batches are
+   * copied in parallel. See {@link #copyAllContent(List, List, int)}.
+   * 
+   * @param sources
+   *          Source objects.
+   * @param destinations
+   *          Destination objects.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NullPointerException
+   *           Throw it if one of the lists or one of the elements is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the lists don't have the same size.
+   */
+  public static <T, K extends T> void copyAllContent(List<? extends T> sources, List<? extends K> destinations) throws IllegalAccessException,
+      NoSuchFieldException {
+    copyAllContent(sources, destinations, BulkCopier.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Copy the content of each source object to the destination object on the
+   * same position. <br/>
+   * The copy plan is resolved once for the whole batch. If the batch has at
+   * least twice the given threshold it is split across the available
+   * processors, each thread copying at least <code>parallelThreshold</code>
+   * elements.
+   * 
+   * @param sources
+   *          Source objects.
+   * @param destinations
+   *          Destination objects.
+   * @param parallelThreshold
+   *          Minimum number of elements copied by each thread. The default
+   *          value is 10000 and can be changed by the system property
+   *          <code>com.eidoscode.generics.utils.parallelThreshold</code>.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NullPointerException
+   *           Throw it if one of the lists or one of the elements is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the lists don't have the same size or if the
+   *           threshold is less than 1.
+   */
+  public static <T, K extends T> void copyAllContent(List<? extends T> sources, List<? extends K> destinations, int parallelThreshold)
+      throws IllegalAccessException, NoSuchFieldException {
+    if (sources == null) {
+      throw new NullPointerException("The sources parameter is mandatory");
+    }
+    if (destinations == null) {
+      throw new NullPointerException("The destinations parameter is mandatory");
+    }
+    BulkCopier.copy(sources.toArray(), destinations.toArray(), parallelThreshold);
+  }
+
+  /**
+   * Copy the content of each source object to the destination object on the
+   * same position. See {@link #copyAllContent(List, List, int)}.
+   * 
+   * @param sources
+   *          Source objects.
+   * @param destinations
+   *          Destination objects.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NullPointerException
+   *           Throw it if one of the arrays or one of the elements is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the arrays don't have the same length.
+   */
+  public static <T, K extends T> void copyAllContent(T[] sources, K[] destinations) throws IllegalAccessException, NoSuchFieldException {
+    copyAllContent(sources, destinations, BulkCopier.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Copy the content of each source object to the destination object on the
+   * same position. See {@link #copyAllContent(List, List, int)}.
+   * 
+   * @param sources
+   *          Source objects.
+   * @param destinations
+   *          Destination objects.
+   * @param parallelThreshold
+   *          Minimum number of elements copied by each thread.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NullPointerException
+   *           Throw it if one of the arrays or one of the elements is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the arrays don't have the same length or if the
+   *           threshold is less than 1.
+   */
+  public static <T, K extends T> void copyAllContent(T[] sources, K[] destinations, int parallelThreshold) throws IllegalAccessException,
+      NoSuchFieldException {
+    if (sources == null) {
+      throw new NullPointerException("The sources parameter is mandatory");
+    }
+    if (destinations == null) {
+      throw new NullPointerException("The destinations parameter is mandatory");
+    }
+    BulkCopier.copy(sources, destinations, parallelThreshold);
+  }
+
+  /**
+   * Copy the content of each source object to a new instance of the
+   * destination class. See {@link #copyAllContent(List, Class, int)}.
+   * 
+   * @param sources
+   *          Source objects.
+   * @param destinationClass
+   *          Class of the new objects. It must have a constructor without
+   *          parameters.
+   * @return A new list with the new objects, on the same order of the sources.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create the new objects.
+   * @throws NullPointerException
+   *           Throw it if one of the parameters or one of the elements is
+   *           null.
+   */
+  public static <T, K extends T> List<K> copyAllContent(List<? extends T> sources, Class<K> destinationClass) throws IllegalAccessException,
+      NoSuchFieldException, InstantiationException {
+    return copyAllContent(sources, destinationClass, BulkCopier.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Copy the content of each source object to a new instance of the
+   * destination class. <br/>
+   * The constructor and the copy plan are resolved once for the whole batch.
+   * If the batch has at least twice the given threshold it is split across the
+   * available processors, each thread copying at least
+   * <code>parallelThreshold</code> elements.
+   * 
+   * @param sources
+   *          Source objects.
+   * @param destinationClass
+   *          Class of the new objects. It must have a constructor without
+   *          parameters.
+   * @param parallelThreshold
+   *          Minimum number of elements copied by each thread.
+   * @return A new list with the new objects, on the same order of the sources.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create the new objects.
+   * @throws NullPointerException
+   *           Throw it if one of the parameters or one of the elements is
+   *           null.
+   * @throws IllegalArgumentException
+   *           Throw it if the threshold is less than 1.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T, K extends T> List<K> copyAllContent(List<? extends T> sources, Class<K> destinationClass, int parallelThreshold)
+      throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    if (sources == null) {
+      throw new NullPointerException("The sources parameter is mandatory");
+    }
+    if (destinationClass == null) {
+      throw new NullPointerException("The destinationClass parameter is mandatory");
+    }
+    Object[] destinations = BulkCopier.copy(sources.toArray(), destinationClass, parallelThreshold);
+    List<K> retValue = new ArrayList<K>(destinations.length);
+    for (Object destination : destinations) {
+      retValue.add((K) destination);
+    }
+    return retValue;
+  }
+
+  /**
+   * Create a deep copy of the given object. <br/>
+   * All the objects referenced by the source are also copied. The shared and
+   * cyclic references are copied only once, so the copy has the same shape of
+   * the original graph. Immutable objects (String, boxed primitives, enums,
+   * Class, BigInteger, BigDecimal, UUID and Locale) are shared, arrays of
+   * primitives are copied with {@link System#arraycopy} and the public
+   * collections and maps of the JDK are recreated with copies of their
+   * elements.
+   * 
+   * @param source
+   *          Object to be copied.
+   * @return The copy. If the source is <code>null</code> it returns
+   *         <code>null</code>.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create one of the copies.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T deepCopy(T source) throws IllegalAccessException, NoSuchFieldException, InstantiationException {
+    return (T) new DeepCopier().copy(source);
+  }
+
+  /**
+   * Copy the content inside the source object to the destination object,
+   * making a deep copy of each referenced object. <br/>
+   * See {@link #deepCopy(Object)}.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws NoSuchFieldException
+   *           Throw if there is some problem accessing the fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create one of the copies.
+   * @throws NullPointerException
+   *           Throw it if the source of destination is null.
+   */
+  public static <T, K extends T> void deepCopyContent(T source, K destination) throws IllegalAccessException, NoSuchFieldException,
+      InstantiationException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (destination == null) {
+      throw new NullPointerException("The destination parameter is mandatory");
+    }
+    new DeepCopier().copyContent(source, destination);
+  }
+
+  /**
+   * Return the metrics of the calls and of the caches. See
+   * {@link GenericsUtilsMetricsMBean}.
+   * 
+   * @return The metrics or <code>null</code> if they are disabled.
+   */
+  public static GenericsUtilsMetricsMBean getMetrics() {
+    return Metrics.INSTANCE;
+  }
+
+  /**
+   * Return the class that the given class stands for, when it is a proxy. <br/>
+   * The subclasses generated by CGLIB, Javassist, Hibernate and Byte Buddy are
+   * unwrapped to the first super class that is not generated. The JDK dynamic
+   * proxy classes are mapped to the target class registered with
+   * {@link #registerProxyTarget(Class, Class)}, if any. The mapping of each
+   * class is computed only once. <br/>
+   * {@link #getSuperClassGenericType(Class, Class, int, Type...)} (without the
+   * actual type arguments) and {@link #getClass(Class, Class)} already resolve
+   * against the target class.
+   * 
+   * @param clazz
+   *          Class, normally the one of a proxied object.
+   * @return The target class or the class itself if it is not a known proxy.
+   * @throws NullPointerException
+   *           Throw it if the class is null.
+   */
+  public static Class<?> getTargetClass(Class<?> clazz) {
+    if (clazz == null) {
+      throw new NullPointerException("The class argument is mandatory.");
+    }
+    return ProxyClasses.targetOf(clazz);
+  }
+
+  /**
+   * Register the target class of a JDK dynamic proxy class (or of any other
+   * proxy class that is not recognized). <br/>
+   * A JDK proxy class only carries its interfaces and it is shared by all the
+   * proxies with the same interfaces on the same class loader, so register it
+   * only when all of them stand for the same class. The registrations are kept
+   * by {@link #clearCache()} and removed by {@link #clearCache(ClassLoader)}.
+   * 
+   * @param proxyClass
+   *          Proxy class, like <code>proxy.getClass()</code>.
+   * @param targetClass
+   *          Class that the proxies stand for.
+   * @throws NullPointerException
+   *           Throw it if one of the classes is null.
+   */
+  public static void registerProxyTarget(Class<?> proxyClass, Class<?> targetClass) {
+    if (proxyClass == null) {
+      throw new NullPointerException("The proxyClass parameter is mandatory");
+    }
+    if (targetClass == null) {
+      throw new NullPointerException("The targetClass parameter is mandatory");
+    }
+    ProxyClasses.register(proxyClass, targetClass);
+  }
+
+  /**
+   * Remove the target class registered by
+   * {@link #registerProxyTarget(Class, Class)}, so the proxy class stands for
+   * itself again.
+   * 
+   * @param proxyClass
+   *          Proxy class, like <code>proxy.getClass()</code>.
+   * @return <code>true</code> if the proxy class was registered.
+   * @throws NullPointerException
+   *           Throw it if the class is null.
+   */
+  public static boolean unregisterProxyTarget(Class<?> proxyClass) {
+    if (proxyClass == null) {
+      throw new NullPointerException("The proxyClass parameter is mandatory");
+    }
+    return ProxyClasses.unregister(proxyClass);
+  }
+
+  /**
+   * Write the resolved type arguments that are on the cache to a file, that
+   * can be loaded on the next start of the JVM by
+   * {@link #loadCache(File, ClassLoader)}. The copy plans are not written. <br/>
+   * Only the classes loaded from jars or directories are written; the
+   * generated proxy classes and the classes without a location are resolved
+   * again on the next start. See also
+   * {@link #enableCacheFile(File, ClassLoader)}.
+   * 
+   * @param file
+   *          Cache file. It is replaced if it exists.
+   * @return The number of written records.
+   * @throws IOException
+   *           Throw if it is not possible to write the file.
+   * @throws NullPointerException
+   *           Throw it if the file is null.
+   */
+  public static int saveCache(File file) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("The file parameter is mandatory");
+    }
+    return CacheFile.save(file);
+  }
+
+  /**
+   * Load a file written by {@link #saveCache(File)} on the caches, so the first
+   * calls for its classes don't walk the hierarchies. <br/>
+   * Each record is checked against the classes loaded by the given class
+   * loader: the records of the classes that are missing or whose jar or class
+   * file changed are skipped and resolved again on the first use. A missing
+   * file, or a file written by another version of the JVM, is ignored.
+   * 
+   * @param file
+   *          Cache file.
+   * @param classLoader
+   *          Class loader of the classes of the records.
+   * @return The number of loaded records.
+   * @throws IOException
+   *           Throw if it is not possible to read the file.
+   * @throws NullPointerException
+   *           Throw it if the file or the class loader is null.
+   */
+  public static int loadCache(File file, ClassLoader classLoader) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("The file parameter is mandatory");
+    }
+    if (classLoader == null) {
+      throw new NullPointerException("The classLoader parameter is mandatory");
+    }
+    return CacheFile.load(file, classLoader);
+  }
+
+  /**
+   * Load a file written by {@link #saveCache(File)}, as
+   * {@link #loadCache(File, ClassLoader)} does, and register a shutdown hook
+   * that saves it when the JVM shuts down. Nothing is read or saved unless the
+   * application calls this method. <br/>
+   * Only one file is enabled at a time: the hook of the previous call is
+   * removed. The hook is also removed by {@link #disableCacheFile()} and by
+   * {@link #clearCache(ClassLoader)} with the given class loader (or one of
+   * its parents), so it doesn't keep an undeployed application loaded.
+   * 
+   * @param file
+   *          Cache file.
+   * @param classLoader
+   *          Class loader of the classes of the records.
+   * @return The number of loaded records.
+   * @throws IOException
+   *           Throw if it is not possible to read the file.
+   * @throws NullPointerException
+   *           Throw it if the file or the class loader is null.
+   */
+  public static int enableCacheFile(File file, ClassLoader classLoader) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("The file parameter is mandatory");
+    }
+    if (classLoader == null) {
+      throw new NullPointerException("The classLoader parameter is mandatory");
+    }
+    return CacheFile.enable(file, classLoader);
+  }
+
+  /**
+   * Remove the shutdown hook registered by
+   * {@link #enableCacheFile(File, ClassLoader)}, if any. The file is not
+   * saved: call {@link #saveCache(File)} before, if needed.
+   * 
+   * @return <code>true</code> if there was a hook.
+   */
+  public static boolean disableCacheFile() {
+    return CacheFile.disable();
+  }
+
+  /**
+   * Remove all the cached copy plans, resolved type arguments, canonical types
+   * and class hierarchies.
+   */
+  public static void clearCache() {
+    CopyPlan.clear();
+    MappingPlan.clear();
+    RowMapper.clear();
+    FieldCodec.clear();
+    TypeResolver.CACHE.clear();
+    Types.clear();
+    ClassHierarchy.clear();
+    GeneratedSupports.clear();
+    ProxyClasses.clear();
+  }
+
+  /**
+   * Remove the cached copy plans, resolved type arguments, canonical types and
+   * class hierarchies of the classes loaded by the given class loader or by one
+   * of its children. <br/>
+   * The caches hold strong references to the classes, so it must be called
+   * when an application is undeployed from an application server, in order to
+   * let its class loader be collected. The shutdown hook of
+   * {@link #enableCacheFile(File, ClassLoader)} is removed too, when it was
+   * enabled for this class loader or one of its children, and so is the
+   * metrics MBean when this library was loaded by that class loader.
+   * 
+   * @param classLoader
+   *          Class loader of the undeployed application.
+   * @throws NullPointerException
+   *           Throw it if the class loader is null.
+   */
+  public static void clearCache(ClassLoader classLoader) {
+    if (classLoader == null) {
+      throw new NullPointerException("The classLoader parameter is mandatory");
+    }
+    CopyPlan.clear(classLoader);
+    MappingPlan.clear(classLoader);
+    RowMapper.clear(classLoader);
+    FieldCodec.clear(classLoader);
+    TypeResolver.CACHE.clear(classLoader);
+    Types.clear(classLoader);
+    ClassHierarchy.clear(classLoader);
+    GeneratedSupports.clear(classLoader);
+    ProxyClasses.clear(classLoader);
+    CacheFile.disable(classLoader);
+    if (Metrics.ENABLED) {
+      Metrics.unregister(classLoader);
     }
   }
 
   /**
    * Check the field modifiers. If one of the given modifiers is present it
-   * returns true.
+   * returns true. <br/>
+   * Each call allocates the array of the modifiers: on the hot paths use
+   * {@link #checkModifierMask(Field, boolean, int)}.
    * 
    * @param field
    *          Field that want to be checked.
@@ -124,6 +906,28 @@ public final class GenericsUtils {
     return retValue;
   }
 
+  /**
+   * Check the field modifiers against a mask of modifiers. It is the same as
+   * {@link #checkModifiers(Field, boolean, int...)} with each bit of the mask
+   * passed as one modifier, but it doesn't allocate nor loop.
+   * 
+   * @param field
+   *          Field that want to be checked.
+   * @param checkAll
+   *          If <code>true</code> the given field must contains ALL the
+   *          modifiers of the mask, but if <code>false</code> means that if the
+   *          given field contains one of them it will return true.
+   * @param modifierMask
+   *          Modifiers combined with the bitwise or operator (for example
+   *          <code>Modifier.STATIC | Modifier.FINAL</code>).
+   * @return Read the content on the parameter checkAll because that parameter
+   *         can change the possible result.
+   */
+  public static boolean checkModifierMask(Field field, boolean checkAll, int modifierMask) {
+    final int fieldModifiers = field.getModifiers() & modifierMask;
+    return checkAll ? fieldModifiers == modifierMask : fieldModifiers != 0;
+  }
+
   /**
    * The purpose of this method is to bring the first generic type informed on
    * the super class. <br/>
@@ -163,7 +967,28 @@ public final class GenericsUtils {
    *         of the class. If not found, is going to return <code>null</code>.
    */
   public static <T> Class<T> getSuperClassGenericType(Class<?> clazz, Class<?> clazzType) {
-    return getSuperClassGenericType(clazz, clazzType, 0);
+    return getSuperClassGenericType(clazz, clazzType, 0, NO_TYPES);
+  }
+
+  /**
+   * Same as {@link #getSuperClassGenericType(Class, Class, int, Type...)}
+   * without the actual type arguments, so the calls don't allocate the empty
+   * array of the variable arguments.
+   * 
+   * @param targetClazz
+   *          Class to search the parameter passed throw the generalization.
+   *          Normally is going to be "getClass()" or the desired object.
+   * @param baseClazz
+   *          The Class that need to be implemented and you are looking for on
+   *          the first level of implementation.
+   * @param index
+   *          The index of the parameter that you want. Remember, this is a base
+   *          zero index.
+   * @return The class type of the parameter passed on the generalization of
+   *         the class. If not found, is going to return <code>null</code>.
+   */
+  public static <T> Class<T> getSuperClassGenericType(final Class<?> targetClazz, Class<?> baseClazz, int index) {
+    return getSuperClassGenericType(targetClazz, baseClazz, index, NO_TYPES);
   }
 
   /**
@@ -199,6 +1024,12 @@ public final class GenericsUtils {
    * on the carType variable is going to be the class SportCar and the value on
    * the priceType variable is going to be the class ExpensivePrice. <br/>
    * <br/>
+   * When the actual type arguments are omitted, the resolved arguments of each
+   * pair of target and base classes are cached, so only the first call walks
+   * the hierarchy. See {@link #clearCache(ClassLoader)}. The proxy classes are
+   * resolved against their target class, see {@link #getTargetClass(Class)}.
+   * <br/>
+   * <br/>
    * <i>Note: The source of the following parameter was a merge between the
    * original source code and the code provided on the StackOverflow thread
    * http://stackoverflow.com/a/17301917/1501876.</i>
@@ -218,8 +1049,38 @@ public final class GenericsUtils {
    * @return The class type of the first parameter passed on the generalization
    *         of the class. If not found, is going to return <code>null</code>.
    */
-  @SuppressWarnings("unchecked")
   public static <T> Class<T> getSuperClassGenericType(final Class<?> targetClazz, Class<?> baseClazz, int index, Type... actualArgs) {
+    if (!Metrics.ENABLED) {
+      return superClassGenericType(targetClazz, baseClazz, index, actualArgs);
+    }
+    final long start = System.nanoTime();
+    boolean completed = false;
+    try {
+      final Class<T> retValue = superClassGenericType(targetClazz, baseClazz, index, actualArgs);
+      completed = true;
+      return retValue;
+    } finally {
+      Metrics.SUPER_CLASS_GENERIC_TYPE.record(start, completed, targetClazz, baseClazz);
+    }
+  }
+
+  /**
+   * Implementation of
+   * {@link #getSuperClassGenericType(Class, Class, int, Type...)}, without the
+   * metrics.
+   * 
+   * @param targetClazz
+   *          Class to search the parameter passed throw the generalization.
+   * @param baseClazz
+   *          The generic class that is implemented by the target class.
+   * @param index
+   *          The index of the parameter.
+   * @param actualArgs
+   *          The actual type arguments passed to the targetClazz.
+   * @return The class type of the parameter or <code>null</code>.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> Class<T> superClassGenericType(final Class<?> targetClazz, Class<?> baseClazz, int index, Type... actualArgs) {
     if (targetClazz == null) {
       throw new NullPointerException("The class argument is mandatory.");
     }
@@ -227,71 +1088,18 @@ public final class GenericsUtils {
       throw new IllegalArgumentException("The index value can not be less than 0.");
     }
 
-    // If actual types are omitted, the type parameters will be used instead.
-    if (actualArgs.length == 0) {
-      actualArgs = targetClazz.getTypeParameters();
-    }
-    targetClazz.getGenericSuperclass();
-    // map type parameters into the actual types
-    Map<String, Type> typeVariables = new HashMap<String, Type>();
-    for (int i = 0; i < actualArgs.length; i++) {
-      TypeVariable<?> typeVariable = (TypeVariable<?>) targetClazz.getTypeParameters()[i];
-      typeVariables.put(typeVariable.getName(), actualArgs[i]);
-    }
-
-    // Find direct ancestors (superclass, interfaces)
-    List<Type> ancestors = new LinkedList<Type>();
-    if (targetClazz.getGenericSuperclass() != null) {
-      ancestors.add(targetClazz.getGenericSuperclass());
-    }
-    for (Type t : targetClazz.getGenericInterfaces()) {
-      ancestors.add(t);
-    }
-
-    // Recurse into ancestors (superclass, interfaces)
-    for (Type type : ancestors) {
-      if (type instanceof Class<?>) {
-        // ancestor is non-parameterized. Recurse only if it matches the base
-        // class.
-        Class<?> ancestorClass = (Class<?>) type;
-        if (baseClazz.isAssignableFrom(ancestorClass)) {
-          return getSuperClassGenericType((Class<? extends T>) ancestorClass, baseClazz, index);
-        }
-      }
-      if (type instanceof ParameterizedType) {
-        // ancestor is parameterized. Recurse only if the raw type matches the
-        // base class.
-        ParameterizedType parameterizedType = (ParameterizedType) type;
-        Type rawType = parameterizedType.getRawType();
-        if (rawType instanceof Class<?>) {
-          Class<?> rawTypeClass = (Class<?>) rawType;
-          if (baseClazz.isAssignableFrom(rawTypeClass)) {
-
-            // loop through all type arguments and replace type variables with
-            // the actually known types
-            List<Type> resolvedTypes = new LinkedList<Type>();
-            for (Type t : parameterizedType.getActualTypeArguments()) {
-              if (t instanceof TypeVariable<?>) {
-                Type resolvedType = typeVariables.get(((TypeVariable<?>) t).getName());
-                resolvedTypes.add(resolvedType != null ? resolvedType : t);
-              } else {
-                resolvedTypes.add(t);
-              }
-            }
-
-            return getSuperClassGenericType((Class<? extends T>) rawTypeClass, baseClazz, index, resolvedTypes.toArray(new Type[] {}));
-          }
-        }
-      }
+    final Type[] resolved;
+    if (actualArgs.length == 0 && baseClazz != null) {
+      resolved = TypeResolver.resolve(targetClazz, baseClazz);
+    } else {
+      // If actual types are omitted, the type parameters will be used instead.
+      resolved = TypeResolver.resolve(targetClazz, baseClazz, actualArgs.length == 0 ? null : actualArgs);
     }
 
     // we have a result if we reached the base class.
-    if (targetClazz.equals(baseClazz)) {
-      Type retType = actualArgs[index];
+    if (resolved != null) {
+      Type retType = resolved[index];
       // It is not been possible to resolve same level of type.
-      // if (retType instanceof TypeVariable<?>) {
-      // TypeVariable<?> typeVariable = (TypeVariable<?>) retType;
-      // } else
       if (retType instanceof Class<?>) {
         return (Class<T>) retType;
       }
@@ -299,9 +1107,163 @@ public final class GenericsUtils {
     return null;
   }
 
+  /**
+   * The purpose of this method is to bring all the generic types informed on
+   * the super class at once. <br/>
+   * <br/>
+   * Using the sample of the method
+   * {@link #getSuperClassGenericType(Class, Class, int, Type...)}, the
+   * following call:<br/>
+   * <code>
+   * <pre>
+   * Class&lt;?&gt;[] types = GenericsUtils.getSuperClassGenericTypes(getClass(), Garage.class);
+   * </pre>
+   * </code> returns the array <code>{SportCar.class, ExpensivePrice.class}</code>.
+   * The hierarchy is walked only once for all the parameters and the result is
+   * cached.
+   * 
+   * @param targetClazz
+   *          Class to search the parameters passed throw the generalization.
+   *          Normally is going to be "getClass()" or the desired object.
+   * @param baseClazz
+   *          The Class that need to be implemented and you are looking for on
+   *          the first level of implementation.
+   * @return A new array with the class type of each parameter of the base
+   *         class, on the same order of its declaration. The parameters that
+   *         can not be resolved to a class are <code>null</code>. If the base
+   *         class is not found, is going to return <code>null</code>.
+   * @throws NullPointerException
+   *           Throw it if one of the classes is null.
+   */
+  public static Class<?>[] getSuperClassGenericTypes(final Class<?> targetClazz, Class<?> baseClazz) {
+    final Type[] resolved = resolveTypeArguments(targetClazz, baseClazz);
+    if (resolved == null) {
+      return null;
+    }
+    final Class<?>[] retValue = new Class<?>[resolved.length];
+    for (int i = 0; i < resolved.length; i++) {
+      if (resolved[i] instanceof Class<?>) {
+        retValue[i] = (Class<?>) resolved[i];
+      }
+    }
+    return retValue;
+  }
+
+  /**
+   * The purpose of this method is to bring the generic type informed on the
+   * super class, even when it is not a class. <br/>
+   * <br/>
+   * Example: <br/>
+   * <br/>
+   * <code>
+   * <pre>
+   * class SportCarGarage extends Garage&lt;List&lt;SportCar&gt;&gt; {
+   * }
+   * </pre>
+   * </code> <br/>
+   * For the class above <code>getSuperClassGenericType</code> returns
+   * <code>null</code>, because the argument is not a class, while this method
+   * returns the {@link ParameterizedType} <code>List&lt;SportCar&gt;</code>. The
+   * type variables are replaced by the actual types on all the levels of the
+   * hierarchy, including the ones nested on parameterized types, arrays and
+   * wildcards. <br/>
+   * The returned types are canonical: equal types are always the same
+   * instance, so they can be compared by reference and used as keys of
+   * {@link java.util.IdentityHashMap}. See {@link #getCanonicalType(Type)}.
+   * 
+   * @param targetClazz
+   *          Class to search the parameter passed throw the generalization.
+   *          Normally is going to be "getClass()" or the desired object.
+   * @param baseClazz
+   *          The Class that need to be implemented and you are looking for on
+   *          the first level of implementation.
+   * @param index
+   *          The index of the parameter that you want. Remember, this is a base
+   *          zero index.
+   * @return The canonical type of the parameter. It is a {@link TypeVariable}
+   *         if it was not resolved. If the base class is not found, is going to
+   *         return <code>null</code>.
+   * @throws NullPointerException
+   *           Throw it if one of the classes is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the index is less than 0.
+   */
+  public static Type getSuperClassGenericTypeArgument(final Class<?> targetClazz, Class<?> baseClazz, int index) {
+    if (index < 0) {
+      throw new IllegalArgumentException("The index value can not be less than 0.");
+    }
+    final Type[] resolved = resolveTypeArguments(targetClazz, baseClazz);
+    return resolved == null ? null : resolved[index];
+  }
+
+  /**
+   * The purpose of this method is to bring all the generic types informed on
+   * the super class at once, even when they are not classes. <br/>
+   * See {@link #getSuperClassGenericTypeArgument(Class, Class, int)}.
+   * 
+   * @param targetClazz
+   *          Class to search the parameters passed throw the generalization.
+   *          Normally is going to be "getClass()" or the desired object.
+   * @param baseClazz
+   *          The Class that need to be implemented and you are looking for on
+   *          the first level of implementation.
+   * @return A new array with the canonical type of each parameter of the base
+   *         class, on the same order of its declaration. If the base class is
+   *         not found, is going to return <code>null</code>.
+   * @throws NullPointerException
+   *           Throw it if one of the classes is null.
+   */
+  public static Type[] getSuperClassGenericTypeArguments(final Class<?> targetClazz, Class<?> baseClazz) {
+    final Type[] resolved = resolveTypeArguments(targetClazz, baseClazz);
+    return resolved == null ? null : resolved.clone();
+  }
+
+  /**
+   * Return the canonical instance of the given type. Equal types always have
+   * the same canonical instance, so the canonical types can be compared by
+   * reference. The types returned by
+   * {@link #getSuperClassGenericTypeArgument(Class, Class, int)} are already
+   * canonical.
+   * 
+   * @param type
+   *          Type, as returned by the reflection API.
+   * @return The canonical instance. The classes are their own canonical
+   *         instance.
+   * @throws NullPointerException
+   *           Throw it if the type is null.
+   */
+  public static Type getCanonicalType(Type type) {
+    if (type == null) {
+      throw new NullPointerException("The type parameter is mandatory");
+    }
+    return Types.canonical(type);
+  }
+
+  /**
+   * Check the parameters and return the cached type arguments.
+   * 
+   * @param targetClazz
+   *          Target class.
+   * @param baseClazz
+   *          Base class.
+   * @return The shared array of resolved type arguments.
+   */
+  private static Type[] resolveTypeArguments(final Class<?> targetClazz, Class<?> baseClazz) {
+    if (targetClazz == null) {
+      throw new NullPointerException("The class argument is mandatory.");
+    }
+    if (baseClazz == null) {
+      throw new NullPointerException("The base class argument is mandatory.");
+    }
+    return TypeResolver.resolve(targetClazz, baseClazz);
+  }
+
   /**
    * Keep looking for the super class until it finds the implementation class of
-   * the class type sent by parameter.
+   * the class type sent by parameter. <br/>
+   * The hierarchy of each class is computed only once, so after the first call
+   * it is a constant time lookup. The proxy classes are replaced by their
+   * target class, see {@link #getTargetClass(Class)}.
    * 
    * @param clazz
    *          Class that is going to be checked.
@@ -313,22 +1275,67 @@ public final class GenericsUtils {
     if (clazz == null) {
       throw new NullPointerException("The class argument is mandatory.");
     }
+    if (clazzType == null) {
+      return clazz;
+    }
+    if (clazz.isArray()) {
+      return getArrayClass(clazz, clazzType);
+    }
+    return ClassHierarchy.of(ProxyClasses.targetOf(clazz)).getImplementationClass(clazzType);
+  }
+
+  /**
+   * Check if the class is a subtype of the given type, that is, if the type is
+   * the class itself, one of its super classes or one of its interfaces. It
+   * has the same result of <code>type.isAssignableFrom(clazz)</code>, but the
+   * hierarchy of each class is computed only once, so after the first call it
+   * is a constant time lookup.
+   * 
+   * @param clazz
+   *          Class that is going to be checked.
+   * @param type
+   *          Class or interface.
+   * @return <code>true</code> if the class is a subtype of the type.
+   * @throws NullPointerException
+   *           Throw it if one of the classes is null.
+   */
+  public static boolean isSubtype(final Class<?> clazz, Class<?> type) {
+    if (clazz == null) {
+      throw new NullPointerException("The class argument is mandatory.");
+    }
+    if (type == null) {
+      throw new NullPointerException("The type argument is mandatory.");
+    }
+    if (clazz.isArray()) {
+      return type.isAssignableFrom(clazz);
+    }
+    return ClassHierarchy.of(clazz).isSubtypeOf(type);
+  }
 
+  /**
+   * Recursive version of {@link #getClass(Class, Class)}, used for the array
+   * classes, that are covariant and so are not indexed.
+   * 
+   * @param clazz
+   *          Class that is going to be checked.
+   * @param clazzType
+   *          Type of the class that will be checked.
+   * @return The implementation class.
+   */
+  private static Class<?> getArrayClass(final Class<?> clazz, Class<?> clazzType) {
     Class<?> retClass = null;
 
-    if (clazzType == null || clazzType.isAssignableFrom(clazz)) {
+    if (clazzType.isAssignableFrom(clazz)) {
       retClass = clazz;
     }
 
-    if (clazzType != null) {
-      if (clazz.getSuperclass() != null) {
-        Class<?> checkedClass = null;
-        checkedClass = getClass(clazz.getSuperclass(), clazzType);
-        if (checkedClass != null) {
-          retClass = checkedClass;
-        } else if (clazz.isAssignableFrom(clazzType)) {
-          retClass = checkedClass;
-        }
+    if (clazz.getSuperclass() != null) {
+      Class<?> checkedClass = null;
+      checkedClass = getArrayClass(clazz.getSuperclass(), clazzType);
+      if (checkedClass != null) {
+        retClass = checkedClass;
+      } else if (clazz.isAssignableFrom(clazzType)) {
+        retClass = checkedClass;
       }
     }
     return retClass;
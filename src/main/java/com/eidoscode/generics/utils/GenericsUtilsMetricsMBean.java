@@ -0,0 +1,152 @@
+package com.eidoscode.generics.utils;
+
+/**
+ * Metrics of {@link GenericsUtils}, registered on the platform MBean server as
+ * <code>com.eidoscode.generics.utils:type=GenericsUtils</code> when the
+ * metrics are enabled by the system property
+ * <code>com.eidoscode.generics.utils.metrics=true</code>. <br/>
+ * All the times are in nanoseconds. The latency histograms have one bucket for
+ * each power of two of nanoseconds: the bucket <code>i</code> counts the calls
+ * that took from <code>2^(i-1)</code> to <code>2^i - 1</code> nanoseconds.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public interface GenericsUtilsMetricsMBean {
+
+  /**
+   * @return Number of calls of {@link GenericsUtils#copyContent(Object, Object)}.
+   */
+  long getCopyContentCount();
+
+  /**
+   * @return Number of calls of {@link GenericsUtils#copyContent(Object, Object)}
+   *         that threw an exception.
+   */
+  long getCopyContentFailureCount();
+
+  /**
+   * @return Total time spent on {@link GenericsUtils#copyContent(Object, Object)}.
+   */
+  long getCopyContentTotalNanos();
+
+  /**
+   * @return Time of the slowest call of
+   *         {@link GenericsUtils#copyContent(Object, Object)}.
+   */
+  long getCopyContentMaxNanos();
+
+  /**
+   * @return Latency histogram of
+   *         {@link GenericsUtils#copyContent(Object, Object)}.
+   */
+  long[] getCopyContentLatencyHistogram();
+
+  /**
+   * @return Number of calls of
+   *         {@link GenericsUtils#getSuperClassGenericType(Class, Class, int, java.lang.reflect.Type...)}.
+   */
+  long getSuperClassGenericTypeCount();
+
+  /**
+   * @return Number of calls of
+   *         {@link GenericsUtils#getSuperClassGenericType(Class, Class, int, java.lang.reflect.Type...)}
+   *         that threw an exception.
+   */
+  long getSuperClassGenericTypeFailureCount();
+
+  /**
+   * @return Total time spent on
+   *         {@link GenericsUtils#getSuperClassGenericType(Class, Class, int, java.lang.reflect.Type...)}.
+   */
+  long getSuperClassGenericTypeTotalNanos();
+
+  /**
+   * @return Time of the slowest call of
+   *         {@link GenericsUtils#getSuperClassGenericType(Class, Class, int, java.lang.reflect.Type...)}.
+   */
+  long getSuperClassGenericTypeMaxNanos();
+
+  /**
+   * @return Latency histogram of
+   *         {@link GenericsUtils#getSuperClassGenericType(Class, Class, int, java.lang.reflect.Type...)}.
+   */
+  long[] getSuperClassGenericTypeLatencyHistogram();
+
+  /**
+   * @return Number of copy plans found on the cache.
+   */
+  long getCopyPlanCacheHits();
+
+  /**
+   * @return Number of copy plans that had to be computed.
+   */
+  long getCopyPlanCacheMisses();
+
+  /**
+   * @return Number of cached copy and mapping plans.
+   */
+  int getCopyPlanCacheSize();
+
+  /**
+   * @return Number of resolved type arguments found on the cache.
+   */
+  long getTypeResolverCacheHits();
+
+  /**
+   * @return Number of type arguments that had to be resolved.
+   */
+  long getTypeResolverCacheMisses();
+
+  /**
+   * @return Number of cached resolved type arguments.
+   */
+  int getTypeResolverCacheSize();
+
+  /**
+   * @return Number of cached canonical types.
+   */
+  int getCanonicalTypeCacheSize();
+
+  /**
+   * @return Number of cached class hierarchies.
+   */
+  int getClassHierarchyCacheSize();
+
+  /**
+   * @return Number of cached target classes of proxy classes.
+   */
+  int getProxyClassCacheSize();
+
+  /**
+   * @return Number of cached row mappers.
+   */
+  int getRowMapperCacheSize();
+
+  /**
+   * @return Number of cached field codecs.
+   */
+  int getFieldCodecCacheSize();
+
+  /**
+   * @return Number of calls slower than the threshold.
+   */
+  long getSlowCallCount();
+
+  /**
+   * @return Time, in milliseconds, above which a call is logged as slow.
+   */
+  long getSlowCallThresholdMillis();
+
+  /**
+   * @param thresholdMillis
+   *          Time, in milliseconds, above which a call is logged as slow.
+   */
+  void setSlowCallThresholdMillis(long thresholdMillis);
+
+  /**
+   * Set all the counters and histograms to zero. The caches are not changed.
+   */
+  void reset();
+}
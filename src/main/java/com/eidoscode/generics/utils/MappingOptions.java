@@ -0,0 +1,286 @@
+package com.eidoscode.generics.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of the mapping between unrelated classes (see
+ * {@link GenericsUtils#mapContent(Object, Object, MappingOptions)}). <br/>
+ * The options are immutable: each method returns new options, starting from
+ * {@link #DEFAULT}, for example:<br/>
+ * <code>
+ * <pre>
+ * private static final MappingOptions OPTIONS = MappingOptions.DEFAULT.withFieldName("createdAt", "creationDate").withConverter(Money.class,
+ *     String.class, new MoneyFormatter());
+ * </pre>
+ * </code> The whole mapping of each pair of classes is compiled into a cached
+ * plan, by options. The options are compared by value and the converters by
+ * identity. <br/>
+ * <b>Keep the options on constants.</b> Options created on each call, for
+ * example with a new converter instance, are distinct keys of the cache: only
+ * the first 256 distinct options
+ * (<code>-Dcom.eidoscode.generics.utils.mappingOptionsLimit</code>) have their
+ * plans cached, the mapping with the other ones is compiled again on every
+ * call.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class MappingOptions {
+
+  /**
+   * Options that match the fields by name, ignore the source fields without a
+   * destination field and use only the built in conversions.
+   */
+  public static final MappingOptions DEFAULT = new MappingOptions(FieldFilter.ALL, Collections.<String, String> emptyMap(),
+      Collections.<String> emptySet(), Collections.<ConverterEntry> emptyList(), false);
+
+  private final FieldFilter filter;
+  private final Map<String, String> fieldNames;
+  private final Set<String> ignoredFields;
+  private final List<ConverterEntry> converters;
+  private final boolean strict;
+  private final int hash;
+
+  /**
+   * Constructor.
+   */
+  private MappingOptions(FieldFilter filter, Map<String, String> fieldNames, Set<String> ignoredFields, List<ConverterEntry> converters,
+      boolean strict) {
+    this.filter = filter;
+    this.fieldNames = fieldNames;
+    this.ignoredFields = ignoredFields;
+    this.converters = converters;
+    this.strict = strict;
+    int value = filter.hashCode();
+    value = 31 * value + fieldNames.hashCode();
+    value = 31 * value + ignoredFields.hashCode();
+    value = 31 * value + converters.hashCode();
+    value = 31 * value + (strict ? 1 : 0);
+    this.hash = value;
+  }
+
+  /**
+   * Map the source field to a destination field with another name.
+   * 
+   * @param sourceField
+   *          Name of the source field.
+   * @param destinationField
+   *          Name of the destination field.
+   * @return The new options.
+   */
+  public MappingOptions withFieldName(String sourceField, String destinationField) {
+    if (sourceField == null) {
+      throw new NullPointerException("The sourceField parameter is mandatory");
+    }
+    if (destinationField == null) {
+      throw new NullPointerException("The destinationField parameter is mandatory");
+    }
+    final Map<String, String> names = new HashMap<String, String>(fieldNames);
+    names.put(sourceField, destinationField);
+    return new MappingOptions(filter, Collections.unmodifiableMap(names), ignoredFields, converters, strict);
+  }
+
+  /**
+   * Don't write the given fields of the destination.
+   * 
+   * @param destinationFields
+   *          Names of the destination fields.
+   * @return The new options.
+   */
+  public MappingOptions withIgnoredFields(String... destinationFields) {
+    final Set<String> ignored = new HashSet<String>(ignoredFields);
+    for (String field : destinationFields) {
+      if (field == null) {
+        throw new NullPointerException("The destinationFields parameter can not contain null values");
+      }
+      ignored.add(field);
+    }
+    return new MappingOptions(filter, fieldNames, Collections.unmodifiableSet(ignored), converters, strict);
+  }
+
+  /**
+   * Map only the source fields selected by the filter.
+   * 
+   * @param sourceFilter
+   *          Selection of the source fields.
+   * @return The new options.
+   */
+  public MappingOptions withFilter(FieldFilter sourceFilter) {
+    if (sourceFilter == null) {
+      throw new NullPointerException("The sourceFilter parameter is mandatory");
+    }
+    return new MappingOptions(sourceFilter, fieldNames, ignoredFields, converters, strict);
+  }
+
+  /**
+   * Register a converter. It is used for the source fields whose type is the
+   * source type or one of its subtypes (the primitive types are handled as
+   * their wrappers) when the destination field type is the destination type or
+   * one of its super types. The converters registered later have precedence,
+   * and all of them have precedence over the built in conversions.
+   * 
+   * @param sourceType
+   *          Source type.
+   * @param destinationType
+   *          Destination type.
+   * @param converter
+   *          Converter.
+   * @return The new options.
+   */
+  public <S, D> MappingOptions withConverter(Class<S> sourceType, Class<D> destinationType, TypeConverter<? super S, ? extends D> converter) {
+    if (sourceType == null) {
+      throw new NullPointerException("The sourceType parameter is mandatory");
+    }
+    if (destinationType == null) {
+      throw new NullPointerException("The destinationType parameter is mandatory");
+    }
+    if (converter == null) {
+      throw new NullPointerException("The converter parameter is mandatory");
+    }
+    final List<ConverterEntry> entries = new ArrayList<ConverterEntry>(converters.size() + 1);
+    entries.add(new ConverterEntry(Converters.wrap(sourceType), Converters.wrap(destinationType), converter));
+    entries.addAll(converters);
+    return new MappingOptions(filter, fieldNames, ignoredFields, Collections.unmodifiableList(entries), strict);
+  }
+
+  /**
+   * Throw a {@link NoSuchFieldException} when a selected source field doesn't
+   * have a destination field, instead of ignoring it.
+   * 
+   * @return The new options.
+   */
+  public MappingOptions strict() {
+    return new MappingOptions(filter, fieldNames, ignoredFields, converters, true);
+  }
+
+  FieldFilter getFilter() {
+    return filter;
+  }
+
+  /**
+   * Return the name of the destination field of a source field.
+   * 
+   * @param sourceField
+   *          Name of the source field.
+   * @return The name of the destination field.
+   */
+  String getDestinationName(String sourceField) {
+    final String name = fieldNames.get(sourceField);
+    return name == null ? sourceField : name;
+  }
+
+  boolean isIgnored(String destinationField) {
+    return ignoredFields.contains(destinationField);
+  }
+
+  boolean isStrict() {
+    return strict;
+  }
+
+  /**
+   * Look for a registered converter.
+   * 
+   * @param sourceType
+   *          Type of the source field, already wrapped.
+   * @param destinationType
+   *          Type of the destination field, already wrapped.
+   * @return The converter or <code>null</code> if there is none.
+   */
+  TypeConverter<Object, Object> findConverter(Class<?> sourceType, Class<?> destinationType) {
+    for (ConverterEntry entry : converters) {
+      if (entry.sourceType.isAssignableFrom(sourceType) && destinationType.isAssignableFrom(entry.destinationType)) {
+        return entry.converter;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check if the options reference a class loaded by the given class loader or
+   * by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   * @return <code>true</code> if the filter, one of the converters or their
+   *         types belong to the class loader.
+   */
+  boolean references(ClassLoader classLoader) {
+    if (filter.references(classLoader)) {
+      return true;
+    }
+    for (ConverterEntry entry : converters) {
+      if (ClassPairCache.isLoadedBy(entry.sourceType, classLoader) || ClassPairCache.isLoadedBy(entry.destinationType, classLoader)
+          || ClassPairCache.isLoadedBy(entry.converter.getClass(), classLoader)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof MappingOptions)) {
+      return false;
+    }
+    final MappingOptions other = (MappingOptions) obj;
+    return hash == other.hash && strict == other.strict && filter.equals(other.filter) && fieldNames.equals(other.fieldNames)
+        && ignoredFields.equals(other.ignoredFields) && converters.equals(other.converters);
+  }
+
+  @Override
+  public String toString() {
+    return "MappingOptions[filter=" + filter + ", fieldNames=" + fieldNames + ", ignoredFields=" + ignoredFields + ", converters="
+        + converters + ", strict=" + strict + "]";
+  }
+
+  /**
+   * Registered converter.
+   */
+  private static final class ConverterEntry {
+
+    private final Class<?> sourceType;
+    private final Class<?> destinationType;
+    private final TypeConverter<Object, Object> converter;
+
+    @SuppressWarnings("unchecked")
+    ConverterEntry(Class<?> sourceType, Class<?> destinationType, TypeConverter<?, ?> converter) {
+      this.sourceType = sourceType;
+      this.destinationType = destinationType;
+      this.converter = (TypeConverter<Object, Object>) converter;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * sourceType.hashCode() + destinationType.hashCode()) + System.identityHashCode(converter);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ConverterEntry)) {
+        return false;
+      }
+      final ConverterEntry other = (ConverterEntry) obj;
+      return sourceType == other.sourceType && destinationType == other.destinationType && converter == other.converter;
+    }
+
+    @Override
+    public String toString() {
+      return sourceType.getName() + "->" + destinationType.getName();
+    }
+  }
+}
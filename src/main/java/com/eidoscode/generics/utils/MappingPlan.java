@@ -0,0 +1,349 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Precompiled mapping between the fields of two unrelated classes. <br/>
+ * The fields are matched by name (or by the names given on the options), and
+ * for each pair the conversion is chosen only once: the fields of the same
+ * type are copied directly and the other ones through a converter. The plans
+ * are cached by options and then by source and destination class. At most
+ * {@link #OPTIONS_LIMIT} distinct options are cached: the plans of the options
+ * created after that are computed on each call.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class MappingPlan {
+
+  /**
+   * Kind of the fields that are copied through a converter.
+   */
+  private static final int CONVERT = -1;
+
+  /**
+   * System property used to change the maximum number of distinct options whose
+   * plans are cached.
+   */
+  static final String OPTIONS_LIMIT_PROPERTY = "com.eidoscode.generics.utils.mappingOptionsLimit";
+
+  /**
+   * Maximum number of distinct options whose plans are cached.
+   */
+  static final int OPTIONS_LIMIT = Integer.getInteger(OPTIONS_LIMIT_PROPERTY, 256).intValue();
+
+  private static final Logger LOGGER = Logger.getLogger(GenericsUtils.class);
+
+  /**
+   * If the warning about the options that are not cached was already logged.
+   */
+  private static final AtomicBoolean LIMIT_WARNED = new AtomicBoolean();
+
+  private static final ConcurrentMap<MappingOptions, ClassPairCache<MappingPlan>> CACHE = new ConcurrentHashMap<MappingOptions, ClassPairCache<MappingPlan>>();
+
+  private final Class<?> destinationClass;
+  private final FieldAccessor[] sources;
+  private final FieldAccessor[] destinations;
+  private final int[] kinds;
+  private final TypeConverter<Object, Object>[] converters;
+  private final Class<?>[] destinationTypes;
+  private volatile Constructor<?> constructor;
+
+  /**
+   * Constructor.
+   * 
+   * @param destinationClass
+   *          Destination class.
+   * @param sources
+   *          Accessors of the source fields.
+   * @param destinations
+   *          Accessors of the destination fields, on the same order.
+   * @param kinds
+   *          Kind of the copy of each field.
+   * @param converters
+   *          Converter of each field, or <code>null</code> for the fields
+   *          copied directly.
+   * @param destinationTypes
+   *          Wrapped type of each destination field.
+   */
+  private MappingPlan(Class<?> destinationClass, FieldAccessor[] sources, FieldAccessor[] destinations, int[] kinds,
+      TypeConverter<Object, Object>[] converters, Class<?>[] destinationTypes) {
+    this.destinationClass = destinationClass;
+    this.sources = sources;
+    this.destinations = destinations;
+    this.kinds = kinds;
+    this.converters = converters;
+    this.destinationTypes = destinationTypes;
+  }
+
+  /**
+   * Return the mapping plan of the given pair of classes. If it wasn't
+   * computed yet it is computed and cached, unless the cache already has
+   * {@link #OPTIONS_LIMIT} other options.
+   * 
+   * @param sourceClass
+   *          Source class.
+   * @param destinationClass
+   *          Destination class.
+   * @param options
+   *          Mapping options.
+   * @return The mapping plan.
+   * @throws NoSuchFieldException
+   *           Throw if the options are strict and one of the source fields
+   *           doesn't exist on the destination class.
+   */
+  static MappingPlan get(Class<?> sourceClass, Class<?> destinationClass, MappingOptions options) throws NoSuchFieldException {
+    ClassPairCache<MappingPlan> cache = CACHE.get(options);
+    if (cache == null) {
+      if (CACHE.size() >= OPTIONS_LIMIT) {
+        if (LIMIT_WARNED.compareAndSet(false, true)) {
+          LOGGER.warn("More than " + OPTIONS_LIMIT + " distinct MappingOptions were used, the mapping plans of the new ones are not "
+              + "cached. Keep the options on constants instead of creating them on each call.");
+        }
+        return build(sourceClass, destinationClass, options);
+      }
+      cache = new ClassPairCache<MappingPlan>();
+      final ClassPairCache<MappingPlan> existing = CACHE.putIfAbsent(options, cache);
+      if (existing != null) {
+        cache = existing;
+      }
+    }
+    final MappingPlan plan = cache.get(sourceClass, destinationClass);
+    if (plan != null) {
+      return plan;
+    }
+    return cache.putIfAbsent(sourceClass, destinationClass, build(sourceClass, destinationClass, options));
+  }
+
+  /**
+   * Compute the plan of the given pair of classes.
+   * 
+   * @param sourceClass
+   *          Source class.
+   * @param destinationClass
+   *          Destination class.
+   * @param options
+   *          Mapping options.
+   * @return The mapping plan.
+   * @throws NoSuchFieldException
+   *           Throw if the options are strict and one of the source fields
+   *           doesn't exist on the destination class.
+   */
+  @SuppressWarnings("unchecked")
+  private static MappingPlan build(Class<?> sourceClass, Class<?> destinationClass, MappingOptions options) throws NoSuchFieldException {
+    final List<Field> sFields = new ArrayList<Field>();
+    final List<Field> dFields = new ArrayList<Field>();
+    final Set<Field> mapped = new HashSet<Field>();
+    for (Class<?> current = sourceClass; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field sField : current.getDeclaredFields()) {
+        if (GenericsUtils.checkModifierMask(sField, false, Modifier.STATIC) || !options.getFilter().accept(sField)) {
+          continue;
+        }
+        final String name = options.getDestinationName(sField.getName());
+        if (options.isIgnored(name)) {
+          continue;
+        }
+        final Field dField = findField(destinationClass, name);
+        if (dField == null) {
+          if (options.isStrict()) {
+            throw new NoSuchFieldException(name);
+          }
+          continue;
+        }
+        // A field hidden by a subclass field with the same name is not mapped
+        if (mapped.add(dField)) {
+          sFields.add(sField);
+          dFields.add(dField);
+        }
+      }
+    }
+    final int size = sFields.size();
+    final FieldAccessor[] sources = new FieldAccessor[size];
+    final FieldAccessor[] destinations = new FieldAccessor[size];
+    final int[] kinds = new int[size];
+    final TypeConverter<Object, Object>[] converters = new TypeConverter[size];
+    final Class<?>[] destinationTypes = new Class<?>[size];
+    for (int i = 0; i < size; i++) {
+      final Field sField = sFields.get(i);
+      final Field dField = dFields.get(i);
+      final Class<?> sType = sField.getType();
+      final Class<?> dType = dField.getType();
+      sources[i] = FieldAccessor.of(sField);
+      destinations[i] = FieldAccessor.of(dField);
+      destinationTypes[i] = Converters.wrap(dType);
+      converters[i] = options.findConverter(Converters.wrap(sType), destinationTypes[i]);
+      if (converters[i] == null && (sType.isPrimitive() ? sType == dType : !dType.isPrimitive() && dType.isAssignableFrom(sType))) {
+        kinds[i] = destinations[i].getKind();
+        continue;
+      }
+      if (converters[i] == null) {
+        converters[i] = Converters.find(Converters.wrap(sType), destinationTypes[i]);
+      }
+      if (converters[i] == null) {
+        throw new IllegalArgumentException("There is no conversion from " + sType.getName() + " to " + dType.getName() + " for the field "
+            + dField.getDeclaringClass().getName() + "." + dField.getName());
+      }
+      kinds[i] = CONVERT;
+    }
+    return new MappingPlan(destinationClass, sources, destinations, kinds, converters, destinationTypes);
+  }
+
+  /**
+   * Look for an instance field by name on the hierarchy of a class.
+   * 
+   * @param clazz
+   *          Class.
+   * @param name
+   *          Name of the field.
+   * @return The field or <code>null</code> if it doesn't exist.
+   */
+  private static Field findField(Class<?> clazz, String name) {
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(name) && !GenericsUtils.checkModifierMask(field, false, Modifier.STATIC)) {
+          return field;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Map the content of the source object to the destination object.
+   * 
+   * @param source
+   *          Source object.
+   * @param destination
+   *          Destination object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the source or
+   *           destination fields.
+   */
+  void map(Object source, Object destination) throws IllegalAccessException {
+    for (int i = 0; i < kinds.length; i++) {
+      final FieldAccessor s = sources[i];
+      final FieldAccessor d = destinations[i];
+      switch (kinds[i]) {
+      case FieldAccessor.OBJECT:
+        d.setObject(destination, s.getObject(source));
+        break;
+      case FieldAccessor.BOOLEAN:
+        d.setBoolean(destination, s.getBoolean(source));
+        break;
+      case FieldAccessor.BYTE:
+        d.setByte(destination, s.getByte(source));
+        break;
+      case FieldAccessor.CHAR:
+        d.setChar(destination, s.getChar(source));
+        break;
+      case FieldAccessor.SHORT:
+        d.setShort(destination, s.getShort(source));
+        break;
+      case FieldAccessor.INT:
+        d.setInt(destination, s.getInt(source));
+        break;
+      case FieldAccessor.LONG:
+        d.setLong(destination, s.getLong(source));
+        break;
+      case FieldAccessor.FLOAT:
+        d.setFloat(destination, s.getFloat(source));
+        break;
+      case FieldAccessor.DOUBLE:
+        d.setDouble(destination, s.getDouble(source));
+        break;
+      default:
+        final Object value = s.get(source);
+        final Object converted = value == null ? null : converters[i].convert(value);
+        if (converted == null) {
+          // The primitive fields are left unchanged
+          if (d.getKind() == FieldAccessor.OBJECT) {
+            d.setObject(destination, null);
+          }
+        } else if (destinationTypes[i].isInstance(converted)) {
+          d.set(destination, converted);
+        } else {
+          throw new ClassCastException("The converter of the field " + d.getField().getName() + " returned " + converted.getClass().getName()
+              + " instead of " + destinationTypes[i].getName());
+        }
+        break;
+      }
+    }
+  }
+
+  /**
+   * Create a new instance of the destination class, using its constructor
+   * without parameters.
+   * 
+   * @return The new instance.
+   * @throws IllegalAccessException
+   *           Throw if the constructor is not accessible.
+   * @throws InstantiationException
+   *           Throw if the class doesn't have a constructor without parameters
+   *           or if it fails.
+   */
+  Object newDestination() throws IllegalAccessException, InstantiationException {
+    Constructor<?> current = constructor;
+    if (current == null) {
+      try {
+        current = destinationClass.getDeclaredConstructor();
+        current.setAccessible(true);
+      } catch (NoSuchMethodException e) {
+        throw (InstantiationException) new InstantiationException(destinationClass.getName()).initCause(e);
+      }
+      constructor = current;
+    }
+    return BulkCopier.newInstance(current);
+  }
+
+  /**
+   * Return the number of cached plans.
+   * 
+   * @return The number of plans.
+   */
+  static int size() {
+    int size = 0;
+    for (ClassPairCache<MappingPlan> cache : CACHE.values()) {
+      size += cache.size();
+    }
+    return size;
+  }
+
+  /**
+   * Remove all the cached plans.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Remove the cached plans of the classes loaded by the given class loader or
+   * by one of its children, and the options that reference them.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    for (Iterator<Map.Entry<MappingOptions, ClassPairCache<MappingPlan>>> i = CACHE.entrySet().iterator(); i.hasNext();) {
+      final Map.Entry<MappingOptions, ClassPairCache<MappingPlan>> entry = i.next();
+      if (entry.getKey().references(classLoader)) {
+        i.remove();
+      } else {
+        entry.getValue().clear(classLoader);
+      }
+    }
+  }
+}
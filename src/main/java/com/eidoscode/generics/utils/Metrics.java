@@ -0,0 +1,299 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Optional instrumentation of {@link GenericsUtils}. <br/>
+ * It is enabled by the system property
+ * <code>com.eidoscode.generics.utils.metrics=true</code>. The flag is a
+ * constant, so when it is disabled the instrumented code is removed by the JIT
+ * compiler. When it is enabled the metrics are registered on the platform
+ * MBean server (see {@link GenericsUtilsMetricsMBean}) and the calls slower
+ * than <code>com.eidoscode.generics.utils.metrics.slowThreshold</code>
+ * milliseconds (default 10) are logged as warnings. <br/>
+ * The slow calls are not emitted as JFR events: the <code>jdk.jfr</code> API
+ * exists only from Java 11, and the versioned classes of the jar target Java 9.
+ * <br/>
+ * The MBean is unregistered by {@link GenericsUtils#clearCache(ClassLoader)}
+ * when this library was loaded by the undeployed class loader.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class Metrics implements GenericsUtilsMetricsMBean {
+
+  /**
+   * System property used to enable the metrics.
+   */
+  static final String PROPERTY = "com.eidoscode.generics.utils.metrics";
+
+  /**
+   * System property with the slow call threshold, in milliseconds.
+   */
+  static final String SLOW_THRESHOLD_PROPERTY = PROPERTY + ".slowThreshold";
+
+  /**
+   * Name of the MBean.
+   */
+  static final String OBJECT_NAME = "com.eidoscode.generics.utils:type=GenericsUtils";
+
+  /**
+   * Flag that enables the metrics.
+   */
+  static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+  static final OperationMetrics COPY_CONTENT = new OperationMetrics("copyContent");
+  static final OperationMetrics SUPER_CLASS_GENERIC_TYPE = new OperationMetrics("getSuperClassGenericType");
+
+  static final Counter COPY_PLAN_HITS = new Counter();
+  static final Counter COPY_PLAN_MISSES = new Counter();
+  static final Counter TYPE_RESOLVER_HITS = new Counter();
+  static final Counter TYPE_RESOLVER_MISSES = new Counter();
+
+  private static final Logger LOGGER = Logger.getLogger(GenericsUtils.class);
+
+  private static final Counter SLOW_CALLS = new Counter();
+
+  private static volatile long slowThresholdNanos = Long.getLong(SLOW_THRESHOLD_PROPERTY, 10L).longValue() * 1000000L;
+
+  /**
+   * Instance registered on the MBean server, or <code>null</code> if the
+   * metrics are disabled.
+   */
+  static final Metrics INSTANCE = ENABLED ? register(new Metrics()) : null;
+
+  /**
+   * Name that the instance was registered with, or <code>null</code> if it is
+   * not registered.
+   */
+  private volatile ObjectName name;
+
+  /**
+   * Hide constructor.
+   */
+  private Metrics() {
+  }
+
+  /**
+   * Register the metrics on the platform MBean server. If there is already an
+   * instance registered with the same name, from another class loader, the
+   * identity of the class loader is added to the name.
+   * 
+   * @param metrics
+   *          Metrics to be registered.
+   * @return The same metrics.
+   */
+  private static Metrics register(Metrics metrics) {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final StandardMBean mbean = new StandardMBean(metrics, GenericsUtilsMetricsMBean.class);
+      try {
+        metrics.name = server.registerMBean(mbean, new ObjectName(OBJECT_NAME)).getObjectName();
+      } catch (InstanceAlreadyExistsException e) {
+        metrics.name = server.registerMBean(mbean,
+            new ObjectName(OBJECT_NAME + ",loader=" + Integer.toHexString(System.identityHashCode(Metrics.class.getClassLoader())))).getObjectName();
+      }
+    } catch (JMException e) {
+      LOGGER.warn("Unable to register the GenericsUtils metrics on the MBean server", e);
+    } catch (SecurityException e) {
+      LOGGER.warn("Unable to register the GenericsUtils metrics on the MBean server", e);
+    }
+    return metrics;
+  }
+
+  /**
+   * Unregister the metrics from the platform MBean server if this class was
+   * loaded by the given class loader or by one of its children, so the MBean
+   * server doesn't keep the class loader of an undeployed application.
+   * 
+   * @param classLoader
+   *          Class loader of the undeployed application.
+   * @return <code>true</code> if the metrics were unregistered.
+   */
+  static boolean unregister(ClassLoader classLoader) {
+    final Metrics metrics = INSTANCE;
+    if (metrics == null || metrics.name == null || !ClassPairCache.isLoadedBy(Metrics.class, classLoader)) {
+      return false;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(metrics.name);
+    } catch (InstanceNotFoundException e) {
+      // Already unregistered by someone else
+    } catch (JMException e) {
+      LOGGER.warn("Unable to unregister the GenericsUtils metrics from the MBean server", e);
+      return false;
+    } catch (SecurityException e) {
+      LOGGER.warn("Unable to unregister the GenericsUtils metrics from the MBean server", e);
+      return false;
+    }
+    metrics.name = null;
+    return true;
+  }
+
+  /**
+   * Log the call if it was slower than the threshold.
+   * 
+   * @param operation
+   *          Name of the operation.
+   * @param elapsed
+   *          Time of the call, in nanoseconds.
+   * @param first
+   *          First argument of the call.
+   * @param second
+   *          Second argument of the call.
+   */
+  static void checkSlowCall(String operation, long elapsed, Object first, Object second) {
+    if (elapsed < slowThresholdNanos) {
+      return;
+    }
+    SLOW_CALLS.increment();
+    if (LOGGER.isEnabledFor(Level.WARN)) {
+      LOGGER.warn("Slow " + operation + " call (" + first + ", " + second + "): " + (elapsed / 1000L) + " us");
+    }
+  }
+
+  @Override
+  public long getCopyContentCount() {
+    return COPY_CONTENT.getCalls();
+  }
+
+  @Override
+  public long getCopyContentFailureCount() {
+    return COPY_CONTENT.getFailures();
+  }
+
+  @Override
+  public long getCopyContentTotalNanos() {
+    return COPY_CONTENT.getTotalNanos();
+  }
+
+  @Override
+  public long getCopyContentMaxNanos() {
+    return COPY_CONTENT.getMaxNanos();
+  }
+
+  @Override
+  public long[] getCopyContentLatencyHistogram() {
+    return COPY_CONTENT.getHistogram();
+  }
+
+  @Override
+  public long getSuperClassGenericTypeCount() {
+    return SUPER_CLASS_GENERIC_TYPE.getCalls();
+  }
+
+  @Override
+  public long getSuperClassGenericTypeFailureCount() {
+    return SUPER_CLASS_GENERIC_TYPE.getFailures();
+  }
+
+  @Override
+  public long getSuperClassGenericTypeTotalNanos() {
+    return SUPER_CLASS_GENERIC_TYPE.getTotalNanos();
+  }
+
+  @Override
+  public long getSuperClassGenericTypeMaxNanos() {
+    return SUPER_CLASS_GENERIC_TYPE.getMaxNanos();
+  }
+
+  @Override
+  public long[] getSuperClassGenericTypeLatencyHistogram() {
+    return SUPER_CLASS_GENERIC_TYPE.getHistogram();
+  }
+
+  @Override
+  public long getCopyPlanCacheHits() {
+    return COPY_PLAN_HITS.get();
+  }
+
+  @Override
+  public long getCopyPlanCacheMisses() {
+    return COPY_PLAN_MISSES.get();
+  }
+
+  @Override
+  public int getCopyPlanCacheSize() {
+    return CopyPlan.size() + MappingPlan.size();
+  }
+
+  @Override
+  public long getTypeResolverCacheHits() {
+    return TYPE_RESOLVER_HITS.get();
+  }
+
+  @Override
+  public long getTypeResolverCacheMisses() {
+    return TYPE_RESOLVER_MISSES.get();
+  }
+
+  @Override
+  public int getTypeResolverCacheSize() {
+    return TypeResolver.CACHE.size();
+  }
+
+  @Override
+  public int getCanonicalTypeCacheSize() {
+    return Types.size();
+  }
+
+  @Override
+  public int getClassHierarchyCacheSize() {
+    return ClassHierarchy.size();
+  }
+
+  @Override
+  public int getProxyClassCacheSize() {
+    return ProxyClasses.size();
+  }
+
+  @Override
+  public int getRowMapperCacheSize() {
+    return RowMapper.size();
+  }
+
+  @Override
+  public int getFieldCodecCacheSize() {
+    return FieldCodec.size();
+  }
+
+  @Override
+  public long getSlowCallCount() {
+    return SLOW_CALLS.get();
+  }
+
+  @Override
+  public long getSlowCallThresholdMillis() {
+    return slowThresholdNanos / 1000000L;
+  }
+
+  @Override
+  public void setSlowCallThresholdMillis(long thresholdMillis) {
+    if (thresholdMillis < 0) {
+      throw new IllegalArgumentException("The threshold can not be less than 0.");
+    }
+    slowThresholdNanos = thresholdMillis * 1000000L;
+  }
+
+  @Override
+  public void reset() {
+    COPY_CONTENT.reset();
+    SUPER_CLASS_GENERIC_TYPE.reset();
+    COPY_PLAN_HITS.reset();
+    COPY_PLAN_MISSES.reset();
+    TYPE_RESOLVER_HITS.reset();
+    TYPE_RESOLVER_MISSES.reset();
+    SLOW_CALLS.reset();
+  }
+}
@@ -0,0 +1,273 @@
+package com.eidoscode.generics.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool of reusable instances of a class, used as destination of the copies.
+ * <br/>
+ * The idle instances are kept on a fixed array of slots shared by all the
+ * threads, split on stripes chosen by the id of the thread. Acquiring and
+ * releasing them only compare and swap a slot, starting on the stripe of the
+ * current thread, and don't allocate. An instance released by a thread can be
+ * acquired by any other one, so the pool can be shared between producers and
+ * consumers. The copies use the cached copy plans of
+ * {@link GenericsUtils#copyContent(Object, Object)}, and the released instances
+ * are reset using the plan of the class to itself: the primitive fields are
+ * zeroed and the references are nulled, so the pool doesn't keep the copied
+ * objects alive. The final fields keep their values. <br/>
+ * If all the slots are taken the released instance is dropped.
+ * 
+ * <pre>
+ * ObjectPool&lt;Message&gt; pool = ObjectPool.of(Message.class);
+ * Message message = pool.acquire(dto);
+ * try {
+ *   handle(message);
+ * } finally {
+ *   pool.release(message);
+ * }
+ * </pre>
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ * @param <T>
+ *          Type of the pooled instances.
+ */
+public final class ObjectPool<T> {
+
+  /**
+   * Default maximum number of instances kept by the pool.
+   */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /**
+   * Number of stripes of the pools with enough capacity: the number of
+   * processors rounded up to a power of two.
+   */
+  private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+  private final Class<T> type;
+  private final int capacity;
+  private final int stripeMask;
+  private final int stripeSize;
+  private final RowMapper<T> mapper;
+  private final CopyPlan resetPlan;
+  private final AtomicReferenceArray<Object> slots;
+
+  /**
+   * Constructor.
+   * 
+   * @param type
+   *          Type of the pooled instances.
+   * @param capacity
+   *          Maximum number of instances kept by the pool.
+   * @param resetPlan
+   *          Copy plan of the type to itself.
+   */
+  private ObjectPool(Class<T> type, int capacity, CopyPlan resetPlan) {
+    final int stripes = Math.min(STRIPES, Integer.highestOneBit(capacity));
+    this.type = type;
+    this.capacity = capacity;
+    this.stripeMask = stripes - 1;
+    this.stripeSize = capacity / stripes;
+    this.mapper = RowMapper.of(type);
+    this.resetPlan = resetPlan;
+    this.slots = new AtomicReferenceArray<Object>(capacity);
+  }
+
+  /**
+   * Create a pool of the given class, keeping up to
+   * {@value #DEFAULT_CAPACITY} instances.
+   * 
+   * @param type
+   *          Type of the pooled instances. It must have a constructor without
+   *          parameters.
+   * @return The new pool.
+   * @throws NullPointerException
+   *           Throw it if the type is null.
+   */
+  public static <T> ObjectPool<T> of(Class<T> type) {
+    return of(type, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a pool of the given class.
+   * 
+   * @param type
+   *          Type of the pooled instances. It must have a constructor without
+   *          parameters.
+   * @param capacity
+   *          Maximum number of instances kept by the pool.
+   * @return The new pool.
+   * @throws NullPointerException
+   *           Throw it if the type is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the capacity is less than 1.
+   */
+  public static <T> ObjectPool<T> of(Class<T> type, int capacity) {
+    if (type == null) {
+      throw new NullPointerException("The type parameter is mandatory");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity value can not be less than 1.");
+    }
+    try {
+      return new ObjectPool<T>(type, capacity, CopyPlan.get(type, type));
+    } catch (NoSuchFieldException e) {
+      // The fields of a class always exist on the class itself
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Return the type of the pooled instances.
+   * 
+   * @return The type.
+   */
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Return the maximum number of instances kept by the pool.
+   * 
+   * @return The capacity.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Return the number of idle instances kept by the pool. While other threads
+   * use the pool the value is an estimate.
+   * 
+   * @return The number of idle instances.
+   */
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < capacity; i++) {
+      if (slots.get(i) != null) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Return an idle instance, or a new one if there isn't any. The last
+   * instances released on the stripe of the current thread are looked up
+   * first. The reused instances have the default values on their fields.
+   * 
+   * @return The instance.
+   * @throws IllegalAccessException
+   *           Throw if the constructor is not accessible.
+   * @throws InstantiationException
+   *           Throw if the class doesn't have a constructor without parameters
+   *           or if it fails.
+   */
+  public T acquire() throws IllegalAccessException, InstantiationException {
+    final int last = start() + stripeSize - 1;
+    for (int i = 0; i < capacity; i++) {
+      final int index = (last - i + capacity) % capacity;
+      final Object instance = slots.get(index);
+      if (instance != null && slots.compareAndSet(index, instance, null)) {
+        return type.cast(instance);
+      }
+    }
+    return mapper.newInstance();
+  }
+
+  /**
+   * Return an instance as {@link #acquire()} does, with the content of the
+   * source copied into it as {@link GenericsUtils#copyContent(Object, Object)}
+   * does. If the copy fails the instance is released.
+   * 
+   * @param source
+   *          Source object.
+   * @return The instance.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields or the
+   *           constructor.
+   * @throws InstantiationException
+   *           Throw if the class doesn't have a constructor without parameters
+   *           or if it fails.
+   * @throws NoSuchFieldException
+   *           Throw if one of the source fields doesn't exist on the pooled
+   *           class.
+   * @throws NullPointerException
+   *           Throw it if the source is null.
+   */
+  public T acquire(Object source) throws IllegalAccessException, InstantiationException, NoSuchFieldException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    final CopyPlan plan = CopyPlan.get(source.getClass(), type);
+    final T instance = acquire();
+    boolean completed = false;
+    try {
+      plan.copy(source, instance);
+      completed = true;
+    } finally {
+      if (!completed) {
+        release(instance);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Reset the fields of the instance and keep it for the next
+   * {@link #acquire()}. The instance must not be used after it is released.
+   * If all the slots are taken it is dropped.
+   * 
+   * @param instance
+   *          Instance of the pooled class.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws NullPointerException
+   *           Throw it if the instance is null.
+   * @throws IllegalArgumentException
+   *           Throw it if the instance is not of the pooled class.
+   * @throws IllegalStateException
+   *           Throw it if the instance is already kept by the pool.
+   */
+  public void release(T instance) throws IllegalAccessException {
+    if (instance == null) {
+      throw new NullPointerException("The instance parameter is mandatory");
+    }
+    if (instance.getClass() != type) {
+      throw new IllegalArgumentException("The instance must be of the class " + type.getName() + " and not " + instance.getClass().getName());
+    }
+    for (int i = 0; i < capacity; i++) {
+      if (slots.get(i) == instance) {
+        throw new IllegalStateException("The instance was already released");
+      }
+    }
+    resetPlan.reset(instance);
+    final int first = start();
+    for (int i = 0; i < capacity; i++) {
+      final int index = (first + i) % capacity;
+      if (slots.get(index) == null && slots.compareAndSet(index, null, instance)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Drop all the idle instances.
+   */
+  public void clear() {
+    for (int i = 0; i < capacity; i++) {
+      slots.set(i, null);
+    }
+  }
+
+  /**
+   * Return the first slot of the stripe of the current thread.
+   * 
+   * @return The index of the slot.
+   */
+  private int start() {
+    return ((int) Thread.currentThread().getId() & stripeMask) * stripeSize;
+  }
+}
@@ -0,0 +1,110 @@
+package com.eidoscode.generics.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Calls, failures and latency of an instrumented operation. <br/>
+ * The latency histogram has one bucket for each power of two of nanoseconds:
+ * the bucket <code>i</code> counts the calls that took from
+ * <code>2^(i-1)</code> to <code>2^i - 1</code> nanoseconds. The last bucket
+ * also counts all the slower calls.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class OperationMetrics {
+
+  /**
+   * Number of buckets of the histogram. The last one starts at about 9
+   * minutes.
+   */
+  static final int BUCKETS = 40;
+
+  private final String name;
+  private final Counter calls = new Counter();
+  private final Counter failures = new Counter();
+  private final Counter totalNanos = new Counter();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Constructor.
+   * 
+   * @param name
+   *          Name of the operation.
+   */
+  OperationMetrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Record a call.
+   * 
+   * @param start
+   *          Value of {@link System#nanoTime()} when the call started.
+   * @param completed
+   *          <code>false</code> if the call threw an exception.
+   * @param first
+   *          First argument of the call, used on the slow call message.
+   * @param second
+   *          Second argument of the call, used on the slow call message.
+   */
+  void record(long start, boolean completed, Object first, Object second) {
+    final long elapsed = System.nanoTime() - start;
+    calls.increment();
+    if (!completed) {
+      failures.increment();
+    }
+    totalNanos.add(elapsed);
+    histogram.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(elapsed)));
+    long max = maxNanos.get();
+    while (elapsed > max && !maxNanos.compareAndSet(max, elapsed)) {
+      max = maxNanos.get();
+    }
+    Metrics.checkSlowCall(name, elapsed, first, second);
+  }
+
+  long getCalls() {
+    return calls.get();
+  }
+
+  long getFailures() {
+    return failures.get();
+  }
+
+  long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Return a copy of the latency histogram.
+   * 
+   * @return The number of calls on each bucket.
+   */
+  long[] getHistogram() {
+    final long[] values = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      values[i] = histogram.get(i);
+    }
+    return values;
+  }
+
+  /**
+   * Set all the values to zero.
+   */
+  void reset() {
+    calls.reset();
+    failures.reset();
+    totalNanos.reset();
+    maxNanos.set(0L);
+    for (int i = 0; i < BUCKETS; i++) {
+      histogram.set(i, 0L);
+    }
+  }
+}
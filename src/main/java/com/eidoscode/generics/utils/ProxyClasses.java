@@ -0,0 +1,181 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Mapping of the proxy classes to the classes that they stand for. <br/>
+ * The subclasses generated by CGLIB (also the Spring repackaged one),
+ * Javassist, Hibernate and Byte Buddy are recognized by their names and are
+ * mapped to the first super class that is not generated. A JDK dynamic proxy
+ * class only carries its interfaces, so it is mapped to the target class
+ * registered with {@link #register(Class, Class)} or to itself. The mapping of
+ * each class is computed once and cached.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class ProxyClasses {
+
+  /**
+   * Markers of the names of the generated subclasses.
+   */
+  private static final String[] MARKERS = { "$$EnhancerByCGLIB$$", "$$EnhancerBySpringCGLIB$$", "$$SpringCGLIB$$", "$$FastClassByCGLIB$$",
+      "_$$_javassist", "_$$_jvst", "$HibernateProxy$", "$ByteBuddy$" };
+
+  private static final ConcurrentMap<Class<?>, Class<?>> CACHE = new ConcurrentHashMap<Class<?>, Class<?>>();
+  private static final ConcurrentMap<Class<?>, Class<?>> REGISTERED = new ConcurrentHashMap<Class<?>, Class<?>>();
+
+  /**
+   * Hide constructor.
+   */
+  private ProxyClasses() {
+  }
+
+  /**
+   * Return the class that the given class stands for.
+   * 
+   * @param clazz
+   *          Class.
+   * @return The target class of the proxy or the class itself if it is not a
+   *         known proxy.
+   */
+  static Class<?> targetOf(Class<?> clazz) {
+    final Class<?> target = CACHE.get(clazz);
+    if (target != null) {
+      return target;
+    }
+    final Class<?> computed = compute(clazz);
+    final Class<?> existing = CACHE.putIfAbsent(clazz, computed);
+    return existing != null ? existing : computed;
+  }
+
+  /**
+   * Compute the target class.
+   * 
+   * @param clazz
+   *          Class.
+   * @return The target class.
+   */
+  private static Class<?> compute(Class<?> clazz) {
+    final Class<?> registered = REGISTERED.get(clazz);
+    if (registered != null) {
+      return registered;
+    }
+    if (Proxy.isProxyClass(clazz)) {
+      return clazz;
+    }
+    Class<?> current = clazz;
+    while (isGenerated(current)) {
+      final Class<?> superclass = current.getSuperclass();
+      if (superclass == null || superclass == Object.class) {
+        // proxy of interfaces only
+        break;
+      }
+      current = superclass;
+    }
+    return current;
+  }
+
+  /**
+   * Check if the class is a subclass generated by one of the known proxy
+   * libraries.
+   * 
+   * @param clazz
+   *          Class.
+   * @return <code>true</code> if the name has one of the markers.
+   */
+  private static boolean isGenerated(Class<?> clazz) {
+    final String name = clazz.getName();
+    if (name.indexOf('$') < 0) {
+      return false;
+    }
+    for (String marker : MARKERS) {
+      if (name.indexOf(marker) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Register the target class of a proxy class. The type arguments already
+   * resolved for the proxy class are discarded.
+   * 
+   * @param proxyClass
+   *          Proxy class.
+   * @param targetClass
+   *          Target class.
+   */
+  static void register(Class<?> proxyClass, Class<?> targetClass) {
+    REGISTERED.put(proxyClass, targetClass);
+    CACHE.put(proxyClass, targetClass);
+    TypeResolver.CACHE.remove(proxyClass);
+  }
+
+  /**
+   * Remove the registered target class of a proxy class. The type arguments
+   * already resolved for the proxy class are discarded.
+   * 
+   * @param proxyClass
+   *          Proxy class.
+   * @return <code>true</code> if the proxy class was registered.
+   */
+  static boolean unregister(Class<?> proxyClass) {
+    final boolean registered = REGISTERED.remove(proxyClass) != null;
+    CACHE.remove(proxyClass);
+    TypeResolver.CACHE.remove(proxyClass);
+    return registered;
+  }
+
+  /**
+   * Return the number of cached mappings.
+   * 
+   * @return The number of mappings.
+   */
+  static int size() {
+    return CACHE.size();
+  }
+
+  /**
+   * Remove all the computed mappings. The registered ones are kept.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Remove the mappings, including the registered ones, where one of the
+   * classes was loaded by the given class loader or by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    clear(REGISTERED, classLoader);
+    clear(CACHE, classLoader);
+  }
+
+  /**
+   * Remove the mappings of the map where one of the classes was loaded by the
+   * given class loader or by one of its children.
+   * 
+   * @param map
+   *          Mappings.
+   * @param classLoader
+   *          Class loader.
+   */
+  private static void clear(ConcurrentMap<Class<?>, Class<?>> map, ClassLoader classLoader) {
+    for (Iterator<Map.Entry<Class<?>, Class<?>>> i = map.entrySet().iterator(); i.hasNext();) {
+      final Map.Entry<Class<?>, Class<?>> entry = i.next();
+      if (ClassPairCache.isLoadedBy(entry.getKey(), classLoader) || ClassPairCache.isLoadedBy(entry.getValue(), classLoader)) {
+        i.remove();
+        TypeResolver.CACHE.remove(entry.getKey());
+      }
+    }
+  }
+}
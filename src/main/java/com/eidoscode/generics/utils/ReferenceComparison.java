@@ -0,0 +1,25 @@
+package com.eidoscode.generics.utils;
+
+/**
+ * How the values of the reference fields are compared by the delta copy (see
+ * {@link GenericsUtils#copyChangedContent(Object, Object, ReferenceComparison)}
+ * ). The primitive fields are always compared by value.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public enum ReferenceComparison {
+
+  /**
+   * The values are the same only if they are the same instance.
+   */
+  IDENTITY,
+
+  /**
+   * The values are the same if they are both <code>null</code> or if the
+   * source value is equal to the destination value (see
+   * {@link Object#equals(Object)}).
+   */
+  EQUALS
+}
@@ -0,0 +1,130 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Accessor that uses the typed methods of the reflection API. <br/>
+ * The field is made accessible only once, when the accessor is created. The
+ * {@link Field} instance is owned by the accessor and is never changed after
+ * that, so the access doesn't need any lock.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class ReflectionFieldAccessor extends FieldAccessor {
+
+  private final Field field;
+
+  /**
+   * Constructor.
+   * 
+   * @param field
+   *          Field that is going to be accessed.
+   */
+  ReflectionFieldAccessor(Field field) {
+    super(field);
+    field.setAccessible(true);
+    this.field = field;
+  }
+
+  @Override
+  Object get(Object target) throws IllegalAccessException {
+    return field.get(target);
+  }
+
+  @Override
+  void set(Object target, Object value) throws IllegalAccessException {
+    field.set(target, value);
+  }
+
+  @Override
+  Object getObject(Object target) throws IllegalAccessException {
+    return field.get(target);
+  }
+
+  @Override
+  void setObject(Object target, Object value) throws IllegalAccessException {
+    field.set(target, value);
+  }
+
+  @Override
+  boolean getBoolean(Object target) throws IllegalAccessException {
+    return field.getBoolean(target);
+  }
+
+  @Override
+  void setBoolean(Object target, boolean value) throws IllegalAccessException {
+    field.setBoolean(target, value);
+  }
+
+  @Override
+  byte getByte(Object target) throws IllegalAccessException {
+    return field.getByte(target);
+  }
+
+  @Override
+  void setByte(Object target, byte value) throws IllegalAccessException {
+    field.setByte(target, value);
+  }
+
+  @Override
+  char getChar(Object target) throws IllegalAccessException {
+    return field.getChar(target);
+  }
+
+  @Override
+  void setChar(Object target, char value) throws IllegalAccessException {
+    field.setChar(target, value);
+  }
+
+  @Override
+  short getShort(Object target) throws IllegalAccessException {
+    return field.getShort(target);
+  }
+
+  @Override
+  void setShort(Object target, short value) throws IllegalAccessException {
+    field.setShort(target, value);
+  }
+
+  @Override
+  int getInt(Object target) throws IllegalAccessException {
+    return field.getInt(target);
+  }
+
+  @Override
+  void setInt(Object target, int value) throws IllegalAccessException {
+    field.setInt(target, value);
+  }
+
+  @Override
+  long getLong(Object target) throws IllegalAccessException {
+    return field.getLong(target);
+  }
+
+  @Override
+  void setLong(Object target, long value) throws IllegalAccessException {
+    field.setLong(target, value);
+  }
+
+  @Override
+  float getFloat(Object target) throws IllegalAccessException {
+    return field.getFloat(target);
+  }
+
+  @Override
+  void setFloat(Object target, float value) throws IllegalAccessException {
+    field.setFloat(target, value);
+  }
+
+  @Override
+  double getDouble(Object target) throws IllegalAccessException {
+    return field.getDouble(target);
+  }
+
+  @Override
+  void setDouble(Object target, double value) throws IllegalAccessException {
+    field.setDouble(target, value);
+  }
+}
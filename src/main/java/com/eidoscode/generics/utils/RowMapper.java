@@ -0,0 +1,558 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Conversion of objects to and from rows, given as a {@link Map} by field name
+ * or as an array of values on the order of the columns. <br/>
+ * A mapper is compiled once for a class: the columns are resolved to field
+ * accessors, so each conversion only walks arrays. The mappers of all the
+ * fields of a class are cached (see {@link #of(Class)} and
+ * {@link #of(Class, FieldFilter)}); the mappers with explicit columns should
+ * be kept by the caller, on a constant for example. <br/>
+ * The values that are not instances of the field type are converted by the
+ * built in conversions of the mapping (numbers, enum and String, Date and
+ * long). A <code>null</code> value leaves the primitive fields unchanged.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ * @param <T>
+ *          Type of the objects.
+ */
+public final class RowMapper<T> {
+
+  private static final ConcurrentMap<FieldFilter, ConcurrentMap<Class<?>, RowMapper<?>>> CACHE = new ConcurrentHashMap<FieldFilter, ConcurrentMap<Class<?>, RowMapper<?>>>();
+
+  private final Class<T> type;
+  private final String[] columns;
+  private final FieldAccessor[] accessors;
+  private final Class<?>[] types;
+  private final Map<String, Integer> indexes;
+  private volatile Constructor<?> constructor;
+
+  /**
+   * Constructor.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @param columns
+   *          Names of the columns. The <code>null</code> entries are ignored
+   *          positions.
+   * @param accessors
+   *          Accessor of the field of each column.
+   */
+  private RowMapper(Class<T> type, String[] columns, FieldAccessor[] accessors) {
+    this.type = type;
+    this.columns = columns;
+    this.accessors = accessors;
+    this.types = new Class<?>[accessors.length];
+    final Map<String, Integer> map = new HashMap<String, Integer>();
+    for (int i = 0; i < accessors.length; i++) {
+      if (accessors[i] != null) {
+        types[i] = Converters.wrap(accessors[i].getField().getType());
+        map.put(columns[i], Integer.valueOf(i));
+      }
+    }
+    this.indexes = map;
+  }
+
+  /**
+   * Return the mapper of all the instance fields of the class. The columns are
+   * the fields, from the top super class down to the class itself, on the
+   * order that they are declared.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @return The cached mapper.
+   */
+  public static <T> RowMapper<T> of(Class<T> type) {
+    return of(type, FieldFilter.ALL);
+  }
+
+  /**
+   * Return the mapper of the fields of the class selected by the filter. See
+   * {@link #of(Class)}.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @param filter
+   *          Selection of the fields.
+   * @return The cached mapper.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> RowMapper<T> of(Class<T> type, FieldFilter filter) {
+    if (type == null) {
+      throw new NullPointerException("The type parameter is mandatory");
+    }
+    if (filter == null) {
+      throw new NullPointerException("The filter parameter is mandatory");
+    }
+    ConcurrentMap<Class<?>, RowMapper<?>> mappers = CACHE.get(filter);
+    if (mappers == null) {
+      mappers = new ConcurrentHashMap<Class<?>, RowMapper<?>>();
+      final ConcurrentMap<Class<?>, RowMapper<?>> existing = CACHE.putIfAbsent(filter, mappers);
+      if (existing != null) {
+        mappers = existing;
+      }
+    }
+    RowMapper<?> mapper = mappers.get(type);
+    if (mapper == null) {
+      mapper = build(type, filter);
+      final RowMapper<?> existing = mappers.putIfAbsent(type, mapper);
+      if (existing != null) {
+        mapper = existing;
+      }
+    }
+    return (RowMapper<T>) mapper;
+  }
+
+  /**
+   * Return a mapper with the given columns, on the given order. The
+   * <code>null</code> columns are ignored positions of the arrays.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @param columns
+   *          Names of the fields of each column.
+   * @return A new mapper.
+   * @throws NoSuchFieldException
+   *           Throw if one of the columns is not an instance field of the
+   *           class.
+   */
+  public static <T> RowMapper<T> of(Class<T> type, String... columns) throws NoSuchFieldException {
+    final RowMapper<T> all = of(type);
+    final FieldAccessor[] accessors = new FieldAccessor[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i] != null) {
+        final Integer index = all.indexes.get(columns[i]);
+        if (index == null) {
+          throw new NoSuchFieldException(columns[i]);
+        }
+        accessors[i] = all.accessors[index.intValue()];
+      }
+    }
+    return new RowMapper<T>(type, columns.clone(), accessors);
+  }
+
+  /**
+   * Compute the mapper of the fields selected by the filter.
+   * 
+   * @param type
+   *          Type of the objects.
+   * @param filter
+   *          Selection of the fields.
+   * @return The mapper.
+   */
+  private static <T> RowMapper<T> build(Class<T> type, FieldFilter filter) {
+    final List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      hierarchy.add(0, current);
+    }
+    final Map<String, Field> fields = new LinkedHashMap<String, Field>();
+    for (Class<?> current : hierarchy) {
+      for (Field field : current.getDeclaredFields()) {
+        if (!GenericsUtils.checkModifierMask(field, false, Modifier.STATIC) && filter.accept(field)) {
+          // A field hidden by a subclass field with the same name is replaced
+          fields.remove(field.getName());
+          fields.put(field.getName(), field);
+        }
+      }
+    }
+    final String[] columns = fields.keySet().toArray(new String[fields.size()]);
+    final FieldAccessor[] accessors = new FieldAccessor[columns.length];
+    int i = 0;
+    for (Field field : fields.values()) {
+      accessors[i++] = FieldAccessor.of(field);
+    }
+    return new RowMapper<T>(type, columns, accessors);
+  }
+
+  /**
+   * @return The type of the objects.
+   */
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Return the accessors of the columns. The array is shared and must not be
+   * changed.
+   * 
+   * @return The accessor of the field of each column, <code>null</code> on
+   *         the ignored positions.
+   */
+  FieldAccessor[] getAccessors() {
+    return accessors;
+  }
+
+  /**
+   * @return The names of the columns, on the order of the arrays.
+   */
+  public List<String> getColumns() {
+    return Collections.unmodifiableList(Arrays.asList(columns));
+  }
+
+  /**
+   * Create a new object and populate it from the map.
+   * 
+   * @param row
+   *          Values by field name. The keys that are not columns are ignored.
+   * @return The new object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create the object.
+   */
+  public T fromMap(Map<String, ?> row) throws IllegalAccessException, InstantiationException {
+    final T target = newInstance();
+    fromMap(row, target);
+    return target;
+  }
+
+  /**
+   * Populate the object from the map. The columns without a key on the map
+   * are left unchanged.
+   * 
+   * @param row
+   *          Values by field name. The keys that are not columns are ignored.
+   * @param target
+   *          Object to be populated.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public void fromMap(Map<String, ?> row, T target) throws IllegalAccessException {
+    if (row == null) {
+      throw new NullPointerException("The row parameter is mandatory");
+    }
+    if (target == null) {
+      throw new NullPointerException("The target parameter is mandatory");
+    }
+    for (int i = 0; i < accessors.length; i++) {
+      if (accessors[i] != null) {
+        final Object value = row.get(columns[i]);
+        if (value != null || row.containsKey(columns[i])) {
+          set(i, target, value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Extract the object into a new map, on the order of the columns.
+   * 
+   * @param source
+   *          Source object.
+   * @return The values by field name.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public Map<String, Object> toMap(T source) throws IllegalAccessException {
+    final Map<String, Object> row = new LinkedHashMap<String, Object>((int) (accessors.length / 0.75f) + 1);
+    toMap(source, row);
+    return row;
+  }
+
+  /**
+   * Extract the object into the given map.
+   * 
+   * @param source
+   *          Source object.
+   * @param row
+   *          Map that receives the values by field name.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public void toMap(T source, Map<String, Object> row) throws IllegalAccessException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (row == null) {
+      throw new NullPointerException("The row parameter is mandatory");
+    }
+    for (int i = 0; i < accessors.length; i++) {
+      if (accessors[i] != null) {
+        row.put(columns[i], accessors[i].get(source));
+      }
+    }
+  }
+
+  /**
+   * Create a new object and populate it from the array.
+   * 
+   * @param row
+   *          Values on the order of the columns. The extra values are ignored.
+   * @return The new object.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   * @throws InstantiationException
+   *           Throw if it is not possible to create the object.
+   */
+  public T fromArray(Object[] row) throws IllegalAccessException, InstantiationException {
+    final T target = newInstance();
+    fromArray(row, target);
+    return target;
+  }
+
+  /**
+   * Populate the object from the array. The columns after the end of the
+   * array are left unchanged.
+   * 
+   * @param row
+   *          Values on the order of the columns. The extra values are ignored.
+   * @param target
+   *          Object to be populated.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public void fromArray(Object[] row, T target) throws IllegalAccessException {
+    if (row == null) {
+      throw new NullPointerException("The row parameter is mandatory");
+    }
+    if (target == null) {
+      throw new NullPointerException("The target parameter is mandatory");
+    }
+    final int length = Math.min(row.length, accessors.length);
+    for (int i = 0; i < length; i++) {
+      if (accessors[i] != null) {
+        set(i, target, row[i]);
+      }
+    }
+  }
+
+  /**
+   * Extract the object into a new array, on the order of the columns.
+   * 
+   * @param source
+   *          Source object.
+   * @return The values. The ignored positions are <code>null</code>.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public Object[] toArray(T source) throws IllegalAccessException {
+    final Object[] row = new Object[accessors.length];
+    toArray(source, row);
+    return row;
+  }
+
+  /**
+   * Extract the object into the given array, on the order of the columns.
+   * 
+   * @param source
+   *          Source object.
+   * @param row
+   *          Array that receives the values. It must have at least one
+   *          position for each column.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the fields.
+   */
+  public void toArray(T source, Object[] row) throws IllegalAccessException {
+    if (source == null) {
+      throw new NullPointerException("The source parameter is mandatory");
+    }
+    if (row.length < accessors.length) {
+      throw new IllegalArgumentException("The row has " + row.length + " positions, but there are " + accessors.length + " columns");
+    }
+    for (int i = 0; i < accessors.length; i++) {
+      if (accessors[i] != null) {
+        row[i] = accessors[i].get(source);
+      }
+    }
+  }
+
+  /**
+   * Convert the rows to objects lazily, one by one, while the returned
+   * iterator is consumed. The checked exceptions of the conversion are thrown
+   * as {@link IllegalStateException}.
+   * 
+   * @param rows
+   *          Rows given as maps.
+   * @return The iterator of the new objects.
+   */
+  public Iterator<T> fromMaps(final Iterator<? extends Map<String, ?>> rows) {
+    if (rows == null) {
+      throw new NullPointerException("The rows parameter is mandatory");
+    }
+    return new RowIterator(rows) {
+      @Override
+      @SuppressWarnings("unchecked")
+      T convert(Object row) throws IllegalAccessException, InstantiationException {
+        return fromMap((Map<String, ?>) row);
+      }
+    };
+  }
+
+  /**
+   * Convert the rows to objects lazily, one by one, while the returned
+   * iterator is consumed. The checked exceptions of the conversion are thrown
+   * as {@link IllegalStateException}.
+   * 
+   * @param rows
+   *          Rows given as arrays on the order of the columns.
+   * @return The iterator of the new objects.
+   */
+  public Iterator<T> fromArrays(final Iterator<Object[]> rows) {
+    if (rows == null) {
+      throw new NullPointerException("The rows parameter is mandatory");
+    }
+    return new RowIterator(rows) {
+      @Override
+      T convert(Object row) throws IllegalAccessException, InstantiationException {
+        return fromArray((Object[]) row);
+      }
+    };
+  }
+
+  /**
+   * Write a value on the field of a column, converting it if needed.
+   * 
+   * @param index
+   *          Index of the column.
+   * @param target
+   *          Object.
+   * @param value
+   *          Value.
+   * @throws IllegalAccessException
+   *           Throw if there is some problem accessing the field.
+   */
+  private void set(int index, Object target, Object value) throws IllegalAccessException {
+    final FieldAccessor accessor = accessors[index];
+    if (value == null) {
+      // The primitive fields are left unchanged
+      if (accessor.getKind() == FieldAccessor.OBJECT) {
+        accessor.setObject(target, null);
+      }
+      return;
+    }
+    if (types[index].isInstance(value)) {
+      accessor.set(target, value);
+      return;
+    }
+    final TypeConverter<Object, Object> converter = Converters.find(value.getClass(), types[index]);
+    if (converter == null) {
+      throw new IllegalArgumentException("There is no conversion from " + value.getClass().getName() + " to " + types[index].getName()
+          + " for the column " + columns[index]);
+    }
+    accessor.set(target, converter.convert(value));
+  }
+
+  /**
+   * Create a new object, using the constructor without parameters.
+   * 
+   * @return The new object.
+   * @throws IllegalAccessException
+   *           Throw if the constructor is not accessible.
+   * @throws InstantiationException
+   *           Throw if the class doesn't have a constructor without parameters
+   *           or if it fails.
+   */
+  T newInstance() throws IllegalAccessException, InstantiationException {
+    Constructor<?> current = constructor;
+    if (current == null) {
+      try {
+        current = type.getDeclaredConstructor();
+        current.setAccessible(true);
+      } catch (NoSuchMethodException e) {
+        throw (InstantiationException) new InstantiationException(type.getName()).initCause(e);
+      }
+      constructor = current;
+    }
+    return type.cast(BulkCopier.newInstance(current));
+  }
+
+  /**
+   * Return the number of cached mappers.
+   * 
+   * @return The number of mappers.
+   */
+  static int size() {
+    int size = 0;
+    for (ConcurrentMap<Class<?>, RowMapper<?>> mappers : CACHE.values()) {
+      size += mappers.size();
+    }
+    return size;
+  }
+
+  /**
+   * Remove all the cached mappers.
+   */
+  static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Remove the cached mappers of the classes loaded by the given class loader
+   * or by one of its children, and the filters that reference them.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    for (Iterator<Map.Entry<FieldFilter, ConcurrentMap<Class<?>, RowMapper<?>>>> i = CACHE.entrySet().iterator(); i.hasNext();) {
+      final Map.Entry<FieldFilter, ConcurrentMap<Class<?>, RowMapper<?>>> entry = i.next();
+      if (entry.getKey().references(classLoader)) {
+        i.remove();
+        continue;
+      }
+      for (Iterator<Class<?>> j = entry.getValue().keySet().iterator(); j.hasNext();) {
+        if (ClassPairCache.isLoadedBy(j.next(), classLoader)) {
+          j.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Iterator that converts each row when it is consumed.
+   */
+  private abstract class RowIterator implements Iterator<T> {
+
+    private final Iterator<?> rows;
+
+    RowIterator(Iterator<?> rows) {
+      this.rows = rows;
+    }
+
+    /**
+     * Convert a row.
+     * 
+     * @param row
+     *          Row.
+     * @return The new object.
+     */
+    abstract T convert(Object row) throws IllegalAccessException, InstantiationException;
+
+    @Override
+    public boolean hasNext() {
+      return rows.hasNext();
+    }
+
+    @Override
+    public T next() {
+      try {
+        return convert(rows.next());
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      } catch (InstantiationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void remove() {
+      rows.remove();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.eidoscode.generics.utils;
+
+/**
+ * Conversion of the value of a source field to the type of the destination
+ * field, used by the mapping between unrelated classes (see
+ * {@link MappingOptions#withConverter(Class, Class, TypeConverter)}). <br/>
+ * The converters must be thread safe and are never called with
+ * <code>null</code>: a <code>null</code> value is written as
+ * <code>null</code> on reference fields and leaves the primitive fields
+ * unchanged.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ * @param <S>
+ *          Source type.
+ * @param <D>
+ *          Destination type.
+ */
+public interface TypeConverter<S, D> {
+
+  /**
+   * Convert the value.
+   * 
+   * @param value
+   *          Source value, never <code>null</code>.
+   * @return Destination value.
+   */
+  D convert(S value);
+}
@@ -0,0 +1,172 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+/**
+ * Resolver of the actual type arguments passed to a base class through the
+ * hierarchy of a target class. <br/>
+ * The resolved arguments are kept on a class keyed cache, so the hierarchy of
+ * each pair of target and base classes is walked only once. When the target
+ * class has arguments generated at compile time (see {@link GenericsSupport})
+ * the hierarchy is not walked at all.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class TypeResolver {
+
+  /**
+   * Cache of the resolved arguments, by target and base class.
+   */
+  static final ClassPairCache<Type[]> CACHE = new ClassPairCache<Type[]>();
+
+  /**
+   * Cached value of the pairs where the base class was not found.
+   */
+  static final Type[] NOT_FOUND = new Type[0];
+
+  /**
+   * Hide constructor.
+   */
+  private TypeResolver() {
+  }
+
+  /**
+   * Return the actual type arguments of the base class, using the cache. The
+   * proxy classes are resolved against their target class (see
+   * {@link ProxyClasses}), but cached under their own key, so the next calls
+   * are a single lookup.
+   * 
+   * @param targetClazz
+   *          Class to search the parameters passed throw the generalization.
+   * @param baseClazz
+   *          The generic class that is implemented by the target class.
+   * @return The actual type arguments or <code>null</code> if the base class
+   *         was not found on the hierarchy. The returned array is shared and
+   *         must not be changed.
+   */
+  static Type[] resolve(Class<?> targetClazz, Class<?> baseClazz) {
+    Type[] resolved = CACHE.get(targetClazz, baseClazz);
+    if (Metrics.ENABLED) {
+      (resolved == null ? Metrics.TYPE_RESOLVER_MISSES : Metrics.TYPE_RESOLVER_HITS).increment();
+    }
+    if (resolved == null) {
+      final Class<?> actualClazz = ProxyClasses.targetOf(targetClazz);
+      resolved = generated(actualClazz, baseClazz);
+      if (resolved == null) {
+        resolved = resolve(actualClazz, baseClazz, null);
+      }
+      resolved = CACHE.putIfAbsent(targetClazz, baseClazz, resolved != null ? resolved : NOT_FOUND);
+    }
+    return resolved == NOT_FOUND ? null : resolved;
+  }
+
+  /**
+   * Return the actual type arguments of the base class generated at compile
+   * time for the target class.
+   * 
+   * @param targetClazz
+   *          Class to search the parameters passed throw the generalization.
+   * @param baseClazz
+   *          The generic class that is implemented by the target class.
+   * @return The actual type arguments or <code>null</code> if they were not
+   *         generated.
+   */
+  private static Type[] generated(Class<?> targetClazz, Class<?> baseClazz) {
+    final GeneratedGenericsSupport support = GeneratedSupports.of(targetClazz);
+    if (support == null) {
+      return null;
+    }
+    final Type[] generated = support.getTypeArguments(baseClazz);
+    if (generated == null || generated.length != baseClazz.getTypeParameters().length) {
+      return null;
+    }
+    final Type[] args = new Type[generated.length];
+    for (int i = 0; i < args.length; i++) {
+      if (generated[i] == null) {
+        return null;
+      }
+      args[i] = Types.canonical(generated[i]);
+    }
+    return args;
+  }
+
+  /**
+   * Return the actual type arguments of the base class, walking the hierarchy
+   * of the target class. <br/>
+   * The walk is iterative: on each level the first direct ancestor
+   * (superclass, then interfaces) that implements the base class is followed
+   * and the type variables of the current level are replaced on its type
+   * arguments, including the ones nested on parameterized types, arrays and
+   * wildcards. The arrays returned by the reflection API are fresh copies, so
+   * they are reused to hold the resolved arguments, that are always canonical
+   * instances (see {@link Types}).
+   * 
+   * @param targetClazz
+   *          Class to search the parameters passed throw the generalization.
+   * @param baseClazz
+   *          The generic class that is implemented by the target class.
+   * @param actualArgs
+   *          The actual type arguments passed to the targetClazz or
+   *          <code>null</code> to use its type parameters.
+   * @return The actual type arguments or <code>null</code> if the base class
+   *         was not found on the hierarchy.
+   */
+  static Type[] resolve(final Class<?> targetClazz, Class<?> baseClazz, Type[] actualArgs) {
+    Class<?> current = targetClazz;
+    // null means that the arguments are the type parameters of the current
+    // class.
+    Type[] args = actualArgs;
+    while (!current.equals(baseClazz)) {
+      Type ancestor = current.getGenericSuperclass();
+      if (ancestor == null || !baseClazz.isAssignableFrom(rawClass(ancestor))) {
+        ancestor = null;
+        for (Type type : current.getGenericInterfaces()) {
+          if (baseClazz.isAssignableFrom(rawClass(type))) {
+            ancestor = type;
+            break;
+          }
+        }
+        if (ancestor == null) {
+          return null;
+        }
+      }
+      if (ancestor instanceof ParameterizedType) {
+        final Type[] ancestorArgs = ((ParameterizedType) ancestor).getActualTypeArguments();
+        final TypeVariable<?>[] parameters = args == null ? null : current.getTypeParameters();
+        for (int i = 0; i < ancestorArgs.length; i++) {
+          ancestorArgs[i] = Types.substitute(ancestorArgs[i], parameters, args);
+        }
+        args = ancestorArgs;
+      } else {
+        args = null;
+      }
+      current = rawClass(ancestor);
+    }
+    if (args == null) {
+      final TypeVariable<?>[] parameters = current.getTypeParameters();
+      args = new Type[parameters.length];
+      for (int i = 0; i < args.length; i++) {
+        args[i] = Types.canonical(parameters[i]);
+      }
+    }
+    return args;
+  }
+
+  /**
+   * Return the raw class of a direct ancestor.
+   * 
+   * @param type
+   *          Generic superclass or interface.
+   * @return The raw class.
+   */
+  private static Class<?> rawClass(Type type) {
+    if (type instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) type).getRawType();
+    }
+    return (Class<?>) type;
+  }
+}
@@ -0,0 +1,448 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.Member;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonical representation of the generic types. <br/>
+ * Each type is interned, so equal types are represented by the same instance
+ * and can be compared by reference. The implementations of
+ * {@link ParameterizedType}, {@link GenericArrayType} and {@link WildcardType}
+ * have the same <code>equals</code> and <code>hashCode</code> of the ones of
+ * the JDK, so the instances returned by the reflection API are used to look up
+ * the canonical ones without creating new objects.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class Types {
+
+  private static final Type[] EMPTY = new Type[0];
+
+  private static final ConcurrentMap<Type, Type> INTERNED = new ConcurrentHashMap<Type, Type>();
+
+  /**
+   * Hide constructor.
+   */
+  private Types() {
+  }
+
+  /**
+   * Return the canonical instance of the given type.
+   * 
+   * @param type
+   *          Type.
+   * @return The canonical instance.
+   */
+  static Type canonical(Type type) {
+    if (type == null || type instanceof Class<?>) {
+      return type;
+    }
+    final Type interned = INTERNED.get(type);
+    if (interned != null) {
+      return interned;
+    }
+    return substitute(type, null, null);
+  }
+
+  /**
+   * Replace the type variables of the given type by the actual type arguments
+   * and return the canonical instance of the result.
+   * 
+   * @param type
+   *          Type.
+   * @param parameters
+   *          Type parameters that are going to be replaced or <code>null</code>
+   *          to keep all the type variables.
+   * @param args
+   *          The actual type arguments of each type parameter.
+   * @return The canonical instance of the resolved type.
+   */
+  static Type substitute(Type type, TypeVariable<?>[] parameters, Type[] args) {
+    if (type instanceof Class<?>) {
+      return type;
+    }
+    if (type instanceof TypeVariable<?>) {
+      if (parameters != null) {
+        for (int i = 0; i < parameters.length && i < args.length; i++) {
+          if (parameters[i].equals(type)) {
+            return canonical(args[i]);
+          }
+        }
+      }
+      return intern(type);
+    }
+    if (type instanceof ParameterizedType) {
+      final ParameterizedType parameterizedType = (ParameterizedType) type;
+      final Type[] typeArgs = parameterizedType.getActualTypeArguments();
+      for (int i = 0; i < typeArgs.length; i++) {
+        typeArgs[i] = substitute(typeArgs[i], parameters, args);
+      }
+      final Type owner = parameterizedType.getOwnerType();
+      return intern(new ParameterizedTypeImpl((Class<?>) parameterizedType.getRawType(), owner == null ? null : substitute(owner, parameters, args),
+          typeArgs));
+    }
+    if (type instanceof GenericArrayType) {
+      final Type component = substitute(((GenericArrayType) type).getGenericComponentType(), parameters, args);
+      if (component instanceof Class<?>) {
+        return Array.newInstance((Class<?>) component, 0).getClass();
+      }
+      return intern(new GenericArrayTypeImpl(component));
+    }
+    if (type instanceof WildcardType) {
+      final WildcardType wildcardType = (WildcardType) type;
+      final Type[] upperBounds = wildcardType.getUpperBounds();
+      for (int i = 0; i < upperBounds.length; i++) {
+        upperBounds[i] = substitute(upperBounds[i], parameters, args);
+      }
+      final Type[] lowerBounds = wildcardType.getLowerBounds();
+      for (int i = 0; i < lowerBounds.length; i++) {
+        lowerBounds[i] = substitute(lowerBounds[i], parameters, args);
+      }
+      return intern(new WildcardTypeImpl(upperBounds, lowerBounds));
+    }
+    return intern(type);
+  }
+
+  /**
+   * Return the canonical parameterized type with the given canonical
+   * components.
+   * 
+   * @param rawType
+   *          Raw type.
+   * @param ownerType
+   *          Owner type or <code>null</code>.
+   * @param actualTypeArguments
+   *          Actual type arguments. The array is not copied.
+   * @return The canonical instance.
+   */
+  static Type parameterized(Class<?> rawType, Type ownerType, Type[] actualTypeArguments) {
+    return intern(new ParameterizedTypeImpl(rawType, ownerType, actualTypeArguments));
+  }
+
+  /**
+   * Return the canonical generic array type with the given canonical
+   * component.
+   * 
+   * @param component
+   *          Component type, that is not a class.
+   * @return The canonical instance.
+   */
+  static Type genericArray(Type component) {
+    return intern(new GenericArrayTypeImpl(component));
+  }
+
+  /**
+   * Return the canonical wildcard type with the given canonical bounds.
+   * 
+   * @param upperBounds
+   *          Upper bounds. The array is not copied.
+   * @param lowerBounds
+   *          Lower bounds. The array is not copied.
+   * @return The canonical instance.
+   */
+  static Type wildcard(Type[] upperBounds, Type[] lowerBounds) {
+    return intern(new WildcardTypeImpl(upperBounds, lowerBounds));
+  }
+
+  /**
+   * Store the given type as the canonical instance, if there is no equal type
+   * stored yet.
+   * 
+   * @param type
+   *          Type with canonical components.
+   * @return The canonical instance.
+   */
+  private static Type intern(Type type) {
+    final Type existing = INTERNED.putIfAbsent(type, type);
+    return existing == null ? type : existing;
+  }
+
+  /**
+   * Return the number of canonical types.
+   * 
+   * @return The number of canonical types.
+   */
+  static int size() {
+    return INTERNED.size();
+  }
+
+  /**
+   * Remove all the canonical instances.
+   */
+  static void clear() {
+    INTERNED.clear();
+  }
+
+  /**
+   * Remove the canonical instances that reference a class loaded by the given
+   * class loader or by one of its children.
+   * 
+   * @param classLoader
+   *          Class loader.
+   */
+  static void clear(ClassLoader classLoader) {
+    for (Iterator<Type> i = INTERNED.keySet().iterator(); i.hasNext();) {
+      if (references(i.next(), classLoader)) {
+        i.remove();
+      }
+    }
+  }
+
+  /**
+   * Check if the type references a class loaded by the given class loader or
+   * by one of its children.
+   * 
+   * @param type
+   *          Type to be checked.
+   * @param classLoader
+   *          Class loader.
+   * @return <code>true</code> if the type references one of its classes.
+   */
+  private static boolean references(Type type, ClassLoader classLoader) {
+    if (type instanceof Class<?>) {
+      return ClassPairCache.isLoadedBy((Class<?>) type, classLoader);
+    }
+    if (type instanceof TypeVariable<?>) {
+      final GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+      final Class<?> declaringClass = declaration instanceof Class<?> ? (Class<?>) declaration : ((Member) declaration).getDeclaringClass();
+      return ClassPairCache.isLoadedBy(declaringClass, classLoader);
+    }
+    if (type instanceof ParameterizedType) {
+      final ParameterizedType parameterizedType = (ParameterizedType) type;
+      return references(parameterizedType.getRawType(), classLoader) || references(parameterizedType.getOwnerType(), classLoader)
+          || references(parameterizedType.getActualTypeArguments(), classLoader);
+    }
+    if (type instanceof GenericArrayType) {
+      return references(((GenericArrayType) type).getGenericComponentType(), classLoader);
+    }
+    if (type instanceof WildcardType) {
+      final WildcardType wildcardType = (WildcardType) type;
+      return references(wildcardType.getUpperBounds(), classLoader) || references(wildcardType.getLowerBounds(), classLoader);
+    }
+    return false;
+  }
+
+  /**
+   * Check if one of the types references a class loaded by the given class
+   * loader or by one of its children.
+   * 
+   * @param types
+   *          Types to be checked.
+   * @param classLoader
+   *          Class loader.
+   * @return <code>true</code> if one of the types references one of its
+   *         classes.
+   */
+  private static boolean references(Type[] types, ClassLoader classLoader) {
+    for (Type type : types) {
+      if (references(type, classLoader)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the name of the given type, as it is written on the source code.
+   * 
+   * @param type
+   *          Type.
+   * @return The name.
+   */
+  static String toString(Type type) {
+    if (type instanceof Class<?>) {
+      final Class<?> clazz = (Class<?>) type;
+      return clazz.isArray() ? toString(clazz.getComponentType()) + "[]" : clazz.getName();
+    }
+    return String.valueOf(type);
+  }
+
+  /**
+   * Compare two types that can be <code>null</code>.
+   * 
+   * @param first
+   *          First type.
+   * @param second
+   *          Second type.
+   * @return <code>true</code> if they are equal.
+   */
+  private static boolean equals(Type first, Type second) {
+    return first == null ? second == null : first.equals(second);
+  }
+
+  /**
+   * Return the hash code of a type that can be <code>null</code>.
+   * 
+   * @param type
+   *          Type.
+   * @return The hash code.
+   */
+  private static int hashCode(Type type) {
+    return type == null ? 0 : type.hashCode();
+  }
+
+  /**
+   * Canonical implementation of {@link ParameterizedType}.
+   */
+  private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+    private final Class<?> rawType;
+    private final Type ownerType;
+    private final Type[] actualTypeArguments;
+    private final int hashCode;
+
+    ParameterizedTypeImpl(Class<?> rawType, Type ownerType, Type[] actualTypeArguments) {
+      this.rawType = rawType;
+      this.ownerType = ownerType;
+      this.actualTypeArguments = actualTypeArguments;
+      this.hashCode = Arrays.hashCode(actualTypeArguments) ^ Types.hashCode(ownerType) ^ rawType.hashCode();
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      return actualTypeArguments.clone();
+    }
+
+    @Override
+    public Type getRawType() {
+      return rawType;
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return ownerType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ParameterizedType)) {
+        return false;
+      }
+      final ParameterizedType that = (ParameterizedType) obj;
+      return rawType.equals(that.getRawType()) && Types.equals(ownerType, that.getOwnerType())
+          && Arrays.equals(actualTypeArguments, that.getActualTypeArguments());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder();
+      if (ownerType != null) {
+        sb.append(Types.toString(ownerType)).append('$').append(rawType.getSimpleName());
+      } else {
+        sb.append(rawType.getName());
+      }
+      if (actualTypeArguments.length > 0) {
+        sb.append('<');
+        for (int i = 0; i < actualTypeArguments.length; i++) {
+          if (i > 0) {
+            sb.append(", ");
+          }
+          sb.append(Types.toString(actualTypeArguments[i]));
+        }
+        sb.append('>');
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * Canonical implementation of {@link GenericArrayType}.
+   */
+  private static final class GenericArrayTypeImpl implements GenericArrayType {
+
+    private final Type genericComponentType;
+
+    GenericArrayTypeImpl(Type genericComponentType) {
+      this.genericComponentType = genericComponentType;
+    }
+
+    @Override
+    public Type getGenericComponentType() {
+      return genericComponentType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof GenericArrayType && genericComponentType.equals(((GenericArrayType) obj).getGenericComponentType());
+    }
+
+    @Override
+    public int hashCode() {
+      return genericComponentType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return Types.toString(genericComponentType) + "[]";
+    }
+  }
+
+  /**
+   * Canonical implementation of {@link WildcardType}.
+   */
+  private static final class WildcardTypeImpl implements WildcardType {
+
+    private final Type[] upperBounds;
+    private final Type[] lowerBounds;
+
+    WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
+      this.upperBounds = upperBounds;
+      this.lowerBounds = lowerBounds.length == 0 ? EMPTY : lowerBounds;
+    }
+
+    @Override
+    public Type[] getUpperBounds() {
+      return upperBounds.clone();
+    }
+
+    @Override
+    public Type[] getLowerBounds() {
+      return lowerBounds.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof WildcardType)) {
+        return false;
+      }
+      final WildcardType that = (WildcardType) obj;
+      return Arrays.equals(upperBounds, that.getUpperBounds()) && Arrays.equals(lowerBounds, that.getLowerBounds());
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(upperBounds) ^ Arrays.hashCode(lowerBounds);
+    }
+
+    @Override
+    public String toString() {
+      if (lowerBounds.length > 0) {
+        return "? super " + Types.toString(lowerBounds[0]);
+      }
+      if (upperBounds.length == 0 || upperBounds[0] == Object.class) {
+        return "?";
+      }
+      return "? extends " + Types.toString(upperBounds[0]);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Wrapper of <code>sun.misc.Unsafe</code>, used to create instances without
+ * calling their constructors. <br/>
+ * The instance is looked up only once, by reflection, so the class doesn't
+ * depend on the proprietary API at compile time. If it is not available on the
+ * running JVM, or if it was disabled by the system property
+ * <code>com.eidoscode.generics.utils.unsafe=false</code>, the method
+ * {@link #isAvailable()} returns <code>false</code> and the constructors are
+ * used instead.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class UnsafeAccess {
+
+  /**
+   * System property used to disable the use of <code>sun.misc.Unsafe</code>.
+   */
+  static final String PROPERTY = "com.eidoscode.generics.utils.unsafe";
+
+  private static final Object UNSAFE = lookup();
+
+  private static final Method ALLOCATE_INSTANCE = UNSAFE == null ? null : allocateInstanceMethod();
+
+  /**
+   * Hide constructor.
+   */
+  private UnsafeAccess() {
+  }
+
+  /**
+   * Check if <code>sun.misc.Unsafe</code> is available.
+   * 
+   * @return <code>true</code> if it is available.
+   */
+  static boolean isAvailable() {
+    return ALLOCATE_INSTANCE != null;
+  }
+
+  /**
+   * Create a new instance of the given class without calling its constructors.
+   * 
+   * @param clazz
+   *          Class of the new instance.
+   * @return The new instance.
+   * @throws InstantiationException
+   *           Throw if the class can't be instantiated.
+   * @throws IllegalStateException
+   *           Throw if <code>sun.misc.Unsafe</code> is not available.
+   */
+  static Object allocateInstance(Class<?> clazz) throws InstantiationException {
+    if (ALLOCATE_INSTANCE == null) {
+      throw new IllegalStateException("sun.misc.Unsafe is not available");
+    }
+    try {
+      return ALLOCATE_INSTANCE.invoke(UNSAFE, clazz);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (InvocationTargetException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof InstantiationException) {
+        throw (InstantiationException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (InstantiationException) new InstantiationException(clazz.getName()).initCause(cause);
+    }
+  }
+
+  /**
+   * Look for the <code>sun.misc.Unsafe</code> instance.
+   * 
+   * @return The instance or <code>null</code> if it is not available.
+   */
+  private static Object lookup() {
+    try {
+      if ("false".equalsIgnoreCase(System.getProperty(PROPERTY))) {
+        return null;
+      }
+      Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      return field.get(null);
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  /**
+   * Look for the <code>allocateInstance</code> method of the instance.
+   * 
+   * @return The method or <code>null</code> if it is not available.
+   */
+  private static Method allocateInstanceMethod() {
+    try {
+      return UNSAFE.getClass().getMethod("allocateInstance", Class.class);
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+}
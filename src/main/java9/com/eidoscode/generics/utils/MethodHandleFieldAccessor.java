@@ -0,0 +1,241 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Accessor that uses the getter and setter {@link MethodHandle}s of the field.
+ * <br/>
+ * The handles are resolved through a private lookup on the declaring class and
+ * adapted to take an {@link Object} target, so each access is an exact
+ * invocation, without boxing. The final fields have no setter handle, so they
+ * are left to the next strategy.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class MethodHandleFieldAccessor extends FieldAccessor {
+
+  private final MethodHandle getter;
+  private final MethodHandle setter;
+
+  /**
+   * Constructor.
+   * 
+   * @param field
+   *          Field that is going to be accessed.
+   * @throws IllegalArgumentException
+   *           Throw if the field is final or can not be accessed.
+   */
+  MethodHandleFieldAccessor(Field field) {
+    super(field);
+    final Class<?> type = field.getType().isPrimitive() ? field.getType() : Object.class;
+    try {
+      final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+      this.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(type, Object.class));
+      this.setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, type));
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Can not access the field " + field, e);
+    }
+  }
+
+  /**
+   * Strategy of this accessor.
+   */
+  static final class Factory extends FieldAccessorFactory {
+
+    /**
+     * Constructor.
+     */
+    Factory() {
+      super("methodhandle");
+    }
+
+    @Override
+    FieldAccessor create(Field field) {
+      return new MethodHandleFieldAccessor(field);
+    }
+  }
+
+  /**
+   * Throw the exception of an invocation, that can only be unchecked.
+   * 
+   * @param e
+   *          Exception.
+   * @return Nothing, it always throws.
+   */
+  private static RuntimeException rethrow(Throwable e) {
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    throw new IllegalStateException(e);
+  }
+
+  @Override
+  Object getObject(Object target) {
+    try {
+      return getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setObject(Object target, Object value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  boolean getBoolean(Object target) {
+    try {
+      return (boolean) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setBoolean(Object target, boolean value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  byte getByte(Object target) {
+    try {
+      return (byte) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setByte(Object target, byte value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  char getChar(Object target) {
+    try {
+      return (char) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setChar(Object target, char value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  short getShort(Object target) {
+    try {
+      return (short) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setShort(Object target, short value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  int getInt(Object target) {
+    try {
+      return (int) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setInt(Object target, int value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  long getLong(Object target) {
+    try {
+      return (long) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setLong(Object target, long value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  float getFloat(Object target) {
+    try {
+      return (float) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setFloat(Object target, float value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  double getDouble(Object target) {
+    try {
+      return (double) getter.invokeExact(target);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  void setDouble(Object target, double value) {
+    try {
+      setter.invokeExact(target, value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.eidoscode.generics.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Accessor that uses a {@link VarHandle} of the field. <br/>
+ * The handle is resolved through a private lookup on the declaring class, so
+ * the field doesn't need to be made accessible. Volatile fields keep their
+ * memory semantics. The final fields are read only for a {@link VarHandle}, so
+ * they are left to the next strategy.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+final class VarHandleFieldAccessor extends FieldAccessor {
+
+  private final VarHandle handle;
+  private final boolean isVolatile;
+
+  /**
+   * Constructor.
+   * 
+   * @param field
+   *          Field that is going to be accessed.
+   * @throws IllegalArgumentException
+   *           Throw if the field is final or can not be accessed.
+   */
+  VarHandleFieldAccessor(Field field) {
+    super(field);
+    if (Modifier.isFinal(field.getModifiers())) {
+      throw new IllegalArgumentException("The final field " + field + " is read only");
+    }
+    try {
+      this.handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectVarHandle(field);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Can not access the field " + field, e);
+    }
+    this.isVolatile = Modifier.isVolatile(field.getModifiers());
+  }
+
+  /**
+   * Strategy of this accessor.
+   */
+  static final class Factory extends FieldAccessorFactory {
+
+    /**
+     * Constructor.
+     */
+    Factory() {
+      super("varhandle");
+    }
+
+    @Override
+    FieldAccessor create(Field field) {
+      return new VarHandleFieldAccessor(field);
+    }
+  }
+
+  @Override
+  Object getObject(Object target) {
+    return isVolatile ? handle.getVolatile(target) : handle.get(target);
+  }
+
+  @Override
+  void setObject(Object target, Object value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  boolean getBoolean(Object target) {
+    return isVolatile ? (boolean) handle.getVolatile(target) : (boolean) handle.get(target);
+  }
+
+  @Override
+  void setBoolean(Object target, boolean value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  byte getByte(Object target) {
+    return isVolatile ? (byte) handle.getVolatile(target) : (byte) handle.get(target);
+  }
+
+  @Override
+  void setByte(Object target, byte value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  char getChar(Object target) {
+    return isVolatile ? (char) handle.getVolatile(target) : (char) handle.get(target);
+  }
+
+  @Override
+  void setChar(Object target, char value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  short getShort(Object target) {
+    return isVolatile ? (short) handle.getVolatile(target) : (short) handle.get(target);
+  }
+
+  @Override
+  void setShort(Object target, short value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  int getInt(Object target) {
+    return isVolatile ? (int) handle.getVolatile(target) : (int) handle.get(target);
+  }
+
+  @Override
+  void setInt(Object target, int value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  long getLong(Object target) {
+    return isVolatile ? (long) handle.getVolatile(target) : (long) handle.get(target);
+  }
+
+  @Override
+  void setLong(Object target, long value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  float getFloat(Object target) {
+    return isVolatile ? (float) handle.getVolatile(target) : (float) handle.get(target);
+  }
+
+  @Override
+  void setFloat(Object target, float value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+
+  @Override
+  double getDouble(Object target) {
+    return isVolatile ? (double) handle.getVolatile(target) : (double) handle.get(target);
+  }
+
+  @Override
+  void setDouble(Object target, double value) {
+    if (isVolatile) {
+      handle.setVolatile(target, value);
+    } else {
+      handle.set(target, value);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.eidoscode.generics.utils.test;
+
+import java.io.Serializable;
+import java.util.List;
+
+public abstract class AbstractRepository<K, E> implements Serializable, IRepository<E, K>, Comparable<List<E>> {
+
+  private static final long serialVersionUID = 1L;
+
+  @Override
+  public int compareTo(List<E> o) {
+    return 0;
+  }
+}
@@ -0,0 +1,211 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+import com.eidoscode.generics.utils.ObjectPool;
+
+/**
+ * Allocation budget of the hot paths. <br/>
+ * Each operation is warmed up and then called many times, measuring the bytes
+ * allocated by the current thread. The test fails if the average allocation
+ * of a call is over the declared budget.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class AllocationBudgetTest {
+
+  private static final int ITERATIONS = 200000;
+
+  /**
+   * Budget of each operation, in bytes per call.
+   */
+  private static final double COPY_CONTENT_BUDGET = 0.5d;
+  private static final double SUPER_CLASS_GENERIC_TYPE_BUDGET = 0.5d;
+  private static final double GET_CLASS_BUDGET = 0.5d;
+  private static final double CHECK_MODIFIERS_BUDGET = 0.5d;
+  /**
+   * The literal call sites of the varargs method allocate the array of the
+   * modifiers: up to 32 bytes for two ints, depending on the object header.
+   */
+  private static final double CHECK_MODIFIERS_VARARGS_BUDGET = 32d;
+  private static final double OBJECT_POOL_BUDGET = 0.5d;
+
+  private com.sun.management.ThreadMXBean threadBean;
+
+  /**
+   * Operation that is measured.
+   */
+  private interface Operation {
+
+    /**
+     * Execute the operation once.
+     * 
+     * @return Some value of the result, that is accumulated to keep the call
+     *         alive.
+     */
+    int run() throws Exception;
+  }
+
+  @Before
+  public void setUp() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  private void assertBudget(String name, double budget, Operation operation) throws Exception {
+    int sink = 0;
+    // warm up
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink += operation.run();
+    }
+    final long threadId = Thread.currentThread().getId();
+    final long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink += operation.run();
+    }
+    final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+    final double perCall = (double) allocated / ITERATIONS;
+    assertTrue(name + " allocated " + perCall + " bytes per call, the budget is " + budget + " (" + sink + ")", perCall <= budget);
+  }
+
+  @Test
+  public void testCopyContentPrimitives() throws Exception {
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    final ModelPrimitives destination = new ModelPrimitives();
+    assertBudget("copyContent(primitives)", COPY_CONTENT_BUDGET, new Operation() {
+      @Override
+      public int run() throws Exception {
+        GenericsUtils.copyContent(source, destination);
+        return destination.intValue;
+      }
+    });
+    assertEquals(4L, destination.longValue);
+  }
+
+  @Test
+  public void testCopyContentNumbers() throws Exception {
+    final ModelNumbers source = new ModelNumbers();
+    source.longValue = Long.MAX_VALUE;
+    source.doubleValue = 1234.5678d;
+    source.quantity = 100000;
+    final ModelNumbers destination = new ModelNumbers();
+    assertBudget("copyContent(numbers)", COPY_CONTENT_BUDGET, new Operation() {
+      @Override
+      public int run() throws Exception {
+        GenericsUtils.copyContent(source, destination);
+        return destination.quantity;
+      }
+    });
+    assertEquals(Long.MAX_VALUE, destination.longValue);
+    assertEquals(100000, destination.quantity);
+  }
+
+  @Test
+  public void testCopyContentInheritance() throws Exception {
+    final ModelThridLevel source = new ModelThridLevel();
+    final ModelThridLevel destination = new ModelThridLevel();
+    assertBudget("copyContent(inheritance)", COPY_CONTENT_BUDGET, new Operation() {
+      @Override
+      public int run() throws Exception {
+        GenericsUtils.copyContent(source, destination);
+        return 1;
+      }
+    });
+  }
+
+  @Test
+  public void testObjectPool() throws Exception {
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    final ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class);
+    assertBudget("ObjectPool.acquire/release", OBJECT_POOL_BUDGET, new Operation() {
+      @Override
+      public int run() throws Exception {
+        final ModelPooled message = pool.acquire(source);
+        final int value = message.intValue;
+        pool.release(message);
+        return value;
+      }
+    });
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void testSuperClassGenericType() throws Exception {
+    assertBudget("getSuperClassGenericType", SUPER_CLASS_GENERIC_TYPE_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        final Class<?> type = GenericsUtils.getSuperClassGenericType(ModelThridLevel.class, Model.class, 2);
+        return type == String.class ? 1 : 0;
+      }
+    });
+    assertBudget("getSuperClassGenericType(interface)", SUPER_CLASS_GENERIC_TYPE_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        final Class<?> type = GenericsUtils.getSuperClassGenericType(ModelNoProxy.class, IModel.class, 0);
+        return type == String.class ? 1 : 0;
+      }
+    });
+    assertBudget("getSuperClassGenericType(first)", SUPER_CLASS_GENERIC_TYPE_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        final Class<?> type = GenericsUtils.getSuperClassGenericType(ModelNoProxy.class, Model.class);
+        return type == String.class ? 1 : 0;
+      }
+    });
+  }
+
+  @Test
+  public void testGetClass() throws Exception {
+    assertBudget("getClass", GET_CLASS_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        return GenericsUtils.getClass(ModelThridLevel.class, Model.class) != null ? 1 : 0;
+      }
+    });
+    assertBudget("getClass(interface)", GET_CLASS_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        return GenericsUtils.getClass(ModelThridLevel.class, IModel.class) != null ? 1 : 0;
+      }
+    });
+    assertBudget("isSubtype", GET_CLASS_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        return GenericsUtils.isSubtype(ModelThridLevel.class, IModel.class) ? 1 : 0;
+      }
+    });
+  }
+
+  @Test
+  public void testCheckModifiers() throws Exception {
+    final Field field = ModelPrimitives.class.getDeclaredField("volatileValue");
+    assertBudget("checkModifiers", CHECK_MODIFIERS_VARARGS_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        return GenericsUtils.checkModifiers(field, false, Modifier.STATIC, Modifier.VOLATILE) ? 1 : 0;
+      }
+    });
+    assertBudget("checkModifierMask", CHECK_MODIFIERS_BUDGET, new Operation() {
+      @Override
+      public int run() {
+        return GenericsUtils.checkModifierMask(field, false, Modifier.STATIC | Modifier.VOLATILE) ? 1 : 0;
+      }
+    });
+  }
+}
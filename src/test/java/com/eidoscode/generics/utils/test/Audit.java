@@ -0,0 +1,19 @@
+package com.eidoscode.generics.utils.test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to mark audit fields on the field filter tests.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Audit {
+
+}
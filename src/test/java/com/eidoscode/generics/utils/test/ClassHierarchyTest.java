@@ -0,0 +1,88 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the indexed class hierarchy against the recursive
+ * implementation of the previous versions.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class ClassHierarchyTest {
+
+  private static final Class<?>[] CLASSES = { Object.class, Model.class, ModelFirstLevel.class, ModelSecondLevel.class, ModelThridLevel.class,
+      ModelNoProxy.class, IModel.class, UserRepository.class, AbstractRepository.class, IRepository.class, Serializable.class, Comparable.class,
+      ArrayList.class, List.class, Collection.class, RandomAccess.class, String.class, int.class, String[].class, Object[].class, Cloneable.class };
+
+  /**
+   * The recursive implementation of the version 1.1.5.
+   */
+  private static Class<?> legacyGetClass(final Class<?> clazz, Class<?> clazzType) {
+    Class<?> retClass = null;
+
+    if (clazzType == null || clazzType.isAssignableFrom(clazz)) {
+      retClass = clazz;
+    }
+
+    if (clazzType != null) {
+      if (clazz.getSuperclass() != null) {
+        Class<?> checkedClass = null;
+        checkedClass = legacyGetClass(clazz.getSuperclass(), clazzType);
+        if (checkedClass != null) {
+          retClass = checkedClass;
+        } else if (clazz.isAssignableFrom(clazzType)) {
+          retClass = checkedClass;
+        }
+      }
+    }
+    return retClass;
+  }
+
+  @Test
+  public void testSameResultOfLegacyGetClass() {
+    for (int round = 0; round < 2; round++) {
+      for (Class<?> clazz : CLASSES) {
+        assertEquals(clazz, GenericsUtils.getClass(clazz, null));
+        for (Class<?> type : CLASSES) {
+          assertEquals(clazz + " " + type, legacyGetClass(clazz, type), GenericsUtils.getClass(clazz, type));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testIsSubtype() {
+    for (Class<?> clazz : CLASSES) {
+      for (Class<?> type : CLASSES) {
+        assertEquals(clazz + " " + type, type.isAssignableFrom(clazz), GenericsUtils.isSubtype(clazz, type));
+      }
+    }
+    assertTrue(GenericsUtils.isSubtype(ModelThridLevel.class, IModel.class));
+    assertFalse(GenericsUtils.isSubtype(IModel.class, ModelThridLevel.class));
+  }
+
+  @Test
+  public void testGetClassImplementation() {
+    assertEquals(ModelFirstLevel.class, GenericsUtils.getClass(ModelThridLevel.class, Model.class));
+    assertEquals(Model.class, GenericsUtils.getClass(ModelThridLevel.class, IModel.class));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testIsSubtypeNullType() {
+    GenericsUtils.isSubtype(Object.class, null);
+  }
+}
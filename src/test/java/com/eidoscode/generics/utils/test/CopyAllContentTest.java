@@ -0,0 +1,109 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+public class CopyAllContentTest {
+
+  private static List<ModelPrimitives> sources(int size) {
+    List<ModelPrimitives> sources = new ArrayList<ModelPrimitives>(size);
+    for (int i = 0; i < size; i++) {
+      ModelPrimitives source = new ModelPrimitives().fill();
+      source.intValue = i;
+      sources.add(source);
+    }
+    return sources;
+  }
+
+  @Test
+  public void testCopyAllContentList() throws Exception {
+    List<ModelPrimitives> sources = sources(100);
+    List<ModelPrimitives> destinations = new LinkedList<ModelPrimitives>();
+    for (int i = 0; i < sources.size(); i++) {
+      destinations.add(new ModelPrimitives());
+    }
+    GenericsUtils.copyAllContent(sources, destinations);
+    for (int i = 0; i < sources.size(); i++) {
+      assertEquals(i, destinations.get(i).intValue);
+      assertEquals("TEXT", destinations.get(i).text);
+    }
+  }
+
+  @Test
+  public void testCopyAllContentArray() throws Exception {
+    ModelPrimitives[] sources = sources(100).toArray(new ModelPrimitives[0]);
+    ModelPrimitives[] destinations = new ModelPrimitives[sources.length];
+    for (int i = 0; i < destinations.length; i++) {
+      destinations[i] = new ModelPrimitives();
+    }
+    GenericsUtils.copyAllContent(sources, destinations);
+    for (int i = 0; i < sources.length; i++) {
+      assertEquals(i, destinations[i].intValue);
+    }
+  }
+
+  @Test
+  public void testCopyAllContentNewInstances() throws Exception {
+    List<ModelPrimitives> sources = sources(1000);
+    List<ModelPrimitives> destinations = GenericsUtils.copyAllContent(sources, ModelPrimitives.class, 10);
+    assertEquals(sources.size(), destinations.size());
+    for (int i = 0; i < sources.size(); i++) {
+      assertNotSame(sources.get(i), destinations.get(i));
+      assertEquals(i, destinations.get(i).intValue);
+    }
+  }
+
+  @Test
+  public void testCopyThreadsWithoutContextClassLoader() throws Exception {
+    GenericsUtils.copyAllContent(sources(1000), ModelPrimitives.class, 10);
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith("generics-utils-copy-")) {
+        assertTrue(thread.isDaemon());
+        assertNull(thread.getContextClassLoader());
+      }
+    }
+  }
+
+  @Test
+  public void testCopyAllContentMixedClasses() throws Exception {
+    Model<String, String, String> first = new Model<String, String, String>();
+    first.pub = "FIRST";
+    ModelThridLevel second = new ModelThridLevel();
+    second.pub = "SECOND";
+    List<Model<String, String, String>> sources = new ArrayList<Model<String, String, String>>();
+    sources.add(first);
+    sources.add(second);
+    List<ModelThridLevel> destinations = Arrays.asList(new ModelThridLevel(), new ModelThridLevel());
+    GenericsUtils.copyAllContent(sources, destinations);
+    assertEquals("FIRST", destinations.get(0).getPub());
+    assertEquals("SECOND", destinations.get(1).getPub());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCopyAllContentDifferentSizes() throws Exception {
+    GenericsUtils.copyAllContent(sources(2), sources(3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCopyAllContentInvalidThreshold() throws Exception {
+    GenericsUtils.copyAllContent(sources(2), sources(2), 0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testCopyAllContentNullElement() throws Exception {
+    List<ModelPrimitives> destinations = sources(2);
+    destinations.set(1, null);
+    GenericsUtils.copyAllContent(sources(2), destinations);
+  }
+}
@@ -0,0 +1,137 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.ChangedFields;
+import com.eidoscode.generics.utils.FieldFilter;
+import com.eidoscode.generics.utils.GenericsUtils;
+import com.eidoscode.generics.utils.ReferenceComparison;
+
+/**
+ * Unit test to check the delta copy.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class CopyChangedContentTest {
+
+  @Test
+  public void testNothingChanged() throws Exception {
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    final ModelPrimitives destination = new ModelPrimitives();
+    GenericsUtils.copyContent(source, destination);
+
+    final ChangedFields changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.IDENTITY);
+    assertSame(ChangedFields.NONE, changed);
+    assertTrue(changed.isEmpty());
+    assertEquals(0, changed.size());
+  }
+
+  @Test
+  public void testPrimitivesChanged() throws Exception {
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    final ModelPrimitives destination = new ModelPrimitives().fill();
+    source.intValue = 30;
+    source.doubleValue = Double.NaN;
+    destination.doubleValue = Double.NaN;
+    source.charValue = 'x';
+
+    final ChangedFields changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.IDENTITY);
+    assertEquals(Arrays.asList("charValue", "intValue"), changed.getNames());
+    assertEquals(2, changed.size());
+    assertTrue(changed.contains("intValue"));
+    assertFalse(changed.contains("doubleValue"));
+    assertEquals(30, destination.intValue);
+    assertEquals('x', destination.charValue);
+  }
+
+  @Test
+  public void testWidenedChanged() throws Exception {
+    final ModelNumbers source = new ModelNumbers();
+    source.charValue = 'c';
+    source.intValue = 7;
+    source.longValue = 1L << 40;
+    source.floatValue = Float.NaN;
+    source.doubleValue = 2.5d;
+    source.quantity = 10;
+    // the fields with the same name and a wider type are converted
+    final ModelWidened destination = new ModelWidened();
+    GenericsUtils.<Object, Object> copyContent(source, destination);
+
+    assertSame(ChangedFields.NONE, GenericsUtils.<Object, Object> copyChangedContent(source, destination, ReferenceComparison.IDENTITY));
+    source.quantity = 11;
+    source.charValue = 'd';
+    final ChangedFields changed = GenericsUtils.<Object, Object> copyChangedContent(source, destination, ReferenceComparison.IDENTITY);
+    assertEquals(Arrays.asList("charValue", "quantity"), changed.getNames());
+    assertEquals(11L, destination.quantity);
+    assertEquals('d', destination.charValue);
+    assertEquals(Double.valueOf(2.5d), destination.doubleValue);
+  }
+
+  @Test
+  public void testFieldsAreNotShared() throws Exception {
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    final ModelPrimitives destination = new ModelPrimitives();
+    final ChangedFields changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.IDENTITY);
+    final Field field = changed.getFields().get(0);
+    assertFalse(field.isAccessible());
+    assertNotSame(field, changed.getFields().get(0));
+    assertEquals(field.getName(), changed.getNames().get(0));
+  }
+
+  @Test
+  public void testReferenceComparison() throws Exception {
+    final ModelFiltered source = new ModelFiltered().fill();
+    final ModelFiltered destination = new ModelFiltered();
+    GenericsUtils.copyContent(source, destination);
+    final String equalName = new String(source.getName());
+    source.name = equalName;
+
+    ChangedFields changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.EQUALS);
+    assertTrue(changed.isEmpty());
+    assertNotSame(equalName, destination.getName());
+
+    changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.IDENTITY);
+    assertEquals(Arrays.asList("name"), changed.getNames());
+    assertSame(equalName, destination.getName());
+  }
+
+  @Test
+  public void testNullReferences() throws Exception {
+    final ModelFiltered source = new ModelFiltered().fill();
+    final ModelFiltered destination = new ModelFiltered();
+
+    ChangedFields changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.EQUALS);
+    assertEquals(Arrays.asList("name", "version", "session", "updatedAt", "updatedBy", "children"), changed.getNames());
+
+    changed = GenericsUtils.copyChangedContent(new ModelFiltered(), destination, ReferenceComparison.EQUALS);
+    assertEquals(6, changed.size());
+    assertEquals(null, destination.getName());
+  }
+
+  @Test
+  public void testFilteredDelta() throws Exception {
+    final ModelFiltered source = new ModelFiltered().fill();
+    final ModelFiltered destination = new ModelFiltered();
+    final ChangedFields changed = GenericsUtils.copyChangedContent(source, destination, ReferenceComparison.EQUALS,
+        FieldFilter.ALL.excludeModifiers(Modifier.TRANSIENT).excludeAnnotations(Audit.class));
+    assertEquals(Arrays.asList("name", "version", "children"), changed.getNames());
+    assertEquals(null, destination.getSession());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullComparison() throws Exception {
+    GenericsUtils.copyChangedContent(new ModelFiltered(), new ModelFiltered(), null);
+  }
+}
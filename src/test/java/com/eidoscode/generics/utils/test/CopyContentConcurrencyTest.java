@@ -0,0 +1,94 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the copy of objects of the same class from many threads.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class CopyContentConcurrencyTest {
+
+  @Test
+  public void testConcurrentCopyContent() throws Exception {
+    final int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int t = 0; t < threads; t++) {
+        final int id = t;
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() throws Exception {
+            ModelPrimitives source = new ModelPrimitives().fill();
+            ModelPrimitives destination = new ModelPrimitives();
+            for (int i = 0; i < 10000; i++) {
+              source.intValue = id * i;
+              GenericsUtils.copyContent(source, destination);
+              if (destination.intValue != id * i) {
+                return Boolean.FALSE;
+              }
+            }
+            return Boolean.TRUE;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertEquals(Boolean.TRUE, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testConcurrentFirstCopy() throws Exception {
+    final int threads = 8;
+    GenericsUtils.clearCache();
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<ModelNumbers>> results = new ArrayList<Future<ModelNumbers>>();
+      for (int t = 0; t < threads; t++) {
+        final int id = t;
+        results.add(executor.submit(new Callable<ModelNumbers>() {
+          @Override
+          public ModelNumbers call() throws Exception {
+            ModelNumbers source = new ModelNumbers();
+            source.quantity = id;
+            source.timestamp = id * 1000L;
+            source.bid = id / 2d;
+            ModelNumbers destination = new ModelNumbers();
+            start.await();
+            // all the threads compute the plan that is not cached yet
+            GenericsUtils.copyContent(source, destination);
+            return destination;
+          }
+        }));
+      }
+      start.countDown();
+      for (int t = 0; t < threads; t++) {
+        ModelNumbers destination = results.get(t).get();
+        assertEquals(t, destination.quantity);
+        assertEquals(t * 1000L, destination.timestamp);
+        assertEquals(t / 2d, destination.bid, 0d);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.FieldFilter;
+import com.eidoscode.generics.utils.GenericsUtils;
+
+public class CopyContentOnWriteTest {
+
+  @Test(expected = NullPointerException.class)
+  public void testNullSource() throws IllegalAccessException, NoSuchFieldException {
+    GenericsUtils.copyContentOnWrite(null, new Object());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullDestination() throws IllegalAccessException, NoSuchFieldException {
+    GenericsUtils.copyContentOnWrite(new Object(), null);
+  }
+
+  @Test
+  public void testSmallCollectionsAreCopied() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(3);
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination);
+    assertEquals(source.list, destination.list);
+    assertNotSame(source.list, destination.list);
+    assertEquals(TreeSet.class, destination.set.getClass());
+    assertTrue(destination.set.contains("S1"));
+    assertNotSame(source.map, destination.map);
+    assertEquals(source.map, destination.map);
+    destination.list.add(100);
+    assertEquals(3, source.list.size());
+  }
+
+  @Test
+  public void testArraysAreCopied() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(0);
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination);
+    assertNotSame(source.numbers, destination.numbers);
+    assertEquals(3, destination.numbers[2]);
+    assertNotSame(source.names, destination.names);
+    assertSame(source.names[0], destination.names[0]);
+    destination.numbers[0] = 10;
+    assertEquals(1, source.numbers[0]);
+  }
+
+  @Test
+  public void testNullValues() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections();
+    ModelCollections destination = new ModelCollections().fill(100);
+    GenericsUtils.copyContentOnWrite(source, destination);
+    assertNull(destination.list);
+    assertNull(destination.numbers);
+  }
+
+  @Test
+  public void testLargeListIsCopiedOnWrite() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(100);
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination, FieldFilter.ALL, true);
+    assertEquals(100, destination.list.size());
+    assertEquals(source.list, destination.list);
+
+    destination.list.set(0, -1);
+    destination.list.add(100);
+    assertEquals(Integer.valueOf(0), source.list.get(0));
+    assertEquals(100, source.list.size());
+    assertEquals(Integer.valueOf(-1), destination.list.get(0));
+    assertEquals(101, destination.list.size());
+
+    // The last owner changes the shared list without copying it
+    source.list.remove(0);
+    assertEquals(99, source.list.size());
+    assertEquals(101, destination.list.size());
+  }
+
+  @Test
+  public void testLargeConcreteFieldIsCopied() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(100);
+    ArrayList<Integer> original = source.arrayList;
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination);
+    assertSame(original, source.arrayList);
+    assertEquals(ArrayList.class, destination.arrayList.getClass());
+    assertNotSame(original, destination.arrayList);
+  }
+
+  @Test
+  public void testLargeSetIsCopiedOnWrite() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(100);
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination, FieldFilter.ALL, true);
+    assertTrue(destination.set.contains("S5"));
+    assertTrue(destination.set.remove("S5"));
+    assertFalse(destination.set.contains("s5"));
+    assertTrue(source.set.contains("s5"));
+
+    for (Iterator<String> i = source.set.iterator(); i.hasNext();) {
+      if (i.next().endsWith("0")) {
+        i.remove();
+      }
+    }
+    assertEquals(90, source.set.size());
+    assertEquals(99, destination.set.size());
+  }
+
+  @Test
+  public void testLargeMapIsCopiedOnWrite() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(100);
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination, FieldFilter.ALL, true);
+    assertEquals(source.map, destination.map);
+    for (Map.Entry<String, Integer> entry : destination.map.entrySet()) {
+      entry.setValue(entry.getValue() + 1);
+    }
+    assertEquals(Integer.valueOf(1), destination.map.get("k0"));
+    assertEquals(Integer.valueOf(0), source.map.get("k0"));
+
+    for (Iterator<String> i = source.map.keySet().iterator(); i.hasNext();) {
+      if (i.next().endsWith("0")) {
+        i.remove();
+      }
+    }
+    assertEquals(90, source.map.size());
+    assertEquals(100, destination.map.size());
+  }
+
+  @Test
+  public void testCopyOfCopy() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(100);
+    ModelCollections first = new ModelCollections();
+    ModelCollections second = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, first, FieldFilter.ALL, true);
+    first.list.add(100);
+    GenericsUtils.copyContentOnWrite(first, second);
+    assertEquals(101, second.list.size());
+    second.list.clear();
+    assertEquals(100, source.list.size());
+    assertEquals(101, first.list.size());
+    assertTrue(second.list.isEmpty());
+    source.list.clear();
+    assertEquals(101, first.list.size());
+  }
+
+  @Test
+  public void testSourceIsNotChanged() throws IllegalAccessException, NoSuchFieldException {
+    ModelCollections source = new ModelCollections().fill(100);
+    List<Integer> list = source.list;
+    Map<String, Integer> map = source.map;
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination);
+    assertSame(list, source.list);
+    assertSame(map, source.map);
+    assertEquals(ArrayList.class, destination.list.getClass());
+    assertEquals(HashMap.class, destination.map.getClass());
+
+    list.add(100);
+    map.put("other", 1);
+    assertEquals(100, destination.list.size());
+    assertFalse(destination.map.containsKey("other"));
+  }
+
+  @Test
+  public void testWrappersAreSerializable() throws Exception {
+    ModelCollections source = new ModelCollections().fill(100);
+    ModelCollections destination = new ModelCollections();
+    GenericsUtils.copyContentOnWrite(source, destination, FieldFilter.ALL, true);
+    destination.list.add(100);
+    assertTrue(source.list instanceof Serializable);
+
+    List<?> list = (List<?>) roundTrip(destination.list);
+    assertEquals(ArrayList.class, list.getClass());
+    assertEquals(destination.list, list);
+    assertEquals(source.set, roundTrip(source.set));
+    assertEquals(source.map, roundTrip(destination.map));
+    assertEquals(HashMap.class, roundTrip(destination.map).getClass());
+  }
+
+  private static Object roundTrip(Object value) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(value);
+    out.close();
+    return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+  }
+}
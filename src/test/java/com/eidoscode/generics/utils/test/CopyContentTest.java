@@ -26,4 +26,47 @@ public class CopyContentTest {
     GenericsUtils.copyContent(source, destination);
     assertEquals(source.def, destination.def);
   }
+
+  @Test
+  public void testCopyContentToSubClass() throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {
+    Model<String, String, String> source = new Model<String, String, String>();
+    source.pub = "ABC";
+    source.def = "DEF";
+    ModelThridLevel destination = new ModelThridLevel();
+    GenericsUtils.copyContent(source, destination);
+    assertEquals("ABC", destination.getPub());
+    assertEquals("DEF", destination.getDef());
+    assertEquals(source.getX(), destination.getX());
+  }
+
+  @Test
+  public void testCopyContentSuperClassFields() throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {
+    ModelThridLevel source = new ModelThridLevel();
+    source.pub = "ABC";
+    ModelThridLevel destination = new ModelThridLevel();
+    GenericsUtils.copyContent(source, destination);
+    assertEquals("ABC", destination.getPub());
+    // Copy it again using the cached plan
+    source.pub = "XYZ";
+    GenericsUtils.copyContent(source, destination);
+    assertEquals("XYZ", destination.getPub());
+  }
+
+  @Test
+  public void testCopyContentPrimitives() throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {
+    ModelPrimitives source = new ModelPrimitives().fill();
+    ModelPrimitives destination = new ModelPrimitives();
+    GenericsUtils.copyContent(source, destination);
+    assertEquals(true, destination.booleanValue);
+    assertEquals(1, destination.byteValue);
+    assertEquals('c', destination.charValue);
+    assertEquals(2, destination.shortValue);
+    assertEquals(3, destination.intValue);
+    assertEquals(4L, destination.longValue);
+    assertEquals(5.5f, destination.floatValue, 0f);
+    assertEquals(6.6d, destination.doubleValue, 0d);
+    assertEquals(7, destination.volatileValue);
+    assertEquals("VOLATILE", destination.volatileText);
+    assertEquals("TEXT", destination.text);
+  }
 }
@@ -0,0 +1,169 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+public class DeepCopyTest {
+
+  private static ModelGraph graph() {
+    ModelGraph root = new ModelGraph();
+    root.name = "ROOT";
+    root.number = 10;
+    root.status = ModelGraph.Status.ACTIVE;
+    root.values = new int[] { 1, 2, 3 };
+    root.primitives = new ModelPrimitives().fill();
+    root.list.add(root.primitives);
+    root.map.put("KEY", root.primitives);
+    root.sorted = new TreeSet<String>(Collections.reverseOrder());
+    root.sorted.add("A");
+    root.sorted.add("B");
+    ModelGraph child = new ModelGraph();
+    child.name = "CHILD";
+    child.parent = root;
+    root.children = new ModelGraph[] { child, child };
+    return root;
+  }
+
+  @Test
+  public void testDeepCopyNull() throws Exception {
+    assertNull(GenericsUtils.deepCopy(null));
+  }
+
+  @Test
+  public void testDeepCopy() throws Exception {
+    ModelGraph source = graph();
+    ModelGraph copy = GenericsUtils.deepCopy(source);
+
+    assertNotSame(source, copy);
+    assertSame(source.name, copy.name);
+    assertSame(source.number, copy.number);
+    assertSame(source.status, copy.status);
+
+    assertNotSame(source.values, copy.values);
+    assertArrayEquals(source.values, copy.values);
+
+    assertNotSame(source.primitives, copy.primitives);
+    assertEquals("TEXT", copy.primitives.text);
+    assertEquals(3, copy.primitives.intValue);
+
+    assertNotSame(source.list, copy.list);
+    assertSame(copy.primitives, copy.list.get(0));
+    assertSame(copy.primitives, copy.map.get("KEY"));
+
+    assertNotSame(source.sorted, copy.sorted);
+    assertEquals("B", copy.sorted.first());
+  }
+
+  @Test
+  public void testDeepCopyCycles() throws Exception {
+    ModelGraph source = graph();
+    ModelGraph copy = GenericsUtils.deepCopy(source);
+
+    assertNotSame(source.children, copy.children);
+    assertNotSame(source.children[0], copy.children[0]);
+    assertSame(copy.children[0], copy.children[1]);
+    assertSame(copy, copy.children[0].parent);
+    assertEquals("CHILD", copy.children[0].name);
+  }
+
+  @Test
+  public void testDeepCopyContent() throws Exception {
+    ModelGraph source = graph();
+    ModelGraph destination = new ModelGraph();
+    GenericsUtils.deepCopyContent(source, destination);
+
+    assertNotSame(source.primitives, destination.primitives);
+    assertSame(destination, destination.children[0].parent);
+  }
+
+  @Test
+  public void testDeepCopyLongChain() throws Exception {
+    ModelGraph source = new ModelGraph();
+    ModelGraph last = source;
+    for (int i = 1; i < 100000; i++) {
+      ModelGraph node = new ModelGraph();
+      node.number = i;
+      last.parent = node;
+      last = node;
+    }
+    ModelGraph copy = GenericsUtils.deepCopy(source);
+
+    int count = 0;
+    for (ModelGraph node = copy; node != null; node = node.parent) {
+      assertEquals(count == 0 ? null : Integer.valueOf(count), node.number);
+      count++;
+    }
+    assertEquals(100000, count);
+  }
+
+  @Test
+  public void testDeepCopyAccessOrder() throws Exception {
+    LinkedHashMap<String, String> source = new LinkedHashMap<String, String>(16, 0.75f, true);
+    source.put("A", "1");
+    source.put("B", "2");
+    source.put("C", "3");
+    source.get("A");
+    LinkedHashMap<String, String> copy = GenericsUtils.deepCopy(source);
+
+    assertEquals(Arrays.asList("B", "C", "A"), new ArrayList<String>(copy.keySet()));
+    copy.get("B");
+    assertEquals(Arrays.asList("C", "A", "B"), new ArrayList<String>(copy.keySet()));
+  }
+
+  @Test
+  public void testDeepCopyNestedHashes() throws Exception {
+    Set<List<String>> set = new HashSet<List<String>>();
+    set.add(new ArrayList<String>(Arrays.asList("A", "B")));
+    Map<Set<List<String>>, String> source = new HashMap<Set<List<String>>, String>();
+    source.put(set, "VALUE");
+    Map<Set<List<String>>, String> copy = GenericsUtils.deepCopy(source);
+
+    Set<List<String>> copiedSet = copy.keySet().iterator().next();
+    assertNotSame(set, copiedSet);
+    assertTrue(copiedSet.contains(Arrays.asList("A", "B")));
+    assertEquals("VALUE", copy.get(set));
+  }
+
+  @Test
+  public void testDeepCopySharedHashedContainer() throws Exception {
+    Holder source = new Holder();
+    source.list = new ArrayList<String>(Arrays.asList("A", "B"));
+    source.set = new HashSet<List<String>>();
+    source.set.add(source.list);
+    Holder copy = GenericsUtils.deepCopy(source);
+
+    assertNotSame(source.list, copy.list);
+    assertSame(copy.list, copy.set.iterator().next());
+    assertTrue(copy.set.contains(copy.list));
+    assertTrue(copy.set.contains(Arrays.asList("A", "B")));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testDeepCopyContentNullDestination() throws Exception {
+    GenericsUtils.deepCopyContent(graph(), null);
+  }
+
+  static class Holder {
+    List<String> list;
+    Set<List<String>> set;
+  }
+}
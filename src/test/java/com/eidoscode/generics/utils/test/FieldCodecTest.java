@@ -0,0 +1,119 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Modifier;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.FieldCodec;
+import com.eidoscode.generics.utils.FieldFilter;
+
+/**
+ * Unit test to check the binary codec of the fields.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class FieldCodecTest {
+
+  private void assertRoundTrip(ByteBuffer buffer) throws Exception {
+    final FieldCodec<ModelPrimitives> codec = FieldCodec.of(ModelPrimitives.class);
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    source.text = "a\u0000ç€ z";
+    source.volatileText = null;
+    final int size = codec.sizeOf(source);
+
+    codec.writeHeader(buffer);
+    codec.write(source, buffer);
+    assertEquals(8 + size, buffer.position());
+    buffer.flip();
+
+    codec.readHeader(buffer);
+    final ModelPrimitives target = codec.read(buffer);
+    assertEquals(0, buffer.remaining());
+    assertTrue(target.booleanValue);
+    assertEquals(1, target.byteValue);
+    assertEquals('c', target.charValue);
+    assertEquals(2, target.shortValue);
+    assertEquals(3, target.intValue);
+    assertEquals(4L, target.longValue);
+    assertEquals(5.5f, target.floatValue, 0f);
+    assertEquals(6.6d, target.doubleValue, 0d);
+    assertEquals(7, target.volatileValue);
+    assertNull(target.volatileText);
+    assertEquals(source.text, target.text);
+  }
+
+  @Test
+  public void testHeapBuffer() throws Exception {
+    assertRoundTrip(ByteBuffer.allocate(256));
+  }
+
+  @Test
+  public void testDirectBuffer() throws Exception {
+    assertRoundTrip(ByteBuffer.allocateDirect(256).order(ByteOrder.LITTLE_ENDIAN));
+  }
+
+  @Test
+  public void testCached() {
+    assertSame(FieldCodec.of(ModelPrimitives.class), FieldCodec.of(ModelPrimitives.class));
+  }
+
+  @Test
+  public void testOverflowRestoresPosition() throws Exception {
+    final FieldCodec<ModelPrimitives> codec = FieldCodec.of(ModelPrimitives.class);
+    final ByteBuffer buffer = ByteBuffer.allocate(40);
+    buffer.putInt(1);
+    try {
+      codec.write(new ModelPrimitives().fill(), buffer);
+      fail("The buffer is too small");
+    } catch (BufferOverflowException e) {
+      assertEquals(4, buffer.position());
+    }
+  }
+
+  @Test
+  public void testUnsupportedField() {
+    try {
+      FieldCodec.of(ModelFiltered.class);
+      fail("The fields of type Date and List are not supported");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testFilter() throws Exception {
+    final FieldCodec<ModelFiltered> codec = FieldCodec.of(ModelFiltered.class,
+        FieldFilter.ALL.excludeModifiers(Modifier.TRANSIENT).excludeAnnotations(Audit.class).excludeTypes(java.util.List.class));
+    final ByteBuffer buffer = ByteBuffer.allocate(64);
+    codec.write(new ModelFiltered().fill(), buffer);
+    buffer.flip();
+    final ModelFiltered target = codec.read(buffer);
+    assertEquals("name", target.getName());
+    assertEquals(3, target.getVersion());
+    assertNull(target.getChildren());
+  }
+
+  @Test
+  public void testLayoutMismatch() {
+    final ByteBuffer buffer = ByteBuffer.allocate(16);
+    FieldCodec.of(ModelPrimitives.class).writeHeader(buffer);
+    buffer.flip();
+    try {
+      FieldCodec.of(ModelPrimitives.class, FieldFilter.ALL.excludeNames("text")).readHeader(buffer);
+      fail("The layouts are different");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+}
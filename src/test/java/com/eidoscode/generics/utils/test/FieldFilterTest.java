@@ -0,0 +1,118 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.FieldFilter;
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the copies with field filters.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class FieldFilterTest {
+
+  private static final FieldFilter NO_TRANSIENT_NOR_AUDIT = FieldFilter.ALL.excludeModifiers(Modifier.TRANSIENT).excludeAnnotations(Audit.class);
+
+  @Test
+  public void testAllFields() throws Exception {
+    final ModelFiltered source = new ModelFiltered().fill();
+    final ModelFiltered destination = new ModelFiltered();
+    GenericsUtils.copyContent(source, destination, FieldFilter.ALL);
+
+    assertEquals("name", destination.getName());
+    assertSame(source.getSession(), destination.getSession());
+    assertEquals("admin", destination.getUpdatedBy());
+  }
+
+  @Test
+  public void testExcludeModifiersAndAnnotations() throws Exception {
+    final ModelFiltered destination = new ModelFiltered();
+    for (int i = 0; i < 3; i++) {
+      GenericsUtils.copyContent(new ModelFiltered().fill(), destination, NO_TRANSIENT_NOR_AUDIT);
+    }
+
+    assertEquals("name", destination.getName());
+    assertEquals(3, destination.getVersion());
+    assertNotNull(destination.getChildren());
+    assertNull(destination.getSession());
+    assertNull(destination.getUpdatedAt());
+    assertNull(destination.getUpdatedBy());
+  }
+
+  @Test
+  public void testIncludeAnnotations() throws Exception {
+    final ModelFiltered destination = new ModelFiltered();
+    GenericsUtils.copyContent(new ModelFiltered().fill(), destination, FieldFilter.ALL.includeAnnotations(Audit.class));
+
+    assertEquals("admin", destination.getUpdatedBy());
+    assertEquals(1000L, destination.getUpdatedAt().getTime());
+    assertNull(destination.getName());
+    assertEquals(0, destination.getVersion());
+  }
+
+  @Test
+  public void testNamesAndTypes() throws Exception {
+    ModelFiltered destination = new ModelFiltered();
+    GenericsUtils.copyContent(new ModelFiltered().fill(), destination, FieldFilter.ALL.includeNames("name", "version").excludeNames("version"));
+    assertEquals("name", destination.getName());
+    assertEquals(0, destination.getVersion());
+
+    destination = new ModelFiltered();
+    GenericsUtils.copyContent(new ModelFiltered().fill(), destination, FieldFilter.ALL.excludeTypes(Object.class));
+    assertEquals(3, destination.getVersion());
+    assertNull(destination.getChildren());
+    assertNull(destination.getName());
+
+    destination = new ModelFiltered();
+    GenericsUtils.copyContent(new ModelFiltered().fill(), destination, FieldFilter.ALL.includeTypes(int.class, Collection.class));
+    assertEquals(3, destination.getVersion());
+    assertNotNull(destination.getChildren());
+    assertNull(destination.getName());
+  }
+
+  @Test
+  public void testRequireModifiers() throws Exception {
+    final ModelFiltered destination = new ModelFiltered();
+    GenericsUtils.copyContent(new ModelFiltered().fill(), destination, FieldFilter.ALL.requireModifiers(Modifier.TRANSIENT));
+    assertNotNull(destination.getSession());
+    assertNull(destination.getName());
+  }
+
+  @Test
+  public void testStaticFieldsAreNeverAccepted() throws Exception {
+    assertFalse(FieldFilter.ALL.accept(ModelModifier.class.getDeclaredField("TEST")));
+    assertFalse(FieldFilter.ALL.requireModifiers(Modifier.STATIC).accept(ModelModifier.class.getDeclaredField("TEST")));
+    assertTrue(FieldFilter.ALL.accept(ModelFiltered.class.getDeclaredField("name")));
+  }
+
+  @Test
+  public void testEquality() {
+    final FieldFilter filter = FieldFilter.ALL.excludeModifiers(Modifier.TRANSIENT).excludeAnnotations(Audit.class);
+    assertEquals(NO_TRANSIENT_NOR_AUDIT, filter);
+    assertEquals(NO_TRANSIENT_NOR_AUDIT.hashCode(), filter.hashCode());
+    assertFalse(NO_TRANSIENT_NOR_AUDIT.equals(FieldFilter.ALL));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidAnnotation() {
+    FieldFilter.ALL.excludeAnnotations(String.class);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullFilter() throws Exception {
+    GenericsUtils.copyContent(new ModelFiltered(), new ModelFiltered(), null);
+  }
+}
@@ -0,0 +1,9 @@
+package com.eidoscode.generics.utils.test;
+
+import java.util.List;
+
+public class Garage<T> {
+
+  List<String> stringList;
+  List<? extends Number> numberList;
+}
@@ -0,0 +1,55 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check that the classes generated by the annotation processor
+ * are preferred over the reflection.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class GeneratedSupportTest {
+
+  @Before
+  public void setUp() {
+    GenericsUtils.clearCache(ModelGenerated.class.getClassLoader());
+    ModelGenerated$$GenericsSupport.RESOLVED.set(0);
+    ModelGenerated$$GenericsSupport.COPIED.set(0);
+  }
+
+  @Test
+  public void testGeneratedTypeArguments() {
+    assertEquals(ModelGenerated.class, GenericsUtils.getSuperClassGenericType(ModelGenerated.class, Comparable.class));
+    assertEquals(ModelGenerated.class, GenericsUtils.getSuperClassGenericType(ModelGenerated.class, Comparable.class));
+    assertEquals(1, ModelGenerated$$GenericsSupport.RESOLVED.get());
+  }
+
+  @Test
+  public void testFallbackToReflection() {
+    assertNull(GenericsUtils.getSuperClassGenericType(ModelGenerated.class, List.class));
+    assertEquals(1, ModelGenerated$$GenericsSupport.RESOLVED.get());
+  }
+
+  @Test
+  public void testGeneratedCopy() throws Exception {
+    final ModelGenerated source = new ModelGenerated();
+    source.setName("generated");
+    source.setCount(7);
+    final ModelGenerated destination = new ModelGenerated();
+    GenericsUtils.copyContent(source, destination);
+
+    assertEquals("generated", destination.getName());
+    assertEquals(7, destination.getCount());
+    assertEquals(1, ModelGenerated$$GenericsSupport.COPIED.get());
+  }
+}
@@ -0,0 +1,221 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+import com.eidoscode.generics.utils.GenericsUtilsMetricsMBean;
+
+/**
+ * Unit test to check the persistent cache file. The library and a copy of the
+ * model classes are loaded by an isolated class loader with the metrics
+ * enabled, so the hits of the loaded records can be checked and the copied
+ * class files can be changed.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class GenericsUtilsCacheFileTest {
+
+  private static final String METRICS_PROPERTY = "com.eidoscode.generics.utils.metrics";
+
+  private File file;
+  private File directory;
+  private URLClassLoader classLoader;
+  private Class<?> utils;
+  private Object metrics;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("generics-utils", ".cache");
+    file.delete();
+    directory = File.createTempFile("generics-utils", ".classes");
+    directory.delete();
+    final String packagePath = ModelThridLevel.class.getPackage().getName().replace('.', File.separatorChar);
+    final File source = new File(ModelThridLevel.class.getResource("ModelThridLevel.class").toURI()).getParentFile();
+    final File target = new File(directory, packagePath);
+    assertTrue(target.mkdirs());
+    for (File classFile : source.listFiles()) {
+      if (classFile.getName().startsWith("Model") || classFile.getName().startsWith("IModel")) {
+        copy(classFile, new File(target, classFile.getName()));
+      }
+    }
+
+    final String previous = System.getProperty(METRICS_PROPERTY);
+    System.setProperty(METRICS_PROPERTY, "true");
+    try {
+      classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL(), location(GenericsUtils.class), location(Logger.class) }, null);
+      utils = classLoader.loadClass(GenericsUtils.class.getName());
+      metrics = utils.getMethod("getMetrics").invoke(null);
+    } finally {
+      if (previous == null) {
+        System.clearProperty(METRICS_PROPERTY);
+      } else {
+        System.setProperty(METRICS_PROPERTY, previous);
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    invoke("disableCacheFile");
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : server.queryNames(new ObjectName("com.eidoscode.generics.utils:type=GenericsUtils,*"), null)) {
+      server.unregisterMBean(name);
+    }
+    file.delete();
+    delete(directory);
+  }
+
+  private int resolveAndSave() throws Exception {
+    invoke("clearCache");
+    assertEquals(String.class, superClassGenericType("ModelThridLevel", "Model", 2));
+    assertEquals(String.class, superClassGenericType("ModelNoProxy", "Model", 0));
+    assertEquals(null, superClassGenericType("ModelNoProxy", List.class.getName(), 0));
+    copyPrimitives();
+    final int saved = ((Integer) invoke("saveCache", file)).intValue();
+    assertTrue(saved >= 3);
+    invoke("clearCache");
+    metric("reset");
+    return saved;
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    final int saved = resolveAndSave();
+    assertEquals(Integer.valueOf(saved), invoke("loadCache", file, classLoader));
+    // the calls after the load only hit the loaded records
+    metric("reset");
+
+    assertEquals(String.class, superClassGenericType("ModelThridLevel", "Model", 2));
+    assertEquals(Integer.class, superClassGenericType("ModelNoProxy", "Model", 1));
+    assertEquals(null, superClassGenericType("ModelNoProxy", List.class.getName(), 0));
+    copyPrimitives();
+    assertEquals(Long.valueOf(3), metric("getTypeResolverCacheHits"));
+    assertEquals(Long.valueOf(0), metric("getTypeResolverCacheMisses"));
+    // the copy plans are not written
+    assertEquals(Long.valueOf(0), metric("getCopyPlanCacheHits"));
+    assertEquals(Long.valueOf(1), metric("getCopyPlanCacheMisses"));
+  }
+
+  @Test
+  public void testStaleClass() throws Exception {
+    final int saved = resolveAndSave();
+    final File classFile = new File(classLoader.getResource(ModelThridLevel.class.getName().replace('.', '/') + ".class").toURI());
+    assertTrue(classFile.setLastModified(classFile.lastModified() - 60000L));
+
+    final int loaded = ((Integer) invoke("loadCache", file, classLoader)).intValue();
+    assertTrue(loaded > 0);
+    assertTrue(loaded < saved);
+    metric("reset");
+    assertEquals(String.class, superClassGenericType("ModelThridLevel", "Model", 2));
+    assertEquals(Long.valueOf(1), metric("getTypeResolverCacheMisses"));
+    assertEquals(String.class, superClassGenericType("ModelNoProxy", "Model", 0));
+    assertEquals(Long.valueOf(1), metric("getTypeResolverCacheHits"));
+  }
+
+  @Test
+  public void testEnableAndDisable() throws Exception {
+    final int saved = resolveAndSave();
+    assertEquals(Integer.valueOf(saved), invoke("enableCacheFile", file, classLoader));
+    assertEquals(Boolean.TRUE, invoke("disableCacheFile"));
+    assertEquals(Boolean.FALSE, invoke("disableCacheFile"));
+
+    invoke("enableCacheFile", file, classLoader);
+    invoke("clearCache", classLoader);
+    assertEquals(Boolean.FALSE, invoke("disableCacheFile"));
+  }
+
+  @Test
+  public void testInvalidFile() throws Exception {
+    assertEquals(Integer.valueOf(0), invoke("loadCache", file, classLoader));
+    final FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(new byte[] { 1, 2, 3 });
+    } finally {
+      out.close();
+    }
+    assertEquals(Integer.valueOf(0), invoke("loadCache", file, classLoader));
+    assertFalse(file.length() == 0);
+  }
+
+  private Object superClassGenericType(String clazz, String baseClass, int index) throws Exception {
+    return invoke("getSuperClassGenericType", model(clazz), model(baseClass), Integer.valueOf(index));
+  }
+
+  private void copyPrimitives() throws Exception {
+    final Class<?> primitives = model("ModelPrimitives");
+    invoke("copyContent", primitives.getConstructor().newInstance(), primitives.getConstructor().newInstance());
+  }
+
+  private Class<?> model(String name) throws ClassNotFoundException {
+    return classLoader.loadClass(name.indexOf('.') < 0 ? ModelThridLevel.class.getPackage().getName() + "." + name : name);
+  }
+
+  private Object invoke(String name, Object... args) throws Exception {
+    for (Method method : utils.getMethods()) {
+      if (method.getName().equals(name) && method.getParameterTypes().length == args.length && !method.isVarArgs()) {
+        return method.invoke(null, args);
+      }
+    }
+    throw new NoSuchMethodException(name);
+  }
+
+  private Object metric(String name) throws Exception {
+    return classLoader.loadClass(GenericsUtilsMetricsMBean.class.getName()).getMethod(name).invoke(metrics);
+  }
+
+  private static URL location(Class<?> clazz) {
+    return clazz.getProtectionDomain().getCodeSource().getLocation();
+  }
+
+  private static void copy(File from, File to) throws IOException {
+    final InputStream in = new FileInputStream(from);
+    try {
+      final OutputStream out = new FileOutputStream(to);
+      try {
+        final byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+          out.write(buffer, 0, read);
+        }
+      } finally {
+        out.close();
+      }
+    } finally {
+      in.close();
+    }
+    to.setLastModified(from.lastModified());
+  }
+
+  private static void delete(File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,71 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the cache of the resolved type arguments.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class GenericsUtilsCacheTest {
+
+  @Test
+  public void testCachedSuperClassGenericType() {
+    for (int i = 0; i < 3; i++) {
+      assertEquals(String.class, GenericsUtils.getSuperClassGenericType(ModelNoProxy.class, Model.class, 0));
+      assertEquals(Integer.class, GenericsUtils.getSuperClassGenericType(ModelNoProxy.class, Model.class, 1));
+      assertEquals(Boolean.class, GenericsUtils.getSuperClassGenericType(ModelNoProxy.class, Model.class, 2));
+      assertNull(GenericsUtils.getSuperClassGenericType(ModelNoProxy.class, List.class, 0));
+    }
+  }
+
+  @Test
+  public void testClearCache() {
+    assertEquals(String.class, GenericsUtils.getSuperClassGenericType(ModelThridLevel.class, Model.class, 2));
+    GenericsUtils.clearCache(ModelThridLevel.class.getClassLoader());
+    assertEquals(String.class, GenericsUtils.getSuperClassGenericType(ModelThridLevel.class, Model.class, 2));
+    GenericsUtils.clearCache();
+    assertEquals(String.class, GenericsUtils.getSuperClassGenericType(ModelThridLevel.class, Model.class, 2));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testClearCacheNullClassLoader() {
+    GenericsUtils.clearCache(null);
+  }
+
+  @Test
+  public void testConcurrentSuperClassGenericType() throws Exception {
+    GenericsUtils.clearCache();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Class<?>>> results = new ArrayList<Future<Class<?>>>();
+      for (int i = 0; i < 64; i++) {
+        results.add(executor.submit(new Callable<Class<?>>() {
+          @Override
+          public Class<?> call() {
+            return GenericsUtils.getSuperClassGenericType(ModelWithProxy.class, Model.class, 1);
+          }
+        }));
+      }
+      for (Future<Class<?>> result : results) {
+        assertEquals(Integer.class, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
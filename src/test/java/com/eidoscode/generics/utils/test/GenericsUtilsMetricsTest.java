@@ -0,0 +1,105 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the optional metrics. As the metrics flag is read only
+ * once, the enabled metrics are checked on a copy of the library loaded by an
+ * isolated class loader.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class GenericsUtilsMetricsTest {
+
+  private static final String PROPERTY = "com.eidoscode.generics.utils.metrics";
+
+  @Test
+  public void testDisabledByDefault() {
+    assertNull(GenericsUtils.getMetrics());
+  }
+
+  @Test
+  public void testEnabledMetrics() throws Exception {
+    final String previous = System.getProperty(PROPERTY);
+    System.setProperty(PROPERTY, "true");
+    final URLClassLoader classLoader = new URLClassLoader(new URL[] { location(GenericsUtils.class), location(Logger.class) }, null);
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final ObjectName name = new ObjectName("com.eidoscode.generics.utils:type=GenericsUtils");
+    try {
+      final Class<?> utils = classLoader.loadClass(GenericsUtils.class.getName());
+      assertNotNull(utils.getMethod("getMetrics").invoke(null));
+      assertTrue(server.isRegistered(name));
+      server.setAttribute(name, new Attribute("SlowCallThresholdMillis", Long.valueOf(0L)));
+
+      final Method copyContent = utils.getMethod("copyContent", Object.class, Object.class);
+      for (int i = 0; i < 3; i++) {
+        copyContent.invoke(null, new ModelPrimitives().fill(), new ModelPrimitives());
+      }
+      final Method getSuperClassGenericType = utils.getMethod("getSuperClassGenericType", Class.class, Class.class);
+      assertEquals(String.class, getSuperClassGenericType.invoke(null, ModelNoProxy.class, Model.class));
+      assertEquals(String.class, getSuperClassGenericType.invoke(null, ModelNoProxy.class, Model.class));
+
+      assertEquals(Long.valueOf(3), server.getAttribute(name, "CopyContentCount"));
+      assertEquals(Long.valueOf(0), server.getAttribute(name, "CopyContentFailureCount"));
+      assertEquals(Long.valueOf(1), server.getAttribute(name, "CopyPlanCacheMisses"));
+      assertEquals(Long.valueOf(2), server.getAttribute(name, "CopyPlanCacheHits"));
+      assertEquals(Integer.valueOf(1), server.getAttribute(name, "CopyPlanCacheSize"));
+      assertEquals(Long.valueOf(3), Long.valueOf(sum((long[]) server.getAttribute(name, "CopyContentLatencyHistogram"))));
+
+      assertEquals(Long.valueOf(2), server.getAttribute(name, "SuperClassGenericTypeCount"));
+      assertEquals(Long.valueOf(1), server.getAttribute(name, "TypeResolverCacheMisses"));
+      assertEquals(Long.valueOf(1), server.getAttribute(name, "TypeResolverCacheHits"));
+      assertEquals(Long.valueOf(5), server.getAttribute(name, "SlowCallCount"));
+      assertEquals(Integer.valueOf(1), server.getAttribute(name, "ProxyClassCacheSize"));
+      assertEquals(Integer.valueOf(0), server.getAttribute(name, "RowMapperCacheSize"));
+      assertEquals(Integer.valueOf(0), server.getAttribute(name, "FieldCodecCacheSize"));
+
+      server.invoke(name, "reset", null, null);
+      assertEquals(Long.valueOf(0), server.getAttribute(name, "CopyContentCount"));
+
+      utils.getMethod("clearCache", ClassLoader.class).invoke(null, classLoader);
+      assertFalse(server.isRegistered(name));
+    } finally {
+      if (previous == null) {
+        System.clearProperty(PROPERTY);
+      } else {
+        System.setProperty(PROPERTY, previous);
+      }
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    }
+  }
+
+  private static URL location(Class<?> clazz) {
+    return clazz.getProtectionDomain().getCodeSource().getLocation();
+  }
+
+  private static long sum(long[] values) {
+    long sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+}
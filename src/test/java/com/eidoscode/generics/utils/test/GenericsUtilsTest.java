@@ -1,9 +1,12 @@
 package com.eidoscode.generics.utils.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -60,4 +63,34 @@ public class GenericsUtilsTest {
     mustFalse = GenericsUtils.checkModifiers(field, true, Modifier.FINAL);
     assertEquals(false, mustFalse);
   }
+
+  @Test
+  public void testModifierMask() throws NoSuchFieldException, SecurityException {
+    Field field = ModelModifier.class.getDeclaredField("TEST");
+    assertEquals(true, GenericsUtils.checkModifierMask(field, true, Modifier.STATIC | Modifier.FINAL));
+    assertEquals(true, GenericsUtils.checkModifierMask(field, false, Modifier.STATIC | Modifier.TRANSIENT));
+    field = ModelModifier.class.getDeclaredField("TEST2");
+    assertEquals(false, GenericsUtils.checkModifierMask(field, true, Modifier.STATIC | Modifier.FINAL));
+    assertEquals(false, GenericsUtils.checkModifierMask(field, false, Modifier.FINAL));
+  }
+
+  @Test
+  public void testSuperClassGenericTypes() {
+    Class<?>[] types = GenericsUtils.getSuperClassGenericTypes(ModelNoProxy.class, Model.class);
+    assertArrayEquals(new Class<?>[] { String.class, Integer.class, Boolean.class }, types);
+    types = GenericsUtils.getSuperClassGenericTypes(ModelThridLevel.class, IModel.class);
+    assertArrayEquals(new Class<?>[] { String.class, String.class, String.class }, types);
+  }
+
+  @Test
+  public void testSuperClassGenericTypesNotResolved() {
+    Class<?>[] types = GenericsUtils.getSuperClassGenericTypes(ModelFirstLevel.class, Model.class);
+    assertArrayEquals(new Class<?>[] { null, null, null }, types);
+    assertNull(GenericsUtils.getSuperClassGenericTypes(ModelNoProxy.class, List.class));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testSuperClassGenericTypesNullBase() {
+    GenericsUtils.getSuperClassGenericTypes(Object.class, null);
+  }
 }
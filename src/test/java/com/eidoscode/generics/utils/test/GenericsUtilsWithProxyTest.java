@@ -1,7 +1,11 @@
 package com.eidoscode.generics.utils.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
@@ -9,6 +13,8 @@ import java.lang.reflect.Proxy;
 
 import org.junit.Test;
 
+import com.eidoscode.generics.utils.GenericsUtils;
+
 /**
  * 
  * Unit test to check an object that is not behind a proxy.
@@ -33,6 +39,35 @@ public class GenericsUtilsWithProxyTest {
     assertEquals(Boolean.class, model.getZ());
   }
 
+  @Test
+  public void testGeneratedSubclass() {
+    final Class<?> proxyClass = ModelWithProxy$$EnhancerByCGLIB$$1a2b3c.class;
+    assertSame(ModelWithProxy.class, GenericsUtils.getTargetClass(proxyClass));
+    assertSame(GenericsUtils.getClass(ModelWithProxy.class, ModelWithProxy.class), GenericsUtils.getClass(proxyClass, ModelWithProxy.class));
+    assertEquals(Integer.class, GenericsUtils.getSuperClassGenericType(proxyClass, Model.class, 1));
+    assertSame(ModelWithProxy.class, GenericsUtils.getTargetClass(ModelWithProxy.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testRegisteredJdkProxy() {
+    final Class<?> proxyClass = getProxy(Comparable.class, "").getClass();
+    assertSame(proxyClass, GenericsUtils.getTargetClass(proxyClass));
+    assertNull(GenericsUtils.getSuperClassGenericType(proxyClass, Comparable.class, 0));
+
+    GenericsUtils.registerProxyTarget(proxyClass, String.class);
+    try {
+      assertSame(String.class, GenericsUtils.getTargetClass(proxyClass));
+      assertEquals(String.class, GenericsUtils.getSuperClassGenericType(proxyClass, Comparable.class, 0));
+      assertSame(String.class, GenericsUtils.getClass(proxyClass, Comparable.class));
+    } finally {
+      assertTrue(GenericsUtils.unregisterProxyTarget(proxyClass));
+    }
+    assertSame(proxyClass, GenericsUtils.getTargetClass(proxyClass));
+    assertNull(GenericsUtils.getSuperClassGenericType(proxyClass, Comparable.class, 0));
+    assertFalse(GenericsUtils.unregisterProxyTarget(proxyClass));
+  }
+
   @SuppressWarnings("unchecked")
   public static <T> T getProxy(Class<T> intf, final T obj) {
     return (T) Proxy.newProxyInstance(obj.getClass().getClassLoader(), new Class[] { intf }, new InvocationHandler() {
@@ -0,0 +1,5 @@
+package com.eidoscode.generics.utils.test;
+
+public interface IRepository<E, K> {
+
+}
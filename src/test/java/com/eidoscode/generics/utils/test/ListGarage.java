@@ -0,0 +1,7 @@
+package com.eidoscode.generics.utils.test;
+
+import java.util.List;
+
+public class ListGarage<E> extends Garage<List<E>> {
+
+}
@@ -0,0 +1,145 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+import com.eidoscode.generics.utils.MappingOptions;
+import com.eidoscode.generics.utils.TypeConverter;
+
+/**
+ * Unit test to check the mapping between unrelated classes.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class MapContentTest {
+
+  private static final TypeConverter<Double, String> PRICE_FORMAT = new TypeConverter<Double, String>() {
+    @Override
+    public String convert(Double value) {
+      return String.format("%.2f", value);
+    }
+  };
+
+  private static final TypeConverter<String, Double> PRICE_PARSE = new TypeConverter<String, Double>() {
+    @Override
+    public Double convert(String value) {
+      return Double.valueOf(value);
+    }
+  };
+
+  private static final MappingOptions TO_DTO = MappingOptions.DEFAULT.withFieldName("description", "text").withIgnoredFields("internal")
+      .withConverter(double.class, String.class, PRICE_FORMAT);
+
+  private static final MappingOptions TO_ENTITY = MappingOptions.DEFAULT.withFieldName("text", "description").withConverter(String.class,
+      Double.class, PRICE_PARSE);
+
+  private static MappingEntity entity() {
+    final MappingEntity entity = new MappingEntity();
+    entity.id = Long.valueOf(10);
+    entity.quantity = 3;
+    entity.status = MappingEntity.Status.INACTIVE;
+    entity.createdAt = new Date(123456L);
+    entity.description = "description";
+    entity.price = 9.5d;
+    entity.internal = "internal";
+    entity.parent = new MappingEntity();
+    return entity;
+  }
+
+  @Test
+  public void testEntityToDto() throws Exception {
+    final MappingDto dto = new MappingDto();
+    for (int i = 0; i < 3; i++) {
+      GenericsUtils.mapContent(entity(), dto, TO_DTO);
+    }
+
+    assertEquals(10L, dto.id);
+    assertEquals(Integer.valueOf(3), dto.quantity);
+    assertEquals("INACTIVE", dto.status);
+    assertEquals(123456L, dto.createdAt);
+    assertEquals("description", dto.text);
+    assertEquals(String.format("%.2f", Double.valueOf(9.5d)), dto.price);
+    assertNull(dto.internal);
+  }
+
+  @Test
+  public void testDtoToEntity() throws Exception {
+    final MappingDto dto = new MappingDto();
+    dto.id = 20L;
+    dto.quantity = Integer.valueOf(5);
+    dto.status = "ACTIVE";
+    dto.createdAt = 1000L;
+    dto.text = "text";
+    dto.price = "1.25";
+    dto.internal = "internal";
+
+    final MappingEntity entity = GenericsUtils.map(dto, MappingEntity.class, TO_ENTITY);
+    assertEquals(Long.valueOf(20), entity.id);
+    assertEquals(5, entity.quantity);
+    assertEquals(MappingEntity.Status.ACTIVE, entity.status);
+    assertEquals(new Date(1000L), entity.createdAt);
+    assertEquals("text", entity.description);
+    assertEquals(1.25d, entity.price, 0d);
+    assertEquals("internal", entity.internal);
+  }
+
+  @Test
+  public void testNullValues() throws Exception {
+    final MappingEntity entity = entity();
+    GenericsUtils.mapContent(new MappingDto(), entity, TO_ENTITY);
+    // A null Integer leaves the int unchanged and a null String clears the
+    // enum
+    assertEquals(3, entity.quantity);
+    assertNull(entity.status);
+    assertEquals(Long.valueOf(0), entity.id);
+  }
+
+  @Test
+  public void testOptionsCreatedOnEachCall() throws Exception {
+    // more distinct options than the cache keeps, the last ones are computed
+    // on each call
+    for (int i = 0; i < 300; i++) {
+      final String suffix = String.valueOf(i);
+      final MappingDto dto = new MappingDto();
+      GenericsUtils.mapContent(entity(), dto, MappingOptions.DEFAULT.withConverter(double.class, String.class,
+          new TypeConverter<Double, String>() {
+            @Override
+            public String convert(Double value) {
+              return suffix;
+            }
+          }));
+      assertEquals(suffix, dto.price);
+      assertEquals("INACTIVE", dto.status);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingConversion() throws Exception {
+    // There is no built in conversion from double to String
+    GenericsUtils.mapContent(entity(), new MappingDto());
+  }
+
+  @Test(expected = NoSuchFieldException.class)
+  public void testStrict() throws Exception {
+    GenericsUtils.mapContent(entity(), new MappingDto(), TO_DTO.strict());
+  }
+
+  @Test(expected = ClassCastException.class)
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void testInvalidConverterResult() throws Exception {
+    final TypeConverter converter = new TypeConverter() {
+      @Override
+      public Object convert(Object value) {
+        return Integer.valueOf(1);
+      }
+    };
+    GenericsUtils.mapContent(entity(), new MappingDto(), TO_DTO.withConverter(Double.class, String.class, converter));
+  }
+}
@@ -0,0 +1,20 @@
+package com.eidoscode.generics.utils.test;
+
+/**
+ * DTO side of the mapping tests. It shares most of the field names with
+ * {@link MappingEntity}, but not their types.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class MappingDto {
+
+  long id;
+  Integer quantity;
+  String status;
+  long createdAt;
+  String text;
+  String price;
+  String internal;
+}
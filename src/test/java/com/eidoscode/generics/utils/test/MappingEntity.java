@@ -0,0 +1,26 @@
+package com.eidoscode.generics.utils.test;
+
+import java.util.Date;
+
+/**
+ * Entity side of the mapping tests.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class MappingEntity {
+
+  public enum Status {
+    ACTIVE, INACTIVE
+  }
+
+  Long id;
+  int quantity;
+  Status status;
+  Date createdAt;
+  String description;
+  double price;
+  String internal;
+  MappingEntity parent;
+}
@@ -0,0 +1,34 @@
+package com.eidoscode.generics.utils.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ModelCollections {
+
+  public List<Integer> list;
+  public Set<String> set;
+  public Map<String, Integer> map;
+  public ArrayList<Integer> arrayList;
+  public int[] numbers;
+  public String[] names;
+
+  public ModelCollections fill(int size) {
+    list = new ArrayList<Integer>();
+    set = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    map = new HashMap<String, Integer>();
+    arrayList = new ArrayList<Integer>();
+    for (int i = 0; i < size; i++) {
+      list.add(i);
+      set.add("s" + i);
+      map.put("k" + i, i);
+      arrayList.add(i);
+    }
+    numbers = new int[] { 1, 2, 3 };
+    names = new String[] { "A", "B" };
+    return this;
+  }
+}
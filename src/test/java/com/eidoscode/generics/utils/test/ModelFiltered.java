@@ -0,0 +1,60 @@
+package com.eidoscode.generics.utils.test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Model with transient, audit and collection fields, used on the field filter
+ * tests.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class ModelFiltered {
+
+  String name;
+  int version;
+  transient Object session;
+  @Audit
+  Date updatedAt;
+  @Audit
+  String updatedBy;
+  List<String> children;
+
+  public ModelFiltered fill() {
+    name = "name";
+    version = 3;
+    session = new Object();
+    updatedAt = new Date(1000L);
+    updatedBy = "admin";
+    children = new ArrayList<String>();
+    children.add("child");
+    return this;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public Object getSession() {
+    return session;
+  }
+
+  public Date getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public String getUpdatedBy() {
+    return updatedBy;
+  }
+
+  public List<String> getChildren() {
+    return children;
+  }
+}
@@ -0,0 +1,38 @@
+package com.eidoscode.generics.utils.test;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.eidoscode.generics.utils.GeneratedCopySupport;
+
+/**
+ * Generics support of {@link ModelGenerated}, as the annotation processor
+ * would generate it, counting its calls.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public final class ModelGenerated$$GenericsSupport implements GeneratedCopySupport {
+
+  static final AtomicInteger RESOLVED = new AtomicInteger();
+  static final AtomicInteger COPIED = new AtomicInteger();
+
+  @Override
+  public Type[] getTypeArguments(Class<?> baseClazz) {
+    RESOLVED.incrementAndGet();
+    if (baseClazz == Comparable.class) {
+      return new Type[] { ModelGenerated.class };
+    }
+    return null;
+  }
+
+  @Override
+  public void copyContent(Object source, Object destination) {
+    COPIED.incrementAndGet();
+    final ModelGenerated s = (ModelGenerated) source;
+    final ModelGenerated d = (ModelGenerated) destination;
+    d.name = s.name;
+    d.count = s.count;
+  }
+}
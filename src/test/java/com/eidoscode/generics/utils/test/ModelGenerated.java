@@ -0,0 +1,39 @@
+package com.eidoscode.generics.utils.test;
+
+import com.eidoscode.generics.utils.GenericsSupport;
+
+/**
+ * Model with a generics support class written as the annotation processor
+ * would generate it.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+@GenericsSupport
+public class ModelGenerated implements Comparable<ModelGenerated> {
+
+  String name;
+  int count;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  @Override
+  public int compareTo(ModelGenerated o) {
+    return count - o.count;
+  }
+}
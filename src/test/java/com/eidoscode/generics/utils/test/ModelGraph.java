@@ -0,0 +1,25 @@
+package com.eidoscode.generics.utils.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class ModelGraph {
+
+  enum Status {
+    ACTIVE, INACTIVE
+  }
+
+  String name;
+  Integer number;
+  Status status;
+  int[] values;
+  ModelGraph[] children;
+  ModelGraph parent;
+  ModelPrimitives primitives;
+  List<ModelPrimitives> list = new ArrayList<ModelPrimitives>();
+  Map<String, ModelPrimitives> map = new HashMap<String, ModelPrimitives>();
+  TreeSet<String> sorted;
+}
@@ -0,0 +1,17 @@
+package com.eidoscode.generics.utils.test;
+
+public class ModelNumbers {
+
+  boolean booleanValue;
+  byte byteValue;
+  char charValue;
+  short shortValue;
+  int intValue;
+  long longValue;
+  float floatValue;
+  double doubleValue;
+  long timestamp;
+  double bid;
+  double ask;
+  int quantity;
+}
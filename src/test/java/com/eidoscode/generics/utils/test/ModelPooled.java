@@ -0,0 +1,7 @@
+package com.eidoscode.generics.utils.test;
+
+public class ModelPooled extends ModelPrimitives {
+
+  final long created = System.nanoTime();
+  Object payload;
+}
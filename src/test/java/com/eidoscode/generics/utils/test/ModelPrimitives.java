@@ -0,0 +1,36 @@
+package com.eidoscode.generics.utils.test;
+
+public class ModelPrimitives {
+
+  boolean booleanValue;
+  byte byteValue;
+  char charValue;
+  short shortValue;
+  int intValue;
+  long longValue;
+  float floatValue;
+  double doubleValue;
+  volatile int volatileValue;
+  volatile String volatileText;
+  String text;
+
+  /**
+   * Fill all the fields with values different than the default ones.
+   * 
+   * @return This object.
+   */
+  public ModelPrimitives fill() {
+    booleanValue = true;
+    byteValue = 1;
+    charValue = 'c';
+    shortValue = 2;
+    intValue = 3;
+    longValue = 4L;
+    floatValue = 5.5f;
+    doubleValue = 6.6d;
+    volatileValue = 7;
+    volatileText = "VOLATILE";
+    text = "TEXT";
+    return this;
+  }
+}
@@ -0,0 +1,17 @@
+package com.eidoscode.generics.utils.test;
+
+public class ModelWidened {
+
+  boolean booleanValue;
+  short byteValue;
+  int charValue;
+  int shortValue;
+  long intValue;
+  float longValue;
+  double floatValue;
+  Double doubleValue;
+  long timestamp;
+  double bid;
+  double ask;
+  long quantity;
+}
@@ -0,0 +1,11 @@
+package com.eidoscode.generics.utils.test;
+
+/**
+ * Stand-in of a subclass generated by CGLIB.
+ * 
+ * @author antonini
+ * 
+ */
+public class ModelWithProxy$$EnhancerByCGLIB$$1a2b3c extends ModelWithProxy {
+
+}
@@ -0,0 +1,190 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.ObjectPool;
+
+public class ObjectPoolTest {
+
+  @Test(expected = NullPointerException.class)
+  public void testNullType() {
+    ObjectPool.of(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCapacity() {
+    ObjectPool.of(ModelPooled.class, 0);
+  }
+
+  @Test
+  public void testAcquireNew() throws Exception {
+    ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class);
+    assertEquals(0, pool.size());
+    assertNotSame(pool.acquire(), pool.acquire());
+  }
+
+  @Test
+  public void testReleaseResetsFields() throws Exception {
+    ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class);
+    ModelPooled instance = pool.acquire();
+    final long created = instance.created;
+    instance.fill();
+    instance.payload = new Object();
+    pool.release(instance);
+    assertEquals(1, pool.size());
+
+    ModelPooled reused = pool.acquire();
+    assertSame(instance, reused);
+    assertEquals(0, pool.size());
+    assertEquals(false, reused.booleanValue);
+    assertEquals(0, reused.byteValue);
+    assertEquals(0, reused.charValue);
+    assertEquals(0, reused.shortValue);
+    assertEquals(0, reused.intValue);
+    assertEquals(0L, reused.longValue);
+    assertEquals(0f, reused.floatValue, 0f);
+    assertEquals(0d, reused.doubleValue, 0d);
+    assertEquals(0, reused.volatileValue);
+    assertNull(reused.volatileText);
+    assertNull(reused.text);
+    assertNull(reused.payload);
+    assertEquals(created, reused.created);
+  }
+
+  @Test
+  public void testAcquireCopy() throws Exception {
+    ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class);
+    pool.release(pool.acquire());
+    ModelPrimitives source = new ModelPrimitives().fill();
+    ModelPooled copy = pool.acquire(source);
+    assertEquals(0, pool.size());
+    assertEquals(3, copy.intValue);
+    assertEquals("TEXT", copy.text);
+    assertNull(copy.payload);
+  }
+
+  @Test(expected = NoSuchFieldException.class)
+  public void testAcquireCopyMissingField() throws Exception {
+    ObjectPool<ModelPrimitives> pool = ObjectPool.of(ModelPrimitives.class);
+    pool.acquire(new ModelPooled());
+  }
+
+  @Test
+  public void testCapacity() throws Exception {
+    ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class, 2);
+    ModelPooled first = pool.acquire();
+    ModelPooled second = pool.acquire();
+    ModelPooled third = pool.acquire();
+    pool.release(first);
+    pool.release(second);
+    pool.release(third);
+    assertEquals(2, pool.size());
+    final Set<ModelPooled> acquired = Collections.newSetFromMap(new IdentityHashMap<ModelPooled, Boolean>());
+    acquired.add(pool.acquire());
+    acquired.add(pool.acquire());
+    assertTrue(acquired.contains(first));
+    assertTrue(acquired.contains(second));
+    assertEquals(0, pool.size());
+
+    pool.release(first);
+    pool.clear();
+    assertEquals(0, pool.size());
+    assertFalse(first == pool.acquire());
+  }
+
+  @Test
+  public void testLastReleasedFirst() throws Exception {
+    ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class, 1024);
+    ModelPooled first = pool.acquire();
+    ModelPooled second = pool.acquire();
+    pool.release(first);
+    pool.release(second);
+    assertSame(second, pool.acquire());
+    assertSame(first, pool.acquire());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDoubleRelease() throws Exception {
+    ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class);
+    ModelPooled instance = pool.acquire();
+    pool.release(instance);
+    pool.release(instance);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReleaseSubclass() throws Exception {
+    ObjectPool<ModelPrimitives> pool = ObjectPool.of(ModelPrimitives.class);
+    pool.release(new ModelPooled());
+  }
+
+  @Test
+  public void testSharedBetweenThreads() throws Exception {
+    final ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class);
+    final ModelPooled released = pool.acquire();
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          pool.release(released);
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+    thread.start();
+    thread.join();
+    assertEquals(1, pool.size());
+    assertSame(released, pool.acquire());
+  }
+
+  @Test
+  public void testProducerConsumer() throws Exception {
+    final ObjectPool<ModelPooled> pool = ObjectPool.of(ModelPooled.class, 8);
+    final BlockingQueue<ModelPooled> queue = new ArrayBlockingQueue<ModelPooled>(4);
+    final int messages = 10000;
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread consumer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < messages; i++) {
+            final ModelPooled message = queue.take();
+            if (message.intValue != 3) {
+              throw new AssertionError("Unexpected content " + message.intValue);
+            }
+            pool.release(message);
+          }
+        } catch (Throwable e) {
+          errors.add(e);
+        }
+      }
+    };
+    consumer.start();
+    final Set<ModelPooled> created = Collections.newSetFromMap(new IdentityHashMap<ModelPooled, Boolean>());
+    final ModelPrimitives source = new ModelPrimitives().fill();
+    for (int i = 0; i < messages; i++) {
+      final ModelPooled message = pool.acquire(source);
+      created.add(message);
+      queue.put(message);
+    }
+    consumer.join();
+    assertTrue(errors.toString(), errors.isEmpty());
+    // the released instances come back to the producer
+    assertTrue(created.size() < messages / 10);
+  }
+}
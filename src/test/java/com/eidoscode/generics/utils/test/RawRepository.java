@@ -0,0 +1,7 @@
+package com.eidoscode.generics.utils.test;
+
+@SuppressWarnings("rawtypes")
+public class RawRepository extends AbstractRepository {
+
+  private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,131 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.FieldFilter;
+import com.eidoscode.generics.utils.RowMapper;
+
+/**
+ * Unit test to check the conversion of objects to and from rows.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class RowMapperTest {
+
+  private static final FieldFilter NO_TRANSIENT_NOR_AUDIT = FieldFilter.ALL.excludeModifiers(Modifier.TRANSIENT).excludeAnnotations(Audit.class);
+
+  @Test
+  public void testColumns() {
+    assertEquals(Arrays.asList("name", "version", "session", "updatedAt", "updatedBy", "children"), RowMapper.of(ModelFiltered.class)
+        .getColumns());
+    assertEquals(Arrays.asList("name", "version", "children"), RowMapper.of(ModelFiltered.class, NO_TRANSIENT_NOR_AUDIT).getColumns());
+    assertSame(RowMapper.of(ModelFiltered.class), RowMapper.of(ModelFiltered.class));
+  }
+
+  @Test
+  public void testMap() throws Exception {
+    final RowMapper<ModelFiltered> mapper = RowMapper.of(ModelFiltered.class, NO_TRANSIENT_NOR_AUDIT);
+    final ModelFiltered source = new ModelFiltered().fill();
+    final Map<String, Object> row = mapper.toMap(source);
+    assertEquals(Arrays.asList("name", "version", "children"), Arrays.asList(row.keySet().toArray()));
+    assertEquals(Integer.valueOf(3), row.get("version"));
+
+    final ModelFiltered target = mapper.fromMap(row);
+    assertEquals("name", target.getName());
+    assertEquals(3, target.getVersion());
+    assertSame(source.getChildren(), target.getChildren());
+    assertNull(target.getUpdatedBy());
+  }
+
+  @Test
+  public void testMapConversionsAndMissingKeys() throws Exception {
+    final Map<String, Object> row = new HashMap<String, Object>();
+    row.put("version", Long.valueOf(7));
+    row.put("updatedAt", Long.valueOf(1000L));
+    row.put("unknown", "ignored");
+    final ModelFiltered target = new ModelFiltered().fill();
+    RowMapper.of(ModelFiltered.class).fromMap(row, target);
+
+    assertEquals(7, target.getVersion());
+    assertEquals(new Date(1000L), target.getUpdatedAt());
+    assertEquals("name", target.getName());
+
+    row.put("version", null);
+    row.put("name", null);
+    RowMapper.of(ModelFiltered.class).fromMap(row, target);
+    assertEquals(7, target.getVersion());
+    assertNull(target.getName());
+  }
+
+  @Test
+  public void testArray() throws Exception {
+    final RowMapper<ModelPrimitives> mapper = RowMapper.of(ModelPrimitives.class, "text", null, "intValue", "doubleValue");
+    final Object[] row = mapper.toArray(new ModelPrimitives().fill());
+    assertArrayEquals(new Object[] { "TEXT", null, Integer.valueOf(3), Double.valueOf(6.6d) }, row);
+
+    final ModelPrimitives target = mapper.fromArray(new Object[] { "CSV", "ignored", Integer.valueOf(4),
+        Float.valueOf(1.5f) });
+    assertEquals("CSV", target.text);
+    assertEquals(4, target.intValue);
+    assertEquals(1.5d, target.doubleValue, 0d);
+  }
+
+  @Test(expected = NoSuchFieldException.class)
+  public void testUnknownColumn() throws Exception {
+    RowMapper.of(ModelPrimitives.class, "text", "unknown");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidValue() throws Exception {
+    RowMapper.of(ModelPrimitives.class, "intValue").fromArray(new Object[] { "not a number" });
+  }
+
+  @Test
+  public void testStreaming() throws Exception {
+    final RowMapper<ModelPrimitives> mapper = RowMapper.of(ModelPrimitives.class, "intValue", "text");
+    final List<Object[]> rows = Arrays.asList(new Object[] { Integer.valueOf(1), "one" }, new Object[] { Integer.valueOf(2), "two" });
+    final Iterator<ModelPrimitives> iterator = mapper.fromArrays(rows.iterator());
+
+    assertTrue(iterator.hasNext());
+    ModelPrimitives model = iterator.next();
+    assertEquals(1, model.intValue);
+    assertEquals("one", model.text);
+    model = iterator.next();
+    assertEquals(2, model.intValue);
+    assertFalse(iterator.hasNext());
+    try {
+      iterator.next();
+    } catch (NoSuchElementException e) {
+      return;
+    }
+    throw new AssertionError("NoSuchElementException expected");
+  }
+
+  @Test
+  public void testStreamingMaps() {
+    final Map<String, Object> row = new HashMap<String, Object>();
+    row.put("name", "streamed");
+    final Iterator<ModelFiltered> iterator = RowMapper.of(ModelFiltered.class).fromMaps(Arrays.asList(row, row).iterator());
+    assertEquals("streamed", iterator.next().getName());
+    assertEquals("streamed", iterator.next().getName());
+    assertFalse(iterator.hasNext());
+  }
+}
@@ -0,0 +1,5 @@
+package com.eidoscode.generics.utils.test;
+
+public class StringListGarage extends ListGarage<String> {
+
+}
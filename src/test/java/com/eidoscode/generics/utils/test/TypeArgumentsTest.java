@@ -0,0 +1,85 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the resolution of type arguments that are not classes.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class TypeArgumentsTest {
+
+  @Test
+  public void testParameterizedTypeArgument() throws Exception {
+    Type type = GenericsUtils.getSuperClassGenericTypeArgument(StringListGarage.class, Garage.class, 0);
+    assertTrue(type instanceof ParameterizedType);
+    ParameterizedType parameterizedType = (ParameterizedType) type;
+    assertEquals(List.class, parameterizedType.getRawType());
+    assertEquals(String.class, parameterizedType.getActualTypeArguments()[0]);
+    assertEquals("java.util.List<java.lang.String>", type.toString());
+    assertNull(GenericsUtils.getSuperClassGenericType(StringListGarage.class, Garage.class));
+  }
+
+  @Test
+  public void testCanonicalTypes() throws Exception {
+    Type type = GenericsUtils.getSuperClassGenericTypeArgument(StringListGarage.class, Garage.class, 0);
+    Type fieldType = Garage.class.getDeclaredField("stringList").getGenericType();
+    assertEquals(fieldType, type);
+    assertEquals(fieldType.hashCode(), type.hashCode());
+    assertSame(type, GenericsUtils.getCanonicalType(fieldType));
+    GenericsUtils.clearCache();
+    assertSame(GenericsUtils.getCanonicalType(fieldType), GenericsUtils.getSuperClassGenericTypeArgument(StringListGarage.class, Garage.class, 0));
+  }
+
+  @Test
+  public void testGenericArrayTypeArgument() {
+    assertEquals(String[].class, GenericsUtils.getSuperClassGenericTypeArgument(StringArrayGarage.class, Garage.class, 0));
+    assertEquals(String[].class, GenericsUtils.getSuperClassGenericType(StringArrayGarage.class, Garage.class));
+    Type type = GenericsUtils.getSuperClassGenericTypeArgument(ArrayGarage.class, Garage.class, 0);
+    assertTrue(type instanceof GenericArrayType);
+    assertTrue(((GenericArrayType) type).getGenericComponentType() instanceof TypeVariable<?>);
+  }
+
+  @Test
+  public void testWildcardTypeArgument() throws Exception {
+    Type type = GenericsUtils.getSuperClassGenericTypeArgument(WildcardGarage.class, Garage.class, 0);
+    assertEquals("java.util.List<? extends java.lang.Number>", type.toString());
+    assertSame(type, GenericsUtils.getCanonicalType(Garage.class.getDeclaredField("numberList").getGenericType()));
+  }
+
+  @Test
+  public void testTypeArguments() {
+    Type[] types = GenericsUtils.getSuperClassGenericTypeArguments(UserRepository.class, IRepository.class);
+    assertEquals(2, types.length);
+    assertSame(String.class, types[0]);
+    assertSame(Long.class, types[1]);
+    assertNull(GenericsUtils.getSuperClassGenericTypeArguments(UserRepository.class, List.class));
+  }
+
+  @Test
+  public void testUnresolvedTypeArgument() {
+    Type type = GenericsUtils.getSuperClassGenericTypeArgument(ModelFirstLevel.class, Model.class, 0);
+    assertTrue(type instanceof TypeVariable<?>);
+    assertEquals("X", ((TypeVariable<?>) type).getName());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testCanonicalTypeNull() {
+    GenericsUtils.getCanonicalType(null);
+  }
+}
@@ -0,0 +1,59 @@
+package com.eidoscode.generics.utils.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.eidoscode.generics.utils.GenericsUtils;
+
+/**
+ * Unit test to check the resolver of the type arguments against the resolver
+ * of the previous versions.
+ * 
+ * @author antonini
+ * @since 1.1.6
+ * @version 1.0
+ */
+public class TypeResolverTest {
+
+  private static final Class<?>[][] PAIRS = { { ModelNoProxy.class, Model.class }, { ModelNoProxy.class, IModel.class },
+      { ModelThridLevel.class, Model.class }, { ModelThridLevel.class, ModelSecondLevel.class }, { ModelThridLevel.class, IModel.class },
+      { ModelFirstLevel.class, Model.class }, { UserRepository.class, AbstractRepository.class }, { UserRepository.class, IRepository.class },
+      { UserRepository.class, Comparable.class }, { UserRepository.class, Serializable.class }, { RawRepository.class, IRepository.class },
+      { Model.class, Model.class }, { ModelNoProxy.class, List.class } };
+
+  @Test
+  public void testSameResultOfLegacyResolver() {
+    for (Class<?>[] pair : PAIRS) {
+      Type[] expected = LegacyTypeResolver.resolve(pair[0], pair[1]);
+      Class<?>[] actual = GenericsUtils.getSuperClassGenericTypes(pair[0], pair[1]);
+      if (expected == null) {
+        assertNull(pair[0] + " " + pair[1], actual);
+      } else {
+        assertEquals(pair[0] + " " + pair[1], expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+          assertEquals(pair[0] + " " + pair[1], expected[i] instanceof Class<?> ? expected[i] : null, actual[i]);
+          assertEquals(expected[i] instanceof Class<?> ? expected[i] : null, GenericsUtils.getSuperClassGenericType(pair[0], pair[1], i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testArgumentsByPosition() {
+    assertArrayEquals(new Class<?>[] { Long.class, String.class }, GenericsUtils.getSuperClassGenericTypes(UserRepository.class, AbstractRepository.class));
+    assertArrayEquals(new Class<?>[] { String.class, Long.class }, GenericsUtils.getSuperClassGenericTypes(UserRepository.class, IRepository.class));
+  }
+
+  @Test
+  public void testExplicitActualArguments() {
+    assertEquals(Integer.class, GenericsUtils.getSuperClassGenericType(AbstractRepository.class, IRepository.class, 1, Integer.class, Double.class));
+    assertEquals(Double.class, GenericsUtils.getSuperClassGenericType(AbstractRepository.class, IRepository.class, 0, Integer.class, Double.class));
+  }
+}
@@ -0,0 +1,6 @@
+package com.eidoscode.generics.utils.test;
+
+public class UserRepository extends AbstractRepository<Long, String> {
+
+  private static final long serialVersionUID = 1L;
+}